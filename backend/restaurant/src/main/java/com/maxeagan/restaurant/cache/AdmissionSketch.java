@@ -0,0 +1,76 @@
+package com.maxeagan.restaurant.cache;
+
+/**
+ * Approximate, aging access counter (a count-min sketch) used to decide whether an item has
+ * been requested often enough recently to deserve a cache slot.
+ * <p>
+ * Counts may be overestimated by hash collisions but never underestimated. After a number of
+ * increments proportional to the width, all counters are halved so that items that were popular
+ * a while ago do not keep their advantage forever.
+ */
+public class AdmissionSketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0x6c2a8b4d, 0xb7e15163, 0x9e3779b9};
+
+    private final int[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedItems roughly how many distinct items are accessed between two agings
+     */
+    public AdmissionSketch(int expectedItems) {
+        int width = Integer.highestOneBit(Math.max(16, expectedItems - 1) << 1);
+        this.counters = new int[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    /**
+     * Records an access and returns the estimated number of recent accesses, including this one.
+     *
+     * @param key the accessed item
+     * @return the estimated access count, capped at 15
+     */
+    public synchronized int increment(Object key) {
+        int hash = spread(key.hashCode());
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+            }
+            estimate = Math.min(estimate, counters[row][index]);
+        }
+
+        if (++additions >= sampleSize) {
+            age();
+        }
+        return estimate;
+    }
+
+    private void age() {
+        for (int[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 17;
+        hash *= 0xed5ad4bb;
+        hash ^= hash >>> 11;
+        return hash;
+    }
+}
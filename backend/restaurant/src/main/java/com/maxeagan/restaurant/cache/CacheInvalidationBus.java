@@ -0,0 +1,28 @@
+package com.maxeagan.restaurant.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport for cache invalidation messages between application nodes.
+ * <p>
+ * Every node publishes the ID of a restaurant after writing it, and every node
+ * (including the publisher) evicts that ID from its local cache when the message
+ * arrives. Implementations decide how messages travel, e.g. in-process for a single
+ * node or over the network for multi-node deployments.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Announces that the restaurant with the given ID has changed.
+     *
+     * @param restaurantId the ID of the changed restaurant
+     */
+    void publish(String restaurantId);
+
+    /**
+     * Registers a listener that is called with the ID of every changed restaurant.
+     *
+     * @param listener the callback invoked for each invalidation message
+     */
+    void subscribe(Consumer<String> listener);
+}
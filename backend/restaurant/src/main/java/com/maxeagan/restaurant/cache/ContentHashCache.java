@@ -0,0 +1,98 @@
+package com.maxeagan.restaurant.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxeagan.restaurant.exceptions.StorageException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caches SHA-256 content hashes of stored files, used as strong HTTP ETags.
+ * <p>
+ * Hashing reads the whole file, so each file is hashed once per node and the result is reused
+ * for every later request. Entries are keyed by file name, size and modification time, so a
+ * file that is replaced under the same name (e.g. a regenerated photo derivative) is hashed again.
+ * <p>
+ * Content-addressed files are named by the hex SHA-256 of their content already, so their name
+ * is the hash and they are never read.
+ */
+@Component
+public class ContentHashCache {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("([0-9a-f]{64})(\\.[^.]*)?");
+
+    private final Cache<String, String> hashes;
+
+    public ContentHashCache(MeterRegistry meterRegistry) {
+        this.hashes = Caffeine.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, hashes, "content-hashes");
+    }
+
+    /**
+     * Returns the content hash of a resource, computing it on first use.
+     *
+     * @param resource the stored file
+     * @return the hex SHA-256 taken from a content-addressed file name, otherwise the URL-safe
+     * Base64 SHA-256 of the file content
+     * @throws StorageException if the file cannot be read
+     */
+    public String hash(Resource resource) {
+        String fileName = resource.getFilename();
+        if (fileName != null) {
+            Matcher contentAddressed = CONTENT_ADDRESSED_NAME.matcher(fileName);
+            if (contentAddressed.matches()) {
+                return contentAddressed.group(1);
+            }
+        }
+        try {
+            String key = resource.getFilename() + ':' + resource.contentLength() + ':' + lastModified(resource);
+            return hashes.get(key, k -> computeHash(resource));
+        } catch (IOException e) {
+            throw new StorageException("Could not read file " + resource.getFilename(), e);
+        }
+    }
+
+    /**
+     * Returns the modification time of a resource, or -1 if the resource has none
+     * (e.g. in-memory content).
+     *
+     * @param resource the stored file
+     * @return the last-modified timestamp in milliseconds, or -1
+     */
+    public static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static String computeHash(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            in.transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (IOException e) {
+            throw new StorageException("Could not read file " + resource.getFilename(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.maxeagan.restaurant.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link CacheInvalidationBus} that delivers every message straight back to
+ * the local subscribers.
+ * <p>
+ * Suitable for single-node deployments and tests. Selected by default, or explicitly
+ * with <code>app.cache.invalidation.bus=loopback</code>.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.invalidation.bus", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String restaurantId) {
+        listeners.forEach(listener -> listener.accept(restaurantId));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,108 @@
+package com.maxeagan.restaurant.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link CacheInvalidationBus} that broadcasts invalidations to all nodes on the local
+ * network using UDP multicast.
+ * <p>
+ * Delivery is best effort: a lost datagram leaves a stale entry behind until it expires,
+ * which is why the restaurant cache also bounds entry lifetime. Selected with
+ * <code>app.cache.invalidation.bus=multicast</code>.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.invalidation.bus", havingValue = "multicast")
+@Slf4j
+public class MulticastCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final int MAX_MESSAGE_BYTES = 512;
+
+    @Value("${app.cache.invalidation.multicast.group:239.192.0.27}")
+    private String group;
+
+    @Value("${app.cache.invalidation.multicast.port:45627}")
+    private int port;
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    private MulticastSocket socket;
+    private InetSocketAddress groupAddress;
+    private Thread receiver;
+
+    /**
+     * Joins the multicast group and starts the receiver thread.
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            groupAddress = new InetSocketAddress(InetAddress.getByName(group), port);
+            socket = new MulticastSocket(port);
+            socket.joinGroup(groupAddress, null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not join cache invalidation group " + group + ":" + port, e);
+        }
+
+        receiver = Thread.ofPlatform()
+                .name("cache-invalidation-receiver")
+                .daemon()
+                .start(this::receive);
+        log.info("Cache invalidation bus listening on {}:{}", group, port);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        socket.close();
+        receiver.interrupt();
+    }
+
+    @Override
+    public void publish(String restaurantId) {
+        byte[] payload = restaurantId.getBytes(StandardCharsets.UTF_8);
+        try {
+            socket.send(new DatagramPacket(payload, payload.length, groupAddress));
+        } catch (IOException e) {
+            log.warn("Could not publish cache invalidation for restaurant {}", restaurantId, e);
+            // Still evict locally so this node never serves its own stale write.
+            listeners.forEach(listener -> listener.accept(restaurantId));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[MAX_MESSAGE_BYTES];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                String restaurantId = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+                listeners.forEach(listener -> listener.accept(restaurantId));
+            } catch (SocketException e) {
+                if (!socket.isClosed()) {
+                    log.warn("Cache invalidation receiver failed", e);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not handle cache invalidation message", e);
+            }
+        }
+    }
+}
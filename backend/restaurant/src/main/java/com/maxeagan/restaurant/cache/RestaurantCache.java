@@ -0,0 +1,233 @@
+package com.maxeagan.restaurant.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxeagan.restaurant.domain.RestaurantDetail;
+import com.maxeagan.restaurant.domain.entities.Address;
+import com.maxeagan.restaurant.domain.entities.Photo;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.domain.entities.Review;
+import com.maxeagan.restaurant.domain.entities.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded, size-weighted read-through cache of {@link Restaurant} documents keyed by ID.
+ * <p>
+ * Serves restaurant detail and review reads without a round trip to Elasticsearch.
+ * Entries are weighed by an estimate of their heap footprint, so a handful of restaurants
+ * with thousands of reviews cannot push everything else out.
+ * <p>
+ * Writers call {@link #invalidate(String)} after saving. The invalidation travels over the
+ * {@link CacheInvalidationBus} so every node evicts its copy; entries also expire after a
+ * fixed time so a lost message cannot keep a stale page alive indefinitely.
+ * <p>
+ * Cached instances are shared between requests and must be treated as read-only.
+ * Read-modify-write paths must load a fresh copy from the repository.
+ * <p>
+ * Detail views ({@link RestaurantDetail}) are cached next to the documents, with their own
+ * weight limit and the same expiry, and are evicted together with them.
+ */
+@Component
+@Slf4j
+public class RestaurantCache {
+
+    /**
+     * Rough per-object overhead (header, references, boxed numbers) used by the weigher.
+     */
+    private static final int OBJECT_OVERHEAD_BYTES = 64;
+
+    private final Cache<String, Restaurant> cache;
+    private final Cache<String, RestaurantDetail> details;
+    private final CacheInvalidationBus invalidationBus;
+
+    public RestaurantCache(
+            CacheInvalidationBus invalidationBus,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.restaurants.max-weight-bytes:67108864}") long maxWeightBytes,
+            @Value("${app.cache.restaurants.details.max-weight-bytes:16777216}") long maxDetailWeightBytes,
+            @Value("${app.cache.restaurants.ttl:PT5M}") Duration ttl
+    ) {
+        this.invalidationBus = invalidationBus;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String id, Restaurant restaurant) -> estimateSize(restaurant))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.details = Caffeine.newBuilder()
+                .maximumWeight(maxDetailWeightBytes)
+                .weigher((String id, RestaurantDetail detail) -> estimateSize(detail))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "restaurants");
+        CaffeineCacheMetrics.monitor(meterRegistry, details, "restaurant.details");
+        invalidationBus.subscribe(this::evict);
+    }
+
+    /**
+     * Returns the cached restaurant, loading it with {@code loader} on a miss.
+     * Missing restaurants are not cached.
+     *
+     * @param id     the restaurant ID
+     * @param loader the backing lookup, typically {@code restaurantRepository::findById}
+     * @return the restaurant, or empty if it does not exist
+     */
+    public Optional<Restaurant> get(String id, Function<String, Optional<Restaurant>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Returns the cached restaurant without loading it.
+     *
+     * @param id the restaurant ID
+     * @return the restaurant if it is currently cached
+     */
+    public Optional<Restaurant> getIfPresent(String id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    /**
+     * Returns the cached detail view, loading it with {@code loader} on a miss.
+     * Missing restaurants are not cached.
+     *
+     * @param id     the restaurant ID
+     * @param loader builds the detail view
+     * @return the detail view, or empty if the restaurant does not exist
+     */
+    public Optional<RestaurantDetail> getDetail(String id, Function<String, Optional<RestaurantDetail>> loader) {
+        return Optional.ofNullable(details.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Returns the cached detail view without loading it.
+     *
+     * @param id the restaurant ID
+     * @return the detail view if it is currently cached
+     */
+    public Optional<RestaurantDetail> getDetailIfPresent(String id) {
+        return Optional.ofNullable(details.getIfPresent(id));
+    }
+
+    /**
+     * Evicts the restaurant on this node and announces the change to all other nodes.
+     * Must be called after every write to the restaurant document.
+     *
+     * @param id the ID of the changed restaurant
+     */
+    public void invalidate(String id) {
+        evict(id);
+        invalidationBus.publish(id);
+    }
+
+    private void evict(String id) {
+        log.debug("Evicting restaurant {} from cache", id);
+        cache.invalidate(id);
+        details.invalidate(id);
+    }
+
+    /**
+     * Estimates the heap footprint of a restaurant and everything embedded in it.
+     *
+     * @param restaurant the restaurant to weigh
+     * @return the estimated size in bytes
+     */
+    static int estimateSize(Restaurant restaurant) {
+        long size = OBJECT_OVERHEAD_BYTES * 4L
+                + sizeOf(restaurant.getId())
+                + sizeOf(restaurant.getName())
+                + sizeOf(restaurant.getCuisineType())
+                + sizeOf(restaurant.getContactInformation())
+                + sizeOf(restaurant.getAddress())
+                + sizeOf(restaurant.getCreatedBy())
+                + sizeOfPhotos(restaurant.getPhotos());
+
+        // Operating hours: seven ranges of two short strings each.
+        size += OBJECT_OVERHEAD_BYTES * 15L;
+
+        size += sizeOfReviews(restaurant.getReviews());
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    /**
+     * Estimates the heap footprint of a detail view: the restaurant, the newest reviews and
+     * the rating distribution.
+     *
+     * @param detail the detail view to weigh
+     * @return the estimated size in bytes
+     */
+    static int estimateSize(RestaurantDetail detail) {
+        long size = (long) estimateSize(detail.getRestaurant())
+                + sizeOfReviews(detail.getLatestReviews())
+                + OBJECT_OVERHEAD_BYTES * (1L + detail.getRatingCounts().size());
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    private static long sizeOfReviews(List<Review> reviews) {
+        if (reviews == null) {
+            return 0;
+        }
+        long size = 0;
+        for (Review review : reviews) {
+            size += OBJECT_OVERHEAD_BYTES * 4L
+                    + sizeOf(review.getId())
+                    + sizeOf(review.getContent())
+                    + sizeOf(review.getWrittenBy())
+                    + sizeOfPhotos(review.getPhotos());
+        }
+        return size;
+    }
+
+    private static long sizeOfPhotos(List<Photo> photos) {
+        if (photos == null) {
+            return 0;
+        }
+        long size = 0;
+        for (Photo photo : photos) {
+            size += OBJECT_OVERHEAD_BYTES * 4L
+                    + sizeOf(photo.getUrl())
+                    + sizeOf(photo.getDominantColor())
+                    + sizeOf(photo.getBlurHash());
+        }
+        return size;
+    }
+
+    private static long sizeOf(Address address) {
+        if (address == null) {
+            return 0;
+        }
+        return OBJECT_OVERHEAD_BYTES
+                + sizeOf(address.getStreetNumber())
+                + sizeOf(address.getStreetName())
+                + sizeOf(address.getUnit())
+                + sizeOf(address.getCity())
+                + sizeOf(address.getState())
+                + sizeOf(address.getPostalCode())
+                + sizeOf(address.getCountry());
+    }
+
+    private static long sizeOf(User user) {
+        if (user == null) {
+            return 0;
+        }
+        return OBJECT_OVERHEAD_BYTES
+                + sizeOf(user.getId())
+                + sizeOf(user.getUsername())
+                + sizeOf(user.getGivenName())
+                + sizeOf(user.getFamilyName());
+    }
+
+    private static long sizeOf(String value) {
+        return value == null ? 0 : OBJECT_OVERHEAD_BYTES / 2 + value.length() * 2L;
+    }
+}
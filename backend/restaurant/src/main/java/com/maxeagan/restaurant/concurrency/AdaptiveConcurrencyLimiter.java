@@ -0,0 +1,136 @@
+package com.maxeagan.restaurant.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limiter whose limit follows the latency of the protected resource.
+ * <p>
+ * Uses a latency-gradient algorithm in the style of TCP Vegas: the shortest round trip
+ * seen recently approximates the latency without queueing. While observed latency stays
+ * close to it the limit grows by roughly {@code sqrt(limit)}; as latency rises the limit
+ * shrinks in proportion ({@code limit * noLoadRtt / rtt}). Timeouts and similar overload
+ * signals cut the limit multiplicatively (AIMD backoff).
+ * <p>
+ * Callers that find the limit exhausted are rejected immediately instead of queueing.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * How a call that held a permit ended.
+     */
+    public enum Outcome {
+        /** The call completed; its latency is a valid sample. */
+        SUCCESS,
+        /** The call failed with an overload signal such as a timeout. */
+        DROPPED,
+        /** The call failed for an unrelated reason; its latency is ignored. */
+        IGNORED
+    }
+
+    /**
+     * Samples after which the no-load latency is re-measured, so the limiter follows
+     * lasting changes in baseline latency instead of remembering one fast outlier.
+     */
+    private static final int NO_LOAD_RTT_PROBE_INTERVAL = 1000;
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Guarded by this.
+    private long noLoadRttNanos = Long.MAX_VALUE;
+    private int samplesSinceProbe;
+
+    /**
+     * @param initialLimit the starting concurrency limit
+     * @param minLimit     the limit never drops below this value
+     * @param maxLimit     the limit never grows above this value
+     * @param tolerance    how much latency may exceed the no-load latency before the limit shrinks (e.g. 1.5)
+     * @param smoothing    weight of each new estimate, between 0 and 1
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Takes a permit if fewer than {@link #getLimit()} calls are in flight.
+     * Every successful acquire must be followed by exactly one {@link #release}.
+     *
+     * @return true if a permit was taken, false if the call should be shed
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit and feeds the call's latency into the limit.
+     *
+     * @param rttNanos latency of the call in nanoseconds
+     * @param outcome  how the call ended
+     */
+    public void release(long rttNanos, Outcome outcome) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+
+        switch (outcome) {
+            case DROPPED -> backOff();
+            case SUCCESS -> sample(rttNanos, inFlightAtCompletion);
+            case IGNORED -> {
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void backOff() {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtCompletion) {
+        if (rttNanos <= 0) {
+            return;
+        }
+
+        if (++samplesSinceProbe >= NO_LOAD_RTT_PROBE_INTERVAL) {
+            samplesSinceProbe = 0;
+            noLoadRttNanos = rttNanos;
+        } else {
+            noLoadRttNanos = Math.min(noLoadRttNanos, rttNanos);
+        }
+
+        // Without real load the latency says nothing about capacity; don't grow the limit.
+        if (inFlightAtCompletion * 2 < limit) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * noLoadRttNanos / rttNanos));
+        double queueAllowance = Math.sqrt(limit);
+        double estimate = limit * gradient + queueAllowance;
+
+        double smoothed = limit * (1 - smoothing) + estimate * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+}
@@ -0,0 +1,131 @@
+package com.maxeagan.restaurant.concurrency;
+
+import com.maxeagan.restaurant.exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Method interceptor that puts an {@link AdaptiveConcurrencyLimiter} in front of every
+ * {@link com.maxeagan.restaurant.repositories.RestaurantRepository} call.
+ * <p>
+ * Reads and writes have separate budgets so a burst of slow writes cannot starve reads
+ * and vice versa. Calls over the limit fail fast with a {@link ServiceOverloadedException}.
+ * <p>
+ * Publishes <code>elasticsearch.limiter.limit</code>, <code>elasticsearch.limiter.inflight</code>
+ * and <code>elasticsearch.limiter.rejected</code>, tagged by budget.
+ */
+@Component
+@Slf4j
+public class RepositoryConcurrencyLimiter implements MethodInterceptor {
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final Counter readRejections;
+    private final Counter writeRejections;
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+
+    public RepositoryConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${app.elasticsearch.limiter.enabled:true}") boolean enabled,
+            @Value("${app.elasticsearch.limiter.retry-after-seconds:1}") long retryAfterSeconds,
+            @Value("${app.elasticsearch.limiter.tolerance:1.5}") double tolerance,
+            @Value("${app.elasticsearch.limiter.smoothing:0.2}") double smoothing,
+            @Value("${app.elasticsearch.limiter.read.initial-limit:20}") int readInitialLimit,
+            @Value("${app.elasticsearch.limiter.read.min-limit:4}") int readMinLimit,
+            @Value("${app.elasticsearch.limiter.read.max-limit:200}") int readMaxLimit,
+            @Value("${app.elasticsearch.limiter.write.initial-limit:10}") int writeInitialLimit,
+            @Value("${app.elasticsearch.limiter.write.min-limit:2}") int writeMinLimit,
+            @Value("${app.elasticsearch.limiter.write.max-limit:50}") int writeMaxLimit
+    ) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.readLimiter = new AdaptiveConcurrencyLimiter(
+                readInitialLimit, readMinLimit, readMaxLimit, tolerance, smoothing);
+        this.writeLimiter = new AdaptiveConcurrencyLimiter(
+                writeInitialLimit, writeMinLimit, writeMaxLimit, tolerance, smoothing);
+        this.readRejections = registerMetrics(meterRegistry, "read", readLimiter);
+        this.writeRejections = registerMetrics(meterRegistry, "write", writeLimiter);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!enabled || invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+
+        boolean write = isWrite(invocation.getMethod().getName());
+        AdaptiveConcurrencyLimiter limiter = write ? writeLimiter : readLimiter;
+
+        if (!limiter.tryAcquire()) {
+            (write ? writeRejections : readRejections).increment();
+            log.warn("Shedding Elasticsearch {} call {}: limit of {} reached",
+                    write ? "write" : "read", invocation.getMethod().getName(), limiter.getLimit());
+            throw new ServiceOverloadedException("Search backend is overloaded", retryAfterSeconds);
+        }
+
+        long start = System.nanoTime();
+        AdaptiveConcurrencyLimiter.Outcome outcome = AdaptiveConcurrencyLimiter.Outcome.IGNORED;
+        try {
+            Object result = invocation.proceed();
+            outcome = AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+            return result;
+        } catch (Throwable t) {
+            if (isOverloadSignal(t)) {
+                outcome = AdaptiveConcurrencyLimiter.Outcome.DROPPED;
+            }
+            throw t;
+        } finally {
+            limiter.release(System.nanoTime() - start, outcome);
+        }
+    }
+
+    private static boolean isWrite(String methodName) {
+        return methodName.startsWith("save")
+                || methodName.startsWith("delete")
+                || methodName.startsWith("update")
+                || methodName.startsWith("index");
+    }
+
+    /**
+     * Timeouts and connection failures indicate the cluster is struggling; other errors
+     * (mapping problems, bad queries) say nothing about its capacity.
+     */
+    private static boolean isOverloadSignal(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof SocketTimeoutException
+                    || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Counter registerMetrics(MeterRegistry registry, String budget, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("elasticsearch.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit for Elasticsearch calls")
+                .tag("budget", budget)
+                .register(registry);
+        Gauge.builder("elasticsearch.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Elasticsearch calls currently holding a permit")
+                .tag("budget", budget)
+                .register(registry);
+        return Counter.builder("elasticsearch.limiter.rejected")
+                .description("Elasticsearch calls shed because the limit was reached")
+                .tag("budget", budget)
+                .register(registry);
+    }
+}
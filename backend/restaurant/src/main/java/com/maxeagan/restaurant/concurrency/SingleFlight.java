@@ -0,0 +1,101 @@
+package com.maxeagan.restaurant.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls so they share a single in-flight execution.
+ * <p>
+ * The first caller for a key (the leader) runs the supplied call; callers that arrive
+ * with the same key while it is running (followers) wait for and receive the same result
+ * or exception. Nothing is retained once the call completes, so this is not a cache:
+ * it only collapses requests that overlap in time.
+ * <p>
+ * Publishes <code>singleflight.calls</code> counters tagged with the flight name and
+ * role, and a <code>singleflight.coalescing.ratio</code> gauge (followers / all calls).
+ *
+ * @param <K> the key identifying identical calls; must implement equals and hashCode
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    /**
+     * @param name          name used to tag the metrics of this flight group
+     * @param meterRegistry registry receiving the coalescing metrics
+     */
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.leaders = Counter.builder("singleflight.calls")
+                .description("Calls that executed the backend call themselves or joined one in flight")
+                .tag("name", name)
+                .tag("role", "leader")
+                .register(meterRegistry);
+        this.followers = Counter.builder("singleflight.calls")
+                .tag("name", name)
+                .tag("role", "follower")
+                .register(meterRegistry);
+
+        Gauge.builder("singleflight.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Share of calls served by joining an identical call already in flight")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code call}, or joins an identical call that is already running.
+     *
+     * @param key  identifies identical calls
+     * @param call the backend call
+     * @return the result of the shared call
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            followers.increment();
+            return await(existing);
+        }
+
+        leaders.increment();
+        try {
+            V result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private double coalescingRatio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : followers.count() / total;
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.maxeagan.restaurant.config;
+
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.http.TransportHttpClient;
+import co.elastic.clients.transport.instrumentation.Instrumentation;
+import co.elastic.clients.transport.rest_client.RestClientOptions;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.elasticsearch.RestClientBuilderCustomizer;
+import org.springframework.boot.ssl.SslBundle;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.net.ssl.HostnameVerifier;
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Tunes and instruments the connection pool of the low-level Elasticsearch REST client.
+ * <p>
+ * Spring Boot only exposes the connect and socket timeouts of the client
+ * (<code>spring.elasticsearch.connection-timeout</code> and
+ * <code>spring.elasticsearch.socket-timeout</code>). This configuration adds the pool
+ * limits, keep-alive and I/O reactor sizing under <code>app.elasticsearch.client.*</code>,
+ * and publishes pool, connection lease and per-request latency metrics so saturation is
+ * visible. Requests are timed by the API client's transport, so calls that fail with a
+ * timeout or connection error are recorded alongside those that get a response.
+ * <p>
+ * The pool replaces the connection manager the client would otherwise build, so TLS is
+ * configured here: <code>https</code> connections use the SSL bundle named by
+ * <code>spring.elasticsearch.restclient.ssl.bundle</code>, or the JVM defaults without one.
+ */
+@Configuration
+@Slf4j
+public class ElasticsearchClientConfig {
+
+    /**
+     * Maximum number of pooled connections to a single Elasticsearch node.
+     */
+    @Value("${app.elasticsearch.client.max-conn-per-route:50}")
+    private int maxConnPerRoute;
+
+    /**
+     * Maximum number of pooled connections across all Elasticsearch nodes.
+     */
+    @Value("${app.elasticsearch.client.max-conn-total:200}")
+    private int maxConnTotal;
+
+    /**
+     * How long an idle pooled connection may be reused before it is discarded.
+     */
+    @Value("${app.elasticsearch.client.keep-alive:PT60S}")
+    private Duration keepAlive;
+
+    /**
+     * Number of I/O dispatcher threads; 0 uses one per available processor.
+     */
+    @Value("${app.elasticsearch.client.io-thread-count:0}")
+    private int ioThreadCount;
+
+    /**
+     * SSL bundle securing <code>https</code> connections; empty uses the JVM defaults.
+     */
+    @Value("${spring.elasticsearch.restclient.ssl.bundle:}")
+    private String sslBundle;
+
+    /**
+     * Creates the shared, pooled connection manager used by the Elasticsearch REST client.
+     * Exposed as a bean so the pool statistics can be published as metrics.
+     *
+     * @param sslBundles    the SSL bundles, required when an SSL bundle is configured
+     * @param meterRegistry registry receiving the connection lease timer
+     * @return the configured connection manager
+     * @throws IOReactorException if the I/O reactor cannot be started
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PoolingNHttpClientConnectionManager elasticsearchConnectionManager(
+            ObjectProvider<SslBundles> sslBundles,
+            MeterRegistry meterRegistry
+    ) throws IOReactorException {
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+                .setSoKeepAlive(true);
+        if (ioThreadCount > 0) {
+            ioReactorConfig.setIoThreadCount(ioThreadCount);
+        }
+
+        PoolingNHttpClientConnectionManager connectionManager = new LeaseTimingConnectionManager(
+                meterRegistry,
+                new DefaultConnectingIOReactor(ioReactorConfig.build()),
+                RegistryBuilder.<SchemeIOSessionStrategy>create()
+                        .register("http", NoopIOSessionStrategy.INSTANCE)
+                        .register("https", sslStrategy(sslBundles))
+                        .build()
+        );
+        connectionManager.setDefaultMaxPerRoute(maxConnPerRoute);
+        connectionManager.setMaxTotal(maxConnTotal);
+
+        log.info("Elasticsearch connection pool: maxPerRoute={}, maxTotal={}, keepAlive={}, ioThreads={}",
+                maxConnPerRoute, maxConnTotal, keepAlive, ioThreadCount > 0 ? ioThreadCount : "default");
+        return connectionManager;
+    }
+
+    /**
+     * Builds the TLS strategy the way Spring Boot would apply it to a client without a
+     * custom connection manager.
+     */
+    private SchemeIOSessionStrategy sslStrategy(ObjectProvider<SslBundles> sslBundles) {
+        if (sslBundle.isBlank()) {
+            return SSLIOSessionStrategy.getSystemDefaultStrategy();
+        }
+        SslBundle bundle = sslBundles.getObject().getBundle(sslBundle);
+        return new SSLIOSessionStrategy(bundle.createSslContext(),
+                bundle.getOptions().getEnabledProtocols(), bundle.getOptions().getCiphers(), (HostnameVerifier) null);
+    }
+
+    /**
+     * Plugs the pooled connection manager and keep-alive strategy into the REST client that
+     * Spring Boot auto-configures.
+     *
+     * @param connectionManager the pooled connection manager
+     * @return the builder customizer
+     */
+    @Bean
+    public RestClientBuilderCustomizer elasticsearchPoolCustomizer(PoolingNHttpClientConnectionManager connectionManager) {
+        long keepAliveMillis = keepAlive.toMillis();
+
+        return new RestClientBuilderCustomizer() {
+            @Override
+            public void customize(RestClientBuilder builder) {
+            }
+
+            @Override
+            public void customize(HttpAsyncClientBuilder httpClientBuilder) {
+                httpClientBuilder
+                        .setConnectionManager(connectionManager)
+                        .setKeepAliveStrategy((response, context) -> keepAliveMillis);
+            }
+        };
+    }
+
+    /**
+     * Replaces the transport Spring Boot would create with one that times every request.
+     *
+     * @param restClient        the low-level REST client
+     * @param jsonpMapper       the JSON mapper of the API client
+     * @param restClientOptions optional default request options
+     * @param meterRegistry     registry receiving the request latency histogram
+     * @return the instrumented transport
+     */
+    @Bean
+    public RestClientTransport elasticsearchTransport(
+            RestClient restClient,
+            JsonpMapper jsonpMapper,
+            ObjectProvider<RestClientOptions> restClientOptions,
+            MeterRegistry meterRegistry
+    ) {
+        return new RestClientTransport(restClient, jsonpMapper, restClientOptions.getIfAvailable(),
+                new RequestTimingInstrumentation(meterRegistry));
+    }
+
+    /**
+     * Publishes leased, connecting, available and maximum connection counts of the pool.
+     * Requests waiting for a connection are not counted by the pool; their wait is timed as
+     * <code>elasticsearch.client.pool.lease</code> instead.
+     *
+     * @param connectionManager the pooled connection manager
+     * @return a binder registering the pool gauges
+     */
+    @Bean
+    public MeterBinder elasticsearchPoolMetrics(PoolingNHttpClientConnectionManager connectionManager) {
+        return registry -> {
+            poolGauge(registry, connectionManager, "leased", PoolStats::getLeased);
+            // Connections being opened, not requests waiting for one.
+            poolGauge(registry, connectionManager, "connecting", PoolStats::getPending);
+            poolGauge(registry, connectionManager, "available", PoolStats::getAvailable);
+            poolGauge(registry, connectionManager, "max", PoolStats::getMax);
+        };
+    }
+
+    private static void poolGauge(
+            MeterRegistry registry,
+            PoolingNHttpClientConnectionManager connectionManager,
+            String state,
+            ToDoubleFunction<PoolStats> value
+    ) {
+        Gauge.builder("elasticsearch.client.pool.connections", connectionManager,
+                        manager -> value.applyAsDouble(manager.getTotalStats()))
+                .description("Connections of the Elasticsearch REST client pool")
+                .tag("state", state)
+                .register(registry);
+    }
+
+    /**
+     * Times how long each request waits for a pooled connection, including opening a new one.
+     * A timeout here means the pool is exhausted or the node unreachable.
+     */
+    private static final class LeaseTimingConnectionManager extends PoolingNHttpClientConnectionManager {
+
+        private final MeterRegistry meterRegistry;
+
+        LeaseTimingConnectionManager(
+                MeterRegistry meterRegistry,
+                ConnectingIOReactor ioReactor,
+                Registry<SchemeIOSessionStrategy> ioSessionFactoryRegistry
+        ) {
+            super(ioReactor, ioSessionFactoryRegistry);
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Future<NHttpClientConnection> requestConnection(
+                HttpRoute route,
+                Object state,
+                long connectTimeout,
+                long leaseTimeout,
+                TimeUnit timeUnit,
+                FutureCallback<NHttpClientConnection> callback
+        ) {
+            long start = System.nanoTime();
+            return super.requestConnection(route, state, connectTimeout, leaseTimeout, timeUnit,
+                    new FutureCallback<>() {
+                        @Override
+                        public void completed(NHttpClientConnection connection) {
+                            record("acquired");
+                            if (callback != null) {
+                                callback.completed(connection);
+                            }
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            record("failed");
+                            if (callback != null) {
+                                callback.failed(e);
+                            }
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            record("cancelled");
+                            if (callback != null) {
+                                callback.cancelled();
+                            }
+                        }
+
+                        private void record(String outcome) {
+                            Timer.builder("elasticsearch.client.pool.lease")
+                                    .description("Time Elasticsearch requests wait for a pooled connection")
+                                    .tag("outcome", outcome)
+                                    .publishPercentileHistogram()
+                                    .register(meterRegistry)
+                                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Records <code>elasticsearch.client.requests</code> for every API call, tagged with the
+     * HTTP method and status and, for calls that failed, the exception. Calls that never got
+     * a response have status <code>NONE</code>.
+     */
+    private record RequestTimingInstrumentation(MeterRegistry meterRegistry) implements Instrumentation {
+
+        @Override
+        public <TRequest> Context newContext(TRequest request, Endpoint<TRequest, ?, ?> endpoint) {
+            return new TimedRequest(meterRegistry);
+        }
+    }
+
+    private static final class TimedRequest implements Instrumentation.Context {
+
+        private final MeterRegistry meterRegistry;
+        private final long start = System.nanoTime();
+        private volatile String method = "UNKNOWN";
+        private volatile String status = "NONE";
+        private volatile String exception = "none";
+
+        TimedRequest(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Instrumentation.ThreadScope makeCurrent() {
+            return () -> {
+            };
+        }
+
+        @Override
+        public void beforeSendingHttpRequest(TransportHttpClient.Request request, TransportOptions options) {
+            method = request.method();
+        }
+
+        @Override
+        public void afterReceivingHttpResponse(TransportHttpClient.Response response) {
+            status = String.valueOf(response.statusCode());
+        }
+
+        @Override
+        public <TResponse> void afterDecodingApiResponse(TResponse response) {
+        }
+
+        @Override
+        public void recordException(Throwable thrown) {
+            exception = thrown.getClass().getSimpleName();
+        }
+
+        @Override
+        public void close() {
+            Timer.builder("elasticsearch.client.requests")
+                    .description("Latency of Elasticsearch REST client requests")
+                    .tag("method", method)
+                    .tag("status", status)
+                    .tag("outcome", "none".equals(exception) ? "success" : "failure")
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
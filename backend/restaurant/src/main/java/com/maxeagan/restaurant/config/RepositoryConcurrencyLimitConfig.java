@@ -0,0 +1,54 @@
+package com.maxeagan.restaurant.config;
+
+import com.maxeagan.restaurant.concurrency.RepositoryConcurrencyLimiter;
+import com.maxeagan.restaurant.repositories.RestaurantRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Routes every {@link RestaurantRepository} call through the {@link RepositoryConcurrencyLimiter}.
+ */
+@Configuration
+public class RepositoryConcurrencyLimitConfig {
+
+    /**
+     * Adds the limiter as the first advice of the repository proxy, so derived queries,
+     * {@code @Query} methods and custom fragment methods are all covered.
+     * <p>
+     * Declared static and resolving the limiter lazily, so that registering this
+     * post-processor does not initialize other beans early.
+     *
+     * @param limiter provider of the repository concurrency limiter
+     * @return the post-processor decorating the repository
+     */
+    @Bean
+    public static BeanPostProcessor restaurantRepositoryConcurrencyLimit(
+            ObjectProvider<RepositoryConcurrencyLimiter> limiter
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof RestaurantRepository)) {
+                    return bean;
+                }
+
+                MethodInterceptor interceptor = invocation -> limiter.getObject().invoke(invocation);
+
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvice(0, interceptor);
+                    return bean;
+                }
+
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setInterfaces(RestaurantRepository.class);
+                proxyFactory.addAdvice(interceptor);
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+}
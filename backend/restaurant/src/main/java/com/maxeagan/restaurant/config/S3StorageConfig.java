@@ -0,0 +1,114 @@
+package com.maxeagan.restaurant.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Creates the clients of the S3-compatible photo storage backend, selected with
+ * <code>app.storage.backend=s3</code>.
+ * <p>
+ * The client runs on a pooled Apache HTTP client sized by
+ * <code>app.storage.s3.max-connections</code>, so parallel part uploads and concurrent photo
+ * reads reuse connections instead of paying a TLS handshake each. Setting
+ * <code>app.storage.s3.endpoint</code> targets MinIO, Ceph or another S3-compatible store;
+ * without access keys the default AWS credential chain is used.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+@Slf4j
+public class S3StorageConfig {
+
+    @Value("${app.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${app.storage.s3.region:us-east-1}")
+    private String region;
+
+    /**
+     * Path-style URLs (<code>{endpoint}/{bucket}/{key}</code>), needed by most self-hosted stores.
+     */
+    @Value("${app.storage.s3.path-style-access:false}")
+    private boolean pathStyleAccess;
+
+    @Value("${app.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${app.storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${app.storage.s3.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${app.storage.s3.connection-timeout:PT2S}")
+    private Duration connectionTimeout;
+
+    @Value("${app.storage.s3.socket-timeout:PT30S}")
+    private Duration socketTimeout;
+
+    @Bean(destroyMethod = "close")
+    public S3Client s3Client() {
+        var builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentialsProvider())
+                .serviceConfiguration(s3Configuration())
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .connectionTimeout(connectionTimeout)
+                        .socketTimeout(socketTimeout)
+                        .tcpKeepAlive(true));
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+
+        log.info("S3 storage client: endpoint={}, region={}, pathStyle={}, maxConnections={}",
+                StringUtils.hasText(endpoint) ? endpoint : "AWS", region, pathStyleAccess, maxConnections);
+        return builder.build();
+    }
+
+    /**
+     * Signs time-limited GET URLs locally, without a request to the store.
+     *
+     * @return the presigner
+     */
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        var builder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentialsProvider())
+                .serviceConfiguration(s3Configuration());
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    private S3Configuration s3Configuration() {
+        return S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyleAccess)
+                .chunkedEncodingEnabled(false)
+                .build();
+    }
+
+    private AwsCredentialsProvider credentialsProvider() {
+        if (StringUtils.hasText(accessKey)) {
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        }
+        return DefaultCredentialsProvider.create();
+    }
+}
@@ -1,16 +1,21 @@
 package com.maxeagan.restaurant.controllers;
 
 import com.maxeagan.restaurant.domain.dtos.ErrorDto;
+import com.maxeagan.restaurant.exceptions.BatchSizeExceededException;
 import com.maxeagan.restaurant.exceptions.RestaurantNotFoundException;
 import com.maxeagan.restaurant.exceptions.ReviewNotAllowedException;
+import com.maxeagan.restaurant.exceptions.ServiceOverloadedException;
 import com.maxeagan.restaurant.exceptions.StorageException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.stream.Collectors;
 
@@ -63,6 +68,43 @@ public class ErrorController {
         return new ResponseEntity<>(errorDto, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles batch requests that ask for more items than allowed.
+     *
+     * @param ex the caught BatchSizeExceededException
+     * @return 400 error response carrying the allowed maximum
+     */
+    @ExceptionHandler(BatchSizeExceededException.class)
+    public ResponseEntity<ErrorDto> handleBatchSizeExceededException(BatchSizeExceededException ex){
+        log.error("Caught BatchSizeExceededException");
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles writes that lost a race with a concurrent change to the same restaurant,
+     * detected through the document's sequence number and primary term.
+     *
+     * @param ex the caught OptimisticLockingFailureException
+     * @return 409 error response; the client can retry against the current version
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorDto> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex){
+        log.warn("Caught OptimisticLockingFailureException: {}", ex.getMessage());
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.CONFLICT.value())
+                .message("The restaurant was modified concurrently, please retry")
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles validation errors thrown when method arguments annotated with {@code @Valid} fail validation.
      * <p>
@@ -111,6 +153,47 @@ public class ErrorController {
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    /**
+     * Handles requests shed because a backend is at its concurrency limit.
+     * Tells the client when to retry instead of letting requests pile up.
+     *
+     * @param ex the caught ServiceOverloadedException
+     * @return 503 error response with a Retry-After header
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorDto> handleServiceOverloadedException(ServiceOverloadedException ex){
+        log.warn("Caught ServiceOverloadedException: {}", ex.getMessage());
+
+        ErrorDto error = ErrorDto.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message("The service is temporarily overloaded, please retry shortly")
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    /**
+     * Handles multipart requests the container rejects because they exceed
+     * <code>spring.servlet.multipart.max-request-size</code>. Single files are checked by the
+     * storage service instead, so a batch can report an oversized file on its own.
+     *
+     * @param ex the caught MaxUploadSizeExceededException
+     * @return 413 error response
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ErrorDto> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException ex){
+        log.warn("Caught MaxUploadSizeExceededException: {}", ex.getMessage());
+
+        ErrorDto error = ErrorDto.builder()
+                .status(HttpStatus.PAYLOAD_TOO_LARGE.value())
+                .message("The upload is too large")
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     /**
      * Generic catch-all for unhandled exceptions.
      *
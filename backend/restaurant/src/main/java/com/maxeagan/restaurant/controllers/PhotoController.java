@@ -1,18 +1,39 @@
 package com.maxeagan.restaurant.controllers;
 
+import com.maxeagan.restaurant.cache.ContentHashCache;
+import com.maxeagan.restaurant.domain.PhotoVariant;
 import com.maxeagan.restaurant.domain.dtos.PhotoDto;
+import com.maxeagan.restaurant.domain.dtos.PhotoUploadResultDto;
 import com.maxeagan.restaurant.domain.entities.Photo;
+import com.maxeagan.restaurant.exceptions.StorageException;
 import com.maxeagan.restaurant.mappers.PhotoMapper;
 import com.maxeagan.restaurant.services.PhotoService;
+import com.maxeagan.restaurant.web.PhotoResponseWriter;
+import com.maxeagan.restaurant.web.RedirectableResource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletDiskFileUpload;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * REST controller for managing photo uploads and retrievals.
  * <p>
@@ -26,8 +47,23 @@ import org.springframework.web.multipart.MultipartFile;
 @RequestMapping(path = "/api/photos")
 public class PhotoController {
 
+    /**
+     * Photo files are immutable because their names are content hashes or random UUIDs, so
+     * clients and CDNs may keep them for a year without revalidating.
+     */
+    private static final CacheControl PHOTO_CACHE_CONTROL =
+            CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    /**
+     * For an original served in place of a derivative that could not be generated: the next
+     * request retries the derivative.
+     */
+    private static final CacheControl FALLBACK_CACHE_CONTROL = CacheControl.noStore();
+
     private final PhotoService photoService;
     private final PhotoMapper photoMapper;
+    private final ContentHashCache contentHashCache;
+    private final PhotoResponseWriter photoResponseWriter;
 
     /**
      * Handles HTTP POST requests to upload a photo.
@@ -45,27 +81,131 @@ public class PhotoController {
         return photoMapper.toDto(savedPhoto);
     }
 
+    /**
+     * Handles HTTP POST requests to upload several photos in one request, e.g. all photos of a review.
+     * <p>
+     * Expects a multipart form-data request with one or more "files" parts. Files are stored
+     * in parallel and independently: a rejected file is reported in its result and does not
+     * fail the others.
+     *
+     * @param files the image files to upload
+     * @return one result per file in request order, holding either the stored photo or an error
+     */
+    @PostMapping(path = "/batch", consumes = "multipart/form-data", produces = "application/json")
+    public List<PhotoUploadResultDto> uploadPhotos(@RequestParam("files") List<MultipartFile> files) {
+        return photoService.uploadPhotos(files).stream()
+                .map(photoMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Handles HTTP POST requests to upload a photo without spooling it to a temporary file.
+     * <p>
+     * Accepts the same multipart form-data request as {@link #uploadPhoto(MultipartFile)}, but
+     * parses the body as it arrives and streams the "file" part straight into storage, so the
+     * upload is written to disk once instead of twice. Requires
+     * <code>spring.servlet.multipart.resolve-lazily=true</code> so the container leaves the body unread.
+     *
+     * @param request the multipart/form-data request
+     * @return a {@link PhotoDto} containing the stored photo's URL and upload date
+     */
+    @PostMapping(path = "/stream", consumes = "multipart/form-data", produces = "application/json")
+    public PhotoDto uploadPhotoStreaming(HttpServletRequest request) {
+        try {
+            FileItemInputIterator items = new JakartaServletDiskFileUpload().getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                if (!item.isFormField() && "file".equals(item.getFieldName())) {
+                    try (InputStream content = item.getInputStream()) {
+                        return photoMapper.toDto(photoService.uploadPhoto(content, item.getName()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException("Could not read multipart upload", e);
+        }
+        throw new StorageException("Missing multipart field: file");
+    }
+
     /**
      * Retrieves a photo by its filename or ID and returns it as a downloadable resource.
      *
      * @param id the filename or unique identifier of the photo (can include file extensions).
+     * @param width optional display width in pixels; serves the smallest resized copy at least this wide.
      * @return ResponseEntity containing the photo as a Resource if found, or 404 Not Found if not.
      *
      * Notes:
      * - The path variable uses `{id:.+}` to allow filenames with extensions (e.g., `image.jpg`).
      * - Sets the Content-Type based on the file's type if detectable, otherwise defaults to `application/octet-stream`.
      * - Uses `Content-Disposition: inline` to display the image in-browser when possible.
+     * - Without `w` (or with `w` wider than every derivative) the original upload is returned.
+     * - Responses carry a strong content-hash ETag, Last-Modified and an immutable Cache-Control.
+     *   An original served because its derivative could not be generated is sent with
+     *   `Cache-Control: no-store` instead, so a transient failure is not cached.
+     *   Spring answers matching If-None-Match / If-Modified-Since requests with 304 and
+     *   Range requests with 206 partial content, without reading the rest of the file.
+     * - Photos in an object store with presigned redirects enabled (see {@link RedirectableResource})
+     *   are answered with 302 Found pointing at a short-lived URL of the store, so the bytes never
+     *   pass through the application.
+     * - Full GET responses for files on disk are handed to Tomcat's sendfile or a front proxy
+     *   depending on `app.photos.serving-mode` (see {@link PhotoResponseWriter}).
      */
     @GetMapping(path = "/{id:.+}") // indicates one or more.
-    public ResponseEntity<Resource> getPhoto(@PathVariable String id) {
-        return photoService.getPhotoAsResource(id).map(photo ->
-                ResponseEntity.ok()
-                        .contentType(MediaTypeFactory.getMediaType(photo)
-                                .orElse(MediaType.APPLICATION_OCTET_STREAM)
-                        )
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline")
-                        .body(photo)
-        ).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Resource> getPhoto(
+            @PathVariable String id,
+            @RequestParam(name = "w", required = false) Integer width,
+            HttpServletRequest request,
+            HttpServletResponse servletResponse
+    ) throws IOException {
+        Optional<PhotoVariant> variant = width != null && width > 0
+                ? photoService.getPhotoVariant(id, width)
+                : photoService.getPhotoAsResource(id).map(PhotoVariant::of);
+
+        if (variant.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Resource photo = variant.get().getResource();
+        CacheControl cacheControl = variant.get().isFallback() ? FALLBACK_CACHE_CONTROL : PHOTO_CACHE_CONTROL;
+        if (photo instanceof RedirectableResource redirectable) {
+            Optional<URI> location = redirectable.redirectUri();
+            if (location.isPresent()) {
+                // Let clients reuse the redirect for half the URL's lifetime, so it never points at an expired URL.
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .location(location.get())
+                        .cacheControl(variant.get().isFallback()
+                                ? FALLBACK_CACHE_CONTROL
+                                : CacheControl.maxAge(redirectable.redirectTtl().dividedBy(2)).cachePrivate())
+                        .build();
+            }
+        }
+
+        MediaType contentType = MediaTypeFactory.getMediaType(photo).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        String eTag = contentHashCache.hash(photo);
+        long lastModified = ContentHashCache.lastModified(photo);
+
+        if (photoResponseWriter.canOffload(photo, request)) {
+            // Sets 304 or the validators, as Spring does for the ResponseEntity path below.
+            if (new ServletWebRequest(request, servletResponse).checkNotModified(eTag, lastModified)) {
+                return null;
+            }
+            servletResponse.setContentType(contentType.toString());
+            servletResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline");
+            servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+            photoResponseWriter.offload(photo, request, servletResponse);
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline")
+                .eTag(eTag)
+                .cacheControl(cacheControl);
+
+        if (lastModified > 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(photo);
     }
 }
 
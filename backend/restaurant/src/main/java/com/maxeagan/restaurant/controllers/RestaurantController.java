@@ -1,20 +1,31 @@
 package com.maxeagan.restaurant.controllers;
 
+import com.maxeagan.restaurant.domain.FieldSelection;
 import com.maxeagan.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.maxeagan.restaurant.domain.dtos.RestaurantBatchDto;
 import com.maxeagan.restaurant.domain.dtos.RestaurantCreateUpdateRequestDto;
 import com.maxeagan.restaurant.domain.dtos.RestaurantDto;
+import com.maxeagan.restaurant.domain.dtos.RestaurantPageDto;
 import com.maxeagan.restaurant.domain.dtos.RestaurantSummaryDto;
 import com.maxeagan.restaurant.domain.entities.Restaurant;
 import com.maxeagan.restaurant.mappers.RestaurantMapper;
 import com.maxeagan.restaurant.services.RestaurantService;
+import com.maxeagan.restaurant.web.VersionETags;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REST controller for handling restaurant-related operations.
@@ -56,6 +67,8 @@ public class RestaurantController {
      * @param latitude  optional latitude for location filtering
      * @param longitude optional longitude for location filtering
      * @param radius    optional radius in kilometers for geo search
+     * @param fields    optional comma-separated summary fields to return, e.g.
+     *                  {@code id,name,averageRating,photos.url}; all if absent
      * @param page      page number (1-indexed)
      * @param size      number of results per page
      * @return paginated list of {@link RestaurantSummaryDto}
@@ -67,6 +80,7 @@ public class RestaurantController {
             @RequestParam(required = false) Float latitude,
             @RequestParam(required = false) Float longitude,
             @RequestParam(required = false) Float radius,
+            @RequestParam(required = false) String fields,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "20") int size) {
         Page<Restaurant> searchResult = restaurantService.searchRestaurants(
@@ -75,21 +89,93 @@ public class RestaurantController {
                 latitude,
                 longitude,
                 radius,
+                FieldSelection.parse(fields),
                 PageRequest.of(page - 1, size)
         );
         return searchResult.map(restaurantMapper::toSummaryDto);
     }
 
     /**
-     * Retrieves a single restaurant by its ID.
+     * Retrieves several restaurants by ID in one request, e.g. for favourites or
+     * "recently viewed" lists.
+     *
+     * @param ids comma-separated restaurant IDs (e.g. {@code ?ids=a,b,c})
+     * @return summaries of the found restaurants in request order, plus the IDs that were not found
+     */
+    @GetMapping(path = "/batch")
+    public RestaurantBatchDto getRestaurants(@RequestParam List<String> ids) {
+        return restaurantMapper.toBatchDto(restaurantService.getRestaurants(ids));
+    }
+
+    /**
+     * Retrieves a single restaurant by its ID, with only its newest reviews, aggregates over
+     * all reviews and the link to the paged reviews.
+     * <p>
+     * The response carries a weak ETag of the document version. A matching
+     * <code>If-None-Match</code> is answered with 304 after a version check, without
+     * loading or serializing the restaurant.
      *
      * @param restaurantId ID of the restaurant to fetch
-     * @return {@link ResponseEntity} with the {@link RestaurantDto}, or 404 if not found
+     * @param fields       optional comma-separated fields to return; all if absent
+     * @param ifNoneMatch  optional entity tags the client already has
+     * @return {@link ResponseEntity} with the {@link RestaurantDto}, 304 if unchanged, or 404 if not found
      */
     @GetMapping(path = "/{restaurant_id}")
-    public ResponseEntity<RestaurantDto> getRestaurant(@PathVariable("restaurant_id") String restaurantId){
-        return restaurantService.getRestaurant(restaurantId)
-                .map(restaurant -> ResponseEntity.ok(restaurantMapper.toRestaurantDto(restaurant)))
+    public ResponseEntity<RestaurantDto> getRestaurant(
+            @PathVariable("restaurant_id") String restaurantId,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ){
+        Optional<String> notModified = VersionETags.matching(
+                ifNoneMatch, () -> restaurantService.getRestaurantVersion(restaurantId));
+        if (notModified.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(notModified.get())
+                    .cacheControl(VersionETags.CACHE_CONTROL)
+                    .build();
+        }
+
+        return restaurantService.getRestaurantDetail(restaurantId, FieldSelection.parse(fields))
+                .map(detail -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .cacheControl(VersionETags.CACHE_CONTROL);
+                    SeqNoPrimaryTerm version = detail.getRestaurant().getSeqNoPrimaryTerm();
+                    if (version != null) {
+                        response.eTag(VersionETags.of(version));
+                    }
+                    return response.body(restaurantMapper.toRestaurantDto(detail));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Retrieves everything the restaurant page shows in one round trip: the restaurant with its
+     * review aggregates, the first page of reviews, the viewer's own review and nearby
+     * restaurants.
+     * <p>
+     * The response depends on the viewer and is never answered with 304. The first page of
+     * reviews holds as many reviews as the detail view, which is fewer than the default page
+     * size of {@link ReviewController}; clients fetching further pages must pass the returned
+     * {@code reviews.size} along with {@code page}.
+     *
+     * @param restaurantId ID of the restaurant to show
+     * @param debug        whether to include per-section timings, if enabled on the server
+     * @param jwt          the viewer's JWT; null for anonymous viewers
+     * @return {@link ResponseEntity} with the {@link RestaurantPageDto}, or 404 if not found
+     */
+    @GetMapping(path = "/{restaurant_id}/page")
+    public ResponseEntity<RestaurantPageDto> getRestaurantPage(
+            @PathVariable("restaurant_id") String restaurantId,
+            @RequestParam(defaultValue = "false") boolean debug,
+            @AuthenticationPrincipal Jwt jwt
+    ){
+        String viewerId = jwt == null ? null : jwt.getSubject();
+        return restaurantService.getRestaurantPage(restaurantId, viewerId, debug)
+                .map(page -> ResponseEntity.ok()
+                        .cacheControl(viewerId == null
+                                ? VersionETags.CACHE_CONTROL
+                                : CacheControl.noCache().cachePrivate())
+                        .body(restaurantMapper.toRestaurantPageDto(page)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -1,23 +1,31 @@
 package com.maxeagan.restaurant.controllers;
 
+import com.maxeagan.restaurant.domain.FieldSelection;
 import com.maxeagan.restaurant.domain.ReviewCreateUpdateRequest;
 import com.maxeagan.restaurant.domain.dtos.ReviewCreateUpdateRequestDto;
 import com.maxeagan.restaurant.domain.dtos.ReviewDto;
 import com.maxeagan.restaurant.domain.entities.Review;
 import com.maxeagan.restaurant.domain.entities.User;
 import com.maxeagan.restaurant.mappers.ReviewMapper;
+import com.maxeagan.restaurant.services.RestaurantService;
 import com.maxeagan.restaurant.services.ReviewService;
+import com.maxeagan.restaurant.web.VersionETags;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Optional;
+
 /**
  * REST controller for managing reviews tied to specific restaurants.
  */
@@ -28,6 +36,7 @@ public class ReviewController {
 
     private final ReviewMapper reviewMapper;
     private final ReviewService reviewService;
+    private final RestaurantService restaurantService;
 
     /**
      * Creates a new review for a specific restaurant.
@@ -52,23 +61,45 @@ public class ReviewController {
 
     /**
      * Retrieves a paginated list of reviews for a specific restaurant.
+     * <p>
+     * Reviews are embedded in the restaurant document, so every page carries the restaurant's
+     * weak version ETag, and a matching <code>If-None-Match</code> is answered with 304.
      *
      * @param restaurantId the ID of the restaurant
      * @param pageable     pagination and sorting settings
-     * @return paged list of {@link ReviewDto}
+     * @param fields       optional comma-separated review fields to return; all if absent
+     * @param ifNoneMatch  optional entity tags the client already has
+     * @return paged list of {@link ReviewDto}, or 304 if unchanged
      */
     @GetMapping
-    public Page<ReviewDto> listReviews(
+    public ResponseEntity<Page<ReviewDto>> listReviews(
             @PathVariable String restaurantId,
             @PageableDefault(
                     size = 20,
                     page = 0,
                     sort = "datePosted",
                     direction = Sort.Direction.DESC
-            ) Pageable pageable) {
-        return reviewService
-                .listReviews(restaurantId, pageable)
+            ) Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Read the version before the reviews: after a concurrent write the tag may be older
+        // than the body, which only costs a refetch, but never newer.
+        Optional<SeqNoPrimaryTerm> version = restaurantService.getRestaurantVersion(restaurantId);
+        Optional<String> notModified = VersionETags.matching(ifNoneMatch, () -> version);
+        if (notModified.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(notModified.get())
+                    .cacheControl(VersionETags.CACHE_CONTROL)
+                    .build();
+        }
+
+        Page<ReviewDto> reviews = reviewService
+                .listReviews(restaurantId, pageable, FieldSelection.parse(fields))
                 .map(reviewMapper::toDto);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(VersionETags.CACHE_CONTROL);
+        version.map(VersionETags::of).ifPresent(response::eTag);
+        return response.body(reviews);
     }
 
     /**
@@ -76,14 +107,16 @@ public class ReviewController {
      *
      * @param restaurantId the ID of the restaurant
      * @param reviewId     the ID of the review
+     * @param fields       optional comma-separated fields to return; all if absent
      * @return {@link ReviewDto} if found, otherwise 204 No Content
      */
     @GetMapping(path = "/{reviewId}")
     public ResponseEntity<ReviewDto> getReview(
             @PathVariable String restaurantId,
-            @PathVariable String reviewId
+            @PathVariable String reviewId,
+            @RequestParam(required = false) String fields
     ) {
-        return reviewService.getReview(restaurantId, reviewId)
+        return reviewService.getReview(restaurantId, reviewId, FieldSelection.parse(fields))
                 .map(reviewMapper::toDto)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.noContent().build());
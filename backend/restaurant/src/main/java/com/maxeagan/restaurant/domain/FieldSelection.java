@@ -0,0 +1,127 @@
+package com.maxeagan.restaurant.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields a client asked for with the <code>fields</code> query parameter, e.g.
+ * <code>?fields=id,name,averageRating,photos.url</code>.
+ * <p>
+ * Paths name DTO properties; nested properties are separated by dots. Selecting a property
+ * selects everything below it, and selecting a nested property keeps its parents. The same
+ * selection trims the Elasticsearch <code>_source</code> fetch ({@link #sourceIncludes}) and the
+ * JSON output (DTOs annotated with <code>@JsonFilter(FieldSelection.FILTER_ID)</code>).
+ */
+public final class FieldSelection {
+
+    /**
+     * Jackson filter ID of DTOs whose output can be trimmed.
+     */
+    public static final String FILTER_ID = "fieldSelection";
+
+    /**
+     * Selects every field, i.e. no <code>fields</code> parameter.
+     */
+    public static final FieldSelection ALL = new FieldSelection(Collections.emptySet());
+
+    private final Set<String> paths;
+
+    private FieldSelection(Set<String> paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * Parses a comma-separated <code>fields</code> parameter. Blank entries are ignored.
+     *
+     * @param fields the parameter value, or null
+     * @return the selection; {@link #ALL} if nothing was selected
+     */
+    public static FieldSelection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> paths = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String path = field.strip();
+            if (!path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+        return paths.isEmpty() ? ALL : new FieldSelection(Collections.unmodifiableSet(paths));
+    }
+
+    /**
+     * @return true if every field is selected
+     */
+    public boolean isAll() {
+        return paths.isEmpty();
+    }
+
+    /**
+     * Checks whether a property must be written: it is selected, lies below a selected
+     * property, or is the parent of one.
+     *
+     * @param path the dotted property path, relative to the response item
+     * @return true if the property is part of the selection
+     */
+    public boolean includes(String path) {
+        if (paths.isEmpty() || paths.contains(path)) {
+            return true;
+        }
+        for (String selected : paths) {
+            if (isBelow(path, selected) || isBelow(selected, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Translates the selection into <code>_source</code> includes.
+     *
+     * @param prefix  prepended to every path, e.g. <code>"reviews."</code> for review DTOs
+     *                embedded in the restaurant document; may be empty
+     * @param aliases source paths of DTO properties that are named differently or derived from
+     *                other fields, applied to the property and everything below it
+     * @return the source paths to fetch; empty if every field is selected
+     */
+    public List<String> sourceIncludes(String prefix, Map<String, String> aliases) {
+        List<String> includes = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            String source = path;
+            for (Map.Entry<String, String> alias : aliases.entrySet()) {
+                if (path.equals(alias.getKey()) || isBelow(path, alias.getKey())) {
+                    source = alias.getValue();
+                    break;
+                }
+            }
+            includes.add(prefix + source);
+        }
+        return includes;
+    }
+
+    private static boolean isBelow(String path, String ancestor) {
+        return path.length() > ancestor.length()
+                && path.charAt(ancestor.length()) == '.'
+                && path.startsWith(ancestor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FieldSelection other && paths.equals(other.paths);
+    }
+
+    @Override
+    public int hashCode() {
+        return paths.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "*" : String.join(",", paths);
+    }
+}
@@ -0,0 +1,28 @@
+package com.maxeagan.restaurant.domain;
+
+/**
+ * Whether a restaurant's {@code geoLocation} has been resolved from its address.
+ * Restaurants saved before the status existed have none and count as resolved.
+ */
+public enum GeoStatus {
+
+    /**
+     * Saved without a location; the background geocoder has not resolved the address yet.
+     */
+    PENDING,
+
+    /**
+     * The location was resolved from the current address.
+     */
+    RESOLVED,
+
+    /**
+     * The geocoder does not know the address; the restaurant has no location.
+     */
+    NOT_FOUND,
+
+    /**
+     * Geocoding kept failing until the retries were used up; the restaurant has no location.
+     */
+    FAILED
+}
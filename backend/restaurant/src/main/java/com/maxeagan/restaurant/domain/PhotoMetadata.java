@@ -0,0 +1,24 @@
+package com.maxeagan.restaurant.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Layout and placeholder information extracted from a stored photo.
+ * <p>
+ * {@code dominantColor} and {@code blurHash} are null when the image could not be decoded
+ * (e.g. it exceeds the pixel limit); dimensions and size are still reported.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PhotoMetadata {
+    private int width;
+    private int height;
+    private long sizeBytes;
+    private String dominantColor;
+    private String blurHash;
+}
@@ -0,0 +1,22 @@
+package com.maxeagan.restaurant.domain;
+
+import com.maxeagan.restaurant.domain.entities.Photo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of storing one file of a batch photo upload.
+ * <p>
+ * Exactly one of {@code photo} and {@code error} is set.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PhotoUploadResult {
+    private String fileName;
+    private Photo photo;
+    private String error;
+}
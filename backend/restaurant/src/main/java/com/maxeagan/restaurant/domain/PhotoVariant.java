@@ -0,0 +1,38 @@
+package com.maxeagan.restaurant.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.core.io.Resource;
+
+/**
+ * The file that answers a request for a photo at a given width.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PhotoVariant {
+
+    /**
+     * The derivative, or the original if no derivative is needed or it could not be generated.
+     */
+    private Resource resource;
+
+    /**
+     * True if the original stands in for a derivative that could not be generated, e.g. after an
+     * I/O error. Such a response must not be cached, so the derivative is tried again later.
+     */
+    private boolean fallback;
+
+    /**
+     * Wraps a file that is the permanent answer to its request.
+     *
+     * @param resource the derivative or original
+     * @return the variant
+     */
+    public static PhotoVariant of(Resource resource) {
+        return new PhotoVariant(resource, false);
+    }
+}
@@ -0,0 +1,24 @@
+package com.maxeagan.restaurant.domain;
+
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of fetching several restaurants by ID in one call.
+ * <p>
+ * {@code restaurants} keeps the order of the requested IDs; IDs that did not
+ * match any restaurant are listed in {@code missingIds}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantBatchResult {
+    private List<Restaurant> restaurants;
+    private List<String> missingIds;
+}
@@ -0,0 +1,94 @@
+package com.maxeagan.restaurant.domain;
+
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.domain.entities.Review;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What the restaurant detail view shows: the restaurant without its embedded reviews,
+ * the newest reviews and aggregates over all reviews.
+ * <p>
+ * The full review list stays behind the paged reviews endpoint, so the size of a detail
+ * response does not grow with the number of reviews.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantDetail {
+
+    /**
+     * The restaurant; its {@code reviews} are not loaded and must not be used.
+     */
+    private Restaurant restaurant;
+
+    /**
+     * The newest reviews, newest first.
+     */
+    private List<Review> latestReviews;
+
+    /**
+     * Number of reviews of the restaurant.
+     */
+    private long reviewCount;
+
+    /**
+     * Number of reviews per rating, in ascending rating order.
+     */
+    private Map<Integer, Long> ratingCounts;
+
+    /**
+     * Derives the detail view from a fully loaded restaurant, e.g. one from the cache.
+     *
+     * @param restaurant    the restaurant including all reviews
+     * @param latestReviews how many of the newest reviews to keep
+     * @return the detail view, referring to a copy of the restaurant without reviews
+     */
+    public static RestaurantDetail of(Restaurant restaurant, int latestReviews) {
+        List<Review> reviews = restaurant.getReviews() == null ? List.of() : restaurant.getReviews();
+
+        Map<Integer, Long> ratingCounts = new TreeMap<>();
+        for (Review review : reviews) {
+            if (review.getRating() != null) {
+                ratingCounts.merge(review.getRating(), 1L, Long::sum);
+            }
+        }
+
+        return RestaurantDetail.builder()
+                .restaurant(withoutReviews(restaurant))
+                .latestReviews(reviews.stream()
+                        .sorted(Comparator.comparing(Review::getDatePosted,
+                                Comparator.nullsLast(Comparator.reverseOrder())))
+                        .limit(latestReviews)
+                        .toList())
+                .reviewCount(reviews.size())
+                .ratingCounts(ratingCounts)
+                .build();
+    }
+
+    private static Restaurant withoutReviews(Restaurant restaurant) {
+        return Restaurant.builder()
+                .id(restaurant.getId())
+                .seqNoPrimaryTerm(restaurant.getSeqNoPrimaryTerm())
+                .name(restaurant.getName())
+                .cuisineType(restaurant.getCuisineType())
+                .contactInformation(restaurant.getContactInformation())
+                .averageRating(restaurant.getAverageRating())
+                .geoLocation(restaurant.getGeoLocation())
+                .geoStatus(restaurant.getGeoStatus())
+                .address(restaurant.getAddress())
+                .operatingHours(restaurant.getOperatingHours())
+                .photos(restaurant.getPhotos())
+                .reviews(List.of())
+                .createdBy(restaurant.getCreatedBy())
+                .build();
+    }
+}
@@ -0,0 +1,51 @@
+package com.maxeagan.restaurant.domain;
+
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.domain.entities.Review;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the restaurant page shows, gathered for a single request: the detail view, the
+ * first page of reviews, the viewer's own review and nearby alternatives.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantPage {
+
+    /**
+     * The detail view; its newest reviews are also the content of {@link #reviews}.
+     */
+    private RestaurantDetail detail;
+
+    /**
+     * The first page of reviews, newest first, sized by the detail view's newest reviews
+     * rather than by the review endpoint's default page size.
+     */
+    private Page<Review> reviews;
+
+    /**
+     * The viewer's newest review of the restaurant, or null if there is none or the viewer
+     * is anonymous.
+     */
+    private Review viewerReview;
+
+    /**
+     * The closest other restaurants, nearest first, holding only summary fields.
+     */
+    private List<Restaurant> nearby;
+
+    /**
+     * Time spent per section, in the order they were gathered; null unless requested.
+     */
+    private Map<String, Duration> timings;
+}
@@ -1,5 +1,7 @@
 package com.maxeagan.restaurant.domain.dtos;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.maxeagan.restaurant.domain.FieldSelection;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
@@ -13,6 +15,7 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@JsonFilter(FieldSelection.FILTER_ID)
 public class AddressDto {
     @NotBlank(message = "Street number is required")
     @Pattern(regexp = "^[0-9]{1,5}[a-zA-z]?$", message = "Invalid street number format")
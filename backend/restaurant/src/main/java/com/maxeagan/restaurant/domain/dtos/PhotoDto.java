@@ -1,11 +1,14 @@
 package com.maxeagan.restaurant.domain.dtos;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.maxeagan.restaurant.domain.FieldSelection;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Data Transfer Object representing a photo uploaded to the system.
@@ -16,6 +19,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@JsonFilter(FieldSelection.FILTER_ID)
 public class PhotoDto {
 
     /**
@@ -27,4 +31,34 @@ public class PhotoDto {
      * Timestamp indicating when the photo was uploaded.
      */
     private LocalDateTime uploadDate;
+
+    /**
+     * Widths of the resized copies that can be requested with the <code>w</code> query parameter.
+     */
+    private List<Integer> derivativeWidths;
+
+    /**
+     * Width of the original in pixels, for reserving layout space before the image loads.
+     */
+    private Integer width;
+
+    /**
+     * Height of the original in pixels.
+     */
+    private Integer height;
+
+    /**
+     * Size of the original file in bytes.
+     */
+    private Long sizeBytes;
+
+    /**
+     * Dominant color as <code>#rrggbb</code>, usable as a solid placeholder.
+     */
+    private String dominantColor;
+
+    /**
+     * Compact BlurHash string that clients decode into a blurred preview.
+     */
+    private String blurHash;
 }
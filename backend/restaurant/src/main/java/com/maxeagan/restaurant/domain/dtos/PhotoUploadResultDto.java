@@ -0,0 +1,34 @@
+package com.maxeagan.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object describing the outcome of one file in a batch photo upload.
+ * <p>
+ * Results are returned in the order the files were sent; a file that could not be stored
+ * carries an {@code error} instead of a {@code photo}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PhotoUploadResultDto {
+
+    /**
+     * File name sent by the client for this part.
+     */
+    private String fileName;
+
+    /**
+     * The stored photo, or null if the file was rejected.
+     */
+    private PhotoDto photo;
+
+    /**
+     * Why the file was rejected, or null if it was stored.
+     */
+    private String error;
+}
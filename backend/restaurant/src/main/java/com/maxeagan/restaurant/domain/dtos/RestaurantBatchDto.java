@@ -0,0 +1,31 @@
+package com.maxeagan.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object returned by the restaurant batch lookup.
+ * <p>
+ * Restaurants are returned as summaries in the order they were requested;
+ * requested IDs that do not exist are reported in {@code missingIds}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantBatchDto {
+
+    /**
+     * Found restaurants, in request order.
+     */
+    private List<RestaurantSummaryDto> restaurants;
+
+    /**
+     * Requested IDs that did not match any restaurant.
+     */
+    private List<String> missingIds;
+}
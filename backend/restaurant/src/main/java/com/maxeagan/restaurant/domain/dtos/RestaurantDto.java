@@ -1,5 +1,8 @@
 package com.maxeagan.restaurant.domain.dtos;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.maxeagan.restaurant.domain.FieldSelection;
+import com.maxeagan.restaurant.domain.GeoStatus;
 import com.maxeagan.restaurant.domain.entities.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,6 +22,7 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@JsonFilter(FieldSelection.FILTER_ID)
 public class RestaurantDto {
 
     /**
@@ -51,6 +55,11 @@ public class RestaurantDto {
      */
     private GeoPointDto geoLocation;
 
+    /**
+     * Whether the location has been resolved yet; PENDING while it is geocoded in the background.
+     */
+    private GeoStatus geoStatus;
+
     /**
      * Physical address of the restaurant.
      */
@@ -67,10 +76,21 @@ public class RestaurantDto {
     private List<PhotoDto> photos = new ArrayList<>();
 
     /**
-     * List of customer reviews for the restaurant.
+     * List of customer reviews for the restaurant. The detail endpoint returns only the
+     * newest ones; the rest are paged through {@link #reviewsUrl}.
      */
     private List<ReviewDto> reviews = new ArrayList<>();
 
+    /**
+     * Aggregates over all reviews; only set by the detail endpoint.
+     */
+    private ReviewStatsDto reviewStats;
+
+    /**
+     * Path of the paged reviews endpoint of this restaurant.
+     */
+    private String reviewsUrl;
+
     /**
      * Information about the user who created the restaurant entry.
      */
@@ -0,0 +1,51 @@
+package com.maxeagan.restaurant.domain.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object returned by the restaurant page endpoint, combining what the page
+ * would otherwise fetch with separate requests.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantPageDto {
+
+    /**
+     * The restaurant with its review aggregates; its reviews are returned in {@code reviews}
+     * instead and are null here.
+     */
+    private RestaurantDto restaurant;
+
+    /**
+     * The first page of reviews, newest first; further pages via {@code restaurant.reviewsUrl}.
+     * That endpoint pages with its own default size, so follow-up requests must pass this
+     * page's {@code size}, e.g. {@code &page=1&size=10}, or they skip reviews.
+     */
+    private Page<ReviewDto> reviews;
+
+    /**
+     * The viewer's own review, or null if there is none or the viewer is anonymous.
+     */
+    private ReviewDto viewerReview;
+
+    /**
+     * The closest other restaurants, nearest first.
+     */
+    private List<RestaurantSummaryDto> nearby;
+
+    /**
+     * Milliseconds spent per section; only present when timings were requested and enabled.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> timings;
+}
@@ -1,5 +1,7 @@
 package com.maxeagan.restaurant.domain.dtos;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.maxeagan.restaurant.domain.FieldSelection;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,6 +20,7 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@JsonFilter(FieldSelection.FILTER_ID)
 public class ReviewDto {
 
     /**
@@ -0,0 +1,32 @@
+package com.maxeagan.restaurant.domain.dtos;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.maxeagan.restaurant.domain.FieldSelection;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object with aggregates over all reviews of a restaurant.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonFilter(FieldSelection.FILTER_ID)
+public class ReviewStatsDto {
+
+    /**
+     * Number of reviews.
+     */
+    private Long count;
+
+    /**
+     * Number of reviews per rating (e.g. <code>{"4": 12, "5": 30}</code>); ratings without
+     * reviews are omitted.
+     */
+    private Map<Integer, Long> ratingCounts;
+}
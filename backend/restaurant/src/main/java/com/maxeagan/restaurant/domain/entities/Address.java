@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.IndexOptions;
 
 /**
  * Represents an address used for a restaurant location.
@@ -15,6 +16,7 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
  * - All fields are annotated for Elasticsearch mapping.
  * - `Keyword` is used where exact match is needed (e.g., postal code, state).
  * - `Text` is used where full-text search may be useful (e.g., street name).
+ * - Doc values are only kept on fields used for faceting (city, state, postal code).
  */
 @Data
 @AllArgsConstructor
@@ -26,21 +28,21 @@ public class Address {
      * Street number of the address (e.g., "123").
      * Indexed as a keyword for exact matches.
      */
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, docValues = false)
     private String streetNumber;
 
     /**
      * Street name (e.g., "Main St").
-     * Indexed as text to allow partial/full-text search.
+     * Indexed as text to allow partial/full-text search; never scored.
      */
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Text, norms = false, indexOptions = IndexOptions.docs)
     private String streetName;
 
     /**
      * Optional unit number (e.g., "Apt 4B", "Suite 202").
      * Indexed as a keyword.
      */
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, docValues = false)
     private String unit;
 
     /**
@@ -68,7 +70,7 @@ public class Address {
      * Country name or code (e.g., "United States", "Canada").
      * Keyword for exact match.
      */
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, docValues = false)
     private String country;
 
 }
@@ -12,7 +12,8 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
  * Each day is mapped to a {@link TimeRange}, allowing for customizable hours.
  *
  * Notes:
- * - All fields are nested objects in Elasticsearch for structured queries.
+ * - All fields are plain objects in Elasticsearch; each day holds a single range,
+ *   so nested documents would add index cost without improving queries.
  * - Days can be set to null to represent closures.
  * - Assumes a single open/close range per day; extend to List<TimeRange> for split shifts.
  */
@@ -22,24 +23,24 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 @Builder
 public class OperatingHours {
 
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private TimeRange monday;
 
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private TimeRange tuesday;
 
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private TimeRange wednesday;
 
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private TimeRange thursday;
 
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private TimeRange friday;
 
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private TimeRange saturday;
 
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private TimeRange sunday;
 }
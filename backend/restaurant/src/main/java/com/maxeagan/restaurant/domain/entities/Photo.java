@@ -9,6 +9,8 @@ import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a photo associated with a restaurant (e.g., menu, storefront, interior).
@@ -17,6 +19,10 @@ import java.time.LocalDateTime;
  * - `url` stores a direct link to the image (can be CDN, S3, etc.).
  * - `uploadDate` tracks when the photo was added.
  * - Dates are stored in Elasticsearch.
+ * - Neither field is sorted or aggregated, so none of them keeps doc values.
+ * - Dimensions, size and placeholder fields are only returned to clients, never searched,
+ *   so they are kept in _source without being indexed. They are null for photos attached
+ *   before they were extracted.
  */
 @Data
 @AllArgsConstructor
@@ -28,13 +34,52 @@ public class Photo {
      * URL pointing to the photo resource.
      * Should be a complete, accessible path (e.g., public CDN or internal bucket link).
      */
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, docValues = false)
     private String url;
 
     /**
      * Date and time the photo was uploaded.
      * Stored with `yyyy-MM-dd'T'HH:mm:ss` format in Elasticsearch.
      */
-    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second)
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second, docValues = false)
     private LocalDateTime uploadDate;
+
+    /**
+     * Widths in pixels of the resized copies available for this photo,
+     * requested via <code>GET /api/photos/{url}?w={width}</code>.
+     * Empty if the original is narrower than every derivative width.
+     */
+    @Field(type = FieldType.Integer, docValues = false)
+    @Builder.Default
+    private List<Integer> derivativeWidths = new ArrayList<>();
+
+    /**
+     * Width of the original in pixels.
+     */
+    @Field(type = FieldType.Integer, index = false, docValues = false)
+    private Integer width;
+
+    /**
+     * Height of the original in pixels.
+     */
+    @Field(type = FieldType.Integer, index = false, docValues = false)
+    private Integer height;
+
+    /**
+     * Size of the original file in bytes.
+     */
+    @Field(type = FieldType.Long, index = false, docValues = false)
+    private Long sizeBytes;
+
+    /**
+     * Dominant color as <code>#rrggbb</code>, for a solid placeholder.
+     */
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
+    private String dominantColor;
+
+    /**
+     * BlurHash placeholder (see https://blurha.sh) clients decode into a blurred preview.
+     */
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
+    private String blurHash;
 }
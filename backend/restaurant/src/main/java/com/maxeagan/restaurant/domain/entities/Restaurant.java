@@ -1,5 +1,6 @@
 package com.maxeagan.restaurant.domain.entities;
 
+import com.maxeagan.restaurant.domain.GeoStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,7 +10,9 @@ import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import org.springframework.data.elasticsearch.annotations.GeoPointField;
+import org.springframework.data.elasticsearch.annotations.Setting;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,12 +22,17 @@ import java.util.List;
  * Captures identity, metadata, location, media, and user-generated content.
  *
  * Notes:
- * - Stored in the `restaurants` index.
+ * - Stored in the `restaurants_v3` index (migrated from older indices, see RestaurantIndexMigration).
+ * - Index settings (best_compression codec) live in elasticsearch/restaurant-settings.json.
+ *   Fields that are never scored drop norms and positions, fields that are never sorted or
+ *   aggregated drop doc values; changing either requires a new index and a migration.
  * - Supports full-text search on name and cuisineType.
- * - Includes nested data for address, hours, photos, reviews, and creator info.
+ * - Only reviews are nested: each nested object becomes a hidden Lucene document, so
+ *   address, hours, photos and creator info are plain objects flattened into the parent.
  * - Geolocation field enables spatial queries.
  */
-@Document(indexName = "restaurants")
+@Document(indexName = "restaurants_v3")
+@Setting(settingPath = "/elasticsearch/restaurant-settings.json")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -37,6 +45,13 @@ public class Restaurant {
     @Id
     private String id;
 
+    /**
+     * Version of the document when it was read, filled in by Spring Data and not stored in
+     * the source. Saving an entity that carries it fails if the document was changed in the
+     * meantime (optimistic locking); it also provides the ETag of restaurant and review responses.
+     */
+    private SeqNoPrimaryTerm seqNoPrimaryTerm;
+
     /**
      * Restaurant name (full-text searchable).
      */
@@ -51,9 +66,9 @@ public class Restaurant {
 
     /**
      * Contact info (e.g., phone number or email).
-     * Stored as keyword for exact matching.
+     * Stored as keyword for exact matching; never sorted, so no doc values.
      */
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, docValues = false)
     private String contactInformation;
 
     /**
@@ -68,26 +83,37 @@ public class Restaurant {
     @GeoPointField
     private GeoPoint geoLocation;
 
+    /**
+     * Whether {@link #geoLocation} has been resolved from the address yet.
+     * Keyword, so pending restaurants can be found again after a restart.
+     */
+    @Field(type = FieldType.Keyword)
+    private GeoStatus geoStatus;
+
     /**
      * Full address details, including city/state/postalCode.
+     * A single object, so it needs no nested isolation.
      */
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private Address address;
 
     /**
      * Weekly operating hours for the restaurant.
      */
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private OperatingHours operatingHours;
 
     /**
      * Optional media/photos representing the restaurant.
+     * Photos are never queried by combinations of their fields, so they are stored as objects.
      */
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private List<Photo> photos = new ArrayList<>();
 
     /**
      * List of user reviews with content, rating, and metadata.
+     * Nested so each review can be queried, sorted and paged on its own
+     * (e.g. rating and author of the same review, newest reviews via inner hits).
      */
     @Field(type = FieldType.Nested)
     private List<Review> reviews = new ArrayList<>();
@@ -95,6 +121,6 @@ public class Restaurant {
     /**
      * User who created/registered the restaurant.
      */
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private User createdBy;
 }
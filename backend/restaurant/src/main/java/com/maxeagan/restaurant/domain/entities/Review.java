@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.elasticsearch.annotations.DateFormat;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.IndexOptions;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -17,7 +18,8 @@ import java.util.List;
  * Includes text content, rating, timestamps, optional photos, and author info.
  *
  * Notes:
- * - Stored in Elasticsearch and supports nested photo and user data for deep search.
+ * - Stored in Elasticsearch as a nested document of its restaurant; photos and author are
+ *   plain objects inside it.
  * - `rating` is assumed to be an integer scale (e.g., 1–5).
  * - `id` should be globally unique (UUID or DB-generated).
  */
@@ -30,15 +32,18 @@ public class Review {
     /**
      * Unique identifier for the review.
      * Can be a UUID, MongoDB ObjectId, or any globally unique string.
+     * Only used for exact lookups, so no doc values.
      */
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, docValues = false)
     private String id;
 
     /**
      * Main text content of the review.
-     * Full-text indexed for search and relevance scoring.
+     * Full-text indexed for matching only: reviews are never ranked by their text, so norms,
+     * frequencies and positions are not stored. Phrase queries or scoring on review text
+     * need these back (and a reindex).
      */
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Text, norms = false, indexOptions = IndexOptions.docs)
     private String content;
 
     /**
@@ -55,22 +60,23 @@ public class Review {
 
     /**
      * Timestamp for the last edit (can be same as datePosted if never updated).
+     * Never sorted on, so no doc values.
      */
-    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second)
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second, docValues = false)
     private LocalDateTime lastEdited;
 
     /**
      * Optional list of photos attached to the review.
-     * Stored as nested documents to allow structured queries.
+     * Stored as plain objects; they are never queried field-by-field.
      */
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private List<Photo> photos = new ArrayList<>();
 
     /**
      * User who authored the review.
-     * Nested object representing the review's author metadata.
+     * A single object, already isolated by the enclosing nested review.
      */
-    @Field(type = FieldType.Nested)
+    @Field(type = FieldType.Object)
     private User writtenBy;
 
 }
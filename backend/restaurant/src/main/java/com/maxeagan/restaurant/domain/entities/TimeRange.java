@@ -13,7 +13,7 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
  *
  * Notes:
  * - Both times are stored as strings (e.g., "09:00", "18:30").
- * - Indexed as keywords for exact match and filtering.
+ * - Indexed as keywords for exact match and filtering; no doc values, they are never sorted.
  * - Assumes 24-hour format.
  */
 @Data
@@ -26,13 +26,13 @@ public class TimeRange {
      * Opening time in 24-hour format (e.g., "09:00").
      * Stored as a keyword to allow exact match queries.
      */
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, docValues = false)
     private String openTime;
 
     /**
      * Closing time in 24-hour format (e.g., "18:30").
      * Also stored as a keyword for precise filtering.
      */
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, docValues = false)
     private String closeTime;
 }
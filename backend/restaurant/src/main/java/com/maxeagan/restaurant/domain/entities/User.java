@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.IndexOptions;
 
 /**
  * Represents a user in the system.
@@ -28,31 +29,35 @@ public class User {
      * Unique identifier for the user.
      *
      * Stored as a keyword (not analyzed) for exact-match lookups in Elasticsearch.
+     * Never sorted or aggregated, so no doc values.
      */
-    @Field(type = FieldType.Keyword)
+    @Field(type = FieldType.Keyword, docValues = false)
     private String id;
 
     /**
      * User's login or account name.
      *
-     * Stored as text and analyzed for full-text search in Elasticsearch.
+     * Stored as text and analyzed for full-text search in Elasticsearch. Never scored, so
+     * norms and positions are not stored.
      */
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Text, norms = false, indexOptions = IndexOptions.docs)
     private String username;
 
     /**
      * User's first name or given name.
      *
-     * Stored as text and analyzed for full-text search.
+     * Stored as text and analyzed for full-text search. Never scored, so
+     * norms and positions are not stored.
      */
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Text, norms = false, indexOptions = IndexOptions.docs)
     private String givenName;
 
     /**
      * User's last name or family name.
      *
-     * Stored as text and analyzed for full-text search.
+     * Stored as text and analyzed for full-text search. Never scored, so
+     * norms and positions are not stored.
      */
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Text, norms = false, indexOptions = IndexOptions.docs)
     private String familyName;
 }
@@ -0,0 +1,23 @@
+package com.maxeagan.restaurant.exceptions;
+
+/**
+ * Exception thrown when a batch request asks for more items than the configured maximum.
+ *
+ * <p>Handled as a client error (HTTP 400) by the global error handler.</p>
+ */
+public class BatchSizeExceededException extends BaseException {
+    public BatchSizeExceededException() {
+    }
+
+    public BatchSizeExceededException(String message) {
+        super(message);
+    }
+
+    public BatchSizeExceededException(Throwable cause) {
+        super(cause);
+    }
+
+    public BatchSizeExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
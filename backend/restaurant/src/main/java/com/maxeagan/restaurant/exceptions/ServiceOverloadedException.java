@@ -0,0 +1,21 @@
+package com.maxeagan.restaurant.exceptions;
+
+/**
+ * Exception thrown when a request is shed because a backend is at its concurrency limit.
+ *
+ * <p>Handled by the global error handler as HTTP 503 (Service Unavailable) with a
+ * <code>Retry-After</code> header of {@link #getRetryAfterSeconds()}.</p>
+ */
+public class ServiceOverloadedException extends BaseException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,350 @@
+package com.maxeagan.restaurant.maintenance;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.ScrollResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.services.impl.CachingStorageService;
+import com.maxeagan.restaurant.services.impl.FileSystemStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mark-and-sweep collector for stored photos that no restaurant or review refers to:
+ * uploads that were never attached, and photos of deleted restaurants and reviews.
+ * <p>
+ * The mark phase reads every <code>photos.url</code> and <code>reviews.photos.url</code> from the
+ * restaurant index with a sliced scroll, one slice per thread. The sweep phase walks the storage
+ * directory and deletes files that were not marked, are older than
+ * <code>app.storage.gc.grace-period</code> and are still unreferenced when checked against the
+ * index once more, so photos attached while the collector runs survive. Derivatives
+ * (<code>{photo}_w{width}</code>) live and die with their original.
+ * <p>
+ * Deletions are paced to <code>app.storage.gc.max-deletes-per-second</code>, progress is logged
+ * and exported as <code>storage.gc.*</code> metrics, and with <code>app.storage.gc.dry-run=true</code>
+ * the collector only reports what it would delete. Runs on the schedule in
+ * <code>app.storage.gc.cron</code>; with several nodes on a shared storage directory, enable it on one.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.gc.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OrphanedPhotoCollector {
+
+    private static final Pattern DERIVATIVE_NAME = Pattern.compile("^(.+)_w\\d+\\.(jpg|png)$");
+    private static final List<String> PHOTO_URL_FIELDS = List.of("photos.url", "reviews.photos.url");
+    private static final Time SCROLL_KEEP_ALIVE = Time.of(t -> t.time("2m"));
+    private static final int SCROLL_PAGE_SIZE = 1000;
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ObjectProvider<FileSystemStorageService> fileSystemStorage;
+    private final ObjectProvider<CachingStorageService> cachingStorage;
+    private final Duration gracePeriod;
+    private final boolean dryRun;
+    private final int scrollSlices;
+    private final long deleteIntervalNanos;
+    private final Counter scannedFiles;
+    private final Counter orphanedFiles;
+    private final Counter deletedFiles;
+    private final Counter reclaimedBytes;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Outcome of one collection.
+     *
+     * @param scanned        stored files looked at
+     * @param orphaned       files found unreferenced and past the grace period
+     * @param deleted        files actually deleted (always 0 in dry-run mode)
+     * @param reclaimedBytes bytes freed, or that would be freed in dry-run mode
+     */
+    public record Report(long scanned, long orphaned, long deleted, long reclaimedBytes) {
+    }
+
+    public OrphanedPhotoCollector(
+            ElasticsearchClient elasticsearchClient,
+            ElasticsearchOperations elasticsearchOperations,
+            ObjectProvider<FileSystemStorageService> fileSystemStorage,
+            ObjectProvider<CachingStorageService> cachingStorage,
+            MeterRegistry meterRegistry,
+            @Value("${app.storage.gc.grace-period:P2D}") Duration gracePeriod,
+            @Value("${app.storage.gc.dry-run:true}") boolean dryRun,
+            @Value("${app.storage.gc.scroll-slices:4}") int scrollSlices,
+            @Value("${app.storage.gc.max-deletes-per-second:50}") int maxDeletesPerSecond
+    ) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.fileSystemStorage = fileSystemStorage;
+        this.cachingStorage = cachingStorage;
+        this.gracePeriod = gracePeriod;
+        this.dryRun = dryRun;
+        this.scrollSlices = Math.max(1, scrollSlices);
+        this.deleteIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxDeletesPerSecond);
+        this.scannedFiles = Counter.builder("storage.gc.files.scanned").register(meterRegistry);
+        this.orphanedFiles = Counter.builder("storage.gc.files.orphaned")
+                .tag("dry.run", Boolean.toString(dryRun))
+                .register(meterRegistry);
+        this.deletedFiles = Counter.builder("storage.gc.files.deleted").register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("storage.gc.bytes.reclaimed")
+                .tag("dry.run", Boolean.toString(dryRun))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.storage.gc.cron:0 30 3 * * *}")
+    public void scheduledCollect() {
+        collect();
+    }
+
+    /**
+     * Runs one mark-and-sweep pass, unless one is already running.
+     *
+     * @return the report of the pass, or empty if it was skipped or aborted
+     */
+    public Optional<Report> collect() {
+        FileSystemStorageService storage = fileSystemStorage.getIfAvailable();
+        if (storage == null || !running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            String index = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+            Instant cutoff = Instant.now().minus(gracePeriod);
+
+            Set<String> referenced = markReferencedPhotos(index);
+            log.info("Orphaned photo collection marked {} referenced photos in {} ms{}",
+                    referenced.size(), System.currentTimeMillis() - start, dryRun ? " (dry run)" : "");
+
+            Report report = sweep(storage, referenced, cutoff, fileName -> isReferencedInIndex(index, fileName));
+            log.info("Orphaned photo collection finished in {} ms: {} scanned, {} orphaned, {} deleted, {} bytes {}",
+                    System.currentTimeMillis() - start, report.scanned(), report.orphaned(), report.deleted(),
+                    report.reclaimedBytes(), dryRun ? "reclaimable" : "reclaimed");
+            return Optional.of(report);
+        } catch (IOException | UncheckedIOException | ExecutionException e) {
+            // An incomplete mark would make referenced photos look orphaned, so nothing is deleted.
+            log.error("Orphaned photo collection aborted", e);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Collects the URLs of all photos referenced by restaurants and their reviews,
+     * scrolling the index in parallel slices.
+     */
+    private Set<String> markReferencedPhotos(String index) throws InterruptedException, ExecutionException {
+        Set<String> referenced = ConcurrentHashMap.newKeySet();
+        ExecutorService slices = Executors.newFixedThreadPool(scrollSlices,
+                Thread.ofPlatform().name("photo-gc-scroll-", 0).daemon().factory());
+        try {
+            List<Future<?>> results = new ArrayList<>(scrollSlices);
+            for (int slice = 0; slice < scrollSlices; slice++) {
+                int sliceId = slice;
+                results.add(slices.submit(() -> {
+                    scrollSlice(index, sliceId, referenced);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            slices.shutdownNow();
+        }
+        return referenced;
+    }
+
+    private void scrollSlice(String index, int slice, Set<String> referenced) throws IOException {
+        SearchResponse<PhotoReferences> first = elasticsearchClient.search(s -> {
+            s.index(index)
+                    .size(SCROLL_PAGE_SIZE)
+                    .scroll(SCROLL_KEEP_ALIVE)
+                    .source(source -> source.filter(f -> f.includes(PHOTO_URL_FIELDS)));
+            if (scrollSlices > 1) {
+                s.slice(sl -> sl.id(Integer.toString(slice)).max(scrollSlices));
+            }
+            return s;
+        }, PhotoReferences.class);
+
+        String scrollId = first.scrollId();
+        List<Hit<PhotoReferences>> hits = first.hits().hits();
+        try {
+            while (!hits.isEmpty()) {
+                hits.forEach(hit -> addReferences(hit.source(), referenced));
+
+                String currentScrollId = scrollId;
+                ScrollResponse<PhotoReferences> next = elasticsearchClient.scroll(sc -> sc
+                        .scrollId(currentScrollId)
+                        .scroll(SCROLL_KEEP_ALIVE), PhotoReferences.class);
+                scrollId = next.scrollId();
+                hits = next.hits().hits();
+            }
+        } finally {
+            String lastScrollId = scrollId;
+            try {
+                elasticsearchClient.clearScroll(c -> c.scrollId(lastScrollId));
+            } catch (IOException | RuntimeException e) {
+                log.debug("Could not clear scroll context", e);
+            }
+        }
+    }
+
+    private static void addReferences(PhotoReferences restaurant, Set<String> referenced) {
+        if (restaurant == null) {
+            return;
+        }
+        addUrls(restaurant.photos(), referenced);
+        if (restaurant.reviews() != null) {
+            restaurant.reviews().forEach(review -> addUrls(review.photos(), referenced));
+        }
+    }
+
+    private static void addUrls(List<PhotoReference> photos, Set<String> referenced) {
+        if (photos != null) {
+            photos.stream()
+                    .map(PhotoReference::url)
+                    .filter(url -> url != null && !url.isBlank())
+                    .forEach(referenced::add);
+        }
+    }
+
+    /**
+     * Walks the stored files and deletes (or, in dry-run mode, reports) every file that is
+     * past the cutoff and neither marked nor confirmed as referenced by {@code stillReferenced}.
+     */
+    Report sweep(FileSystemStorageService storage, Set<String> referenced, Instant cutoff,
+                 Predicate<String> stillReferenced) throws IOException {
+        Set<String> referencedBases = ConcurrentHashMap.newKeySet();
+        referenced.forEach(url -> referencedBases.add(stripExtension(url)));
+
+        long[] counts = new long[4]; // scanned, orphaned, deleted, bytes
+        long[] nextDeleteAt = {System.nanoTime()};
+
+        storage.forEachStoredFile(file -> {
+            if (++counts[0] % PROGRESS_INTERVAL == 0) {
+                log.info("Orphaned photo collection progress: {} scanned, {} orphaned, {} deleted",
+                        counts[0], counts[1], counts[2]);
+            }
+            scannedFiles.increment();
+
+            String fileName = file.name();
+            if (file.lastModified().isAfter(cutoff) || referenced.contains(fileName)) {
+                return;
+            }
+            Matcher derivative = DERIVATIVE_NAME.matcher(fileName);
+            if (derivative.matches()) {
+                // Derivatives can be regenerated, so the index is not asked again for them.
+                if (referencedBases.contains(derivative.group(1))) {
+                    return;
+                }
+            } else if (stillReferenced.test(fileName)) {
+                return;
+            }
+
+            counts[1]++;
+            orphanedFiles.increment();
+            if (dryRun) {
+                log.info("Would delete orphaned photo {} ({} bytes)", fileName, file.size());
+                counts[3] += file.size();
+                reclaimedBytes.increment(file.size());
+                return;
+            }
+
+            pace(nextDeleteAt);
+            try {
+                if (storage.deleteIfUnmodifiedSince(fileName, cutoff)) {
+                    cachingStorage.ifAvailable(cache -> cache.evict(fileName));
+                    counts[2]++;
+                    counts[3] += file.size();
+                    deletedFiles.increment();
+                    reclaimedBytes.increment(file.size());
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete orphaned photo {}", fileName, e);
+            }
+        });
+        return new Report(counts[0], counts[1], counts[2], counts[3]);
+    }
+
+    /**
+     * Blocks until the next deletion is allowed by the configured rate.
+     */
+    private void pace(long[] nextDeleteAt) {
+        long now = System.nanoTime();
+        if (nextDeleteAt[0] > now) {
+            LockSupport.parkNanos(nextDeleteAt[0] - now);
+        }
+        nextDeleteAt[0] = Math.max(now, nextDeleteAt[0]) + deleteIntervalNanos;
+    }
+
+    /**
+     * Asks the index whether any restaurant or review refers to the photo right now.
+     * Errors count as referenced, so a failing cluster never causes a deletion.
+     */
+    private boolean isReferencedInIndex(String index, String fileName) {
+        try {
+            return elasticsearchClient.count(c -> c
+                    .index(index)
+                    .query(q -> q.bool(b -> b
+                            .should(sh -> sh.term(t -> t.field("photos.url").value(fileName)))
+                            .should(sh -> sh.nested(n -> n
+                                    .path("reviews")
+                                    .query(nq -> nq.term(t -> t.field("reviews.photos.url").value(fileName)))))))
+            ).count() > 0;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not confirm photo {} is unreferenced; keeping it", fileName, e);
+            return true;
+        }
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record PhotoReferences(List<PhotoReference> photos, List<ReviewReferences> reviews) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ReviewReferences(List<PhotoReference> photos) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record PhotoReference(String url) {
+    }
+}
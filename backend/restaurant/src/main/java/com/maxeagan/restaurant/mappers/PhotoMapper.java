@@ -1,6 +1,8 @@
 package com.maxeagan.restaurant.mappers;
 
+import com.maxeagan.restaurant.domain.PhotoUploadResult;
 import com.maxeagan.restaurant.domain.dtos.PhotoDto;
+import com.maxeagan.restaurant.domain.dtos.PhotoUploadResultDto;
 import com.maxeagan.restaurant.domain.entities.Photo;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
@@ -21,4 +23,12 @@ public interface PhotoMapper {
      * @return the corresponding PhotoDto
      */
     PhotoDto toDto(Photo photo);
+
+    /**
+     * Converts the outcome of one file of a batch upload to a {@link PhotoUploadResultDto}.
+     *
+     * @param result the upload result to convert
+     * @return the corresponding PhotoUploadResultDto
+     */
+    PhotoUploadResultDto toDto(PhotoUploadResult result);
 }
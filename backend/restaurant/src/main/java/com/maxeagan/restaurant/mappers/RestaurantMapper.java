@@ -1,18 +1,28 @@
 package com.maxeagan.restaurant.mappers;
 
+import com.maxeagan.restaurant.domain.RestaurantBatchResult;
 import com.maxeagan.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.maxeagan.restaurant.domain.RestaurantDetail;
+import com.maxeagan.restaurant.domain.RestaurantPage;
 import com.maxeagan.restaurant.domain.dtos.GeoPointDto;
+import com.maxeagan.restaurant.domain.dtos.RestaurantBatchDto;
 import com.maxeagan.restaurant.domain.dtos.RestaurantCreateUpdateRequestDto;
 import com.maxeagan.restaurant.domain.dtos.RestaurantDto;
+import com.maxeagan.restaurant.domain.dtos.RestaurantPageDto;
 import com.maxeagan.restaurant.domain.dtos.RestaurantSummaryDto;
+import com.maxeagan.restaurant.domain.dtos.ReviewDto;
+import com.maxeagan.restaurant.domain.dtos.ReviewStatsDto;
 import com.maxeagan.restaurant.domain.entities.Restaurant;
 import com.maxeagan.restaurant.domain.entities.Review;
+import org.mapstruct.InheritConfiguration;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 import org.mapstruct.ReportingPolicy;
+import org.springframework.data.domain.Page;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -37,8 +47,81 @@ public interface RestaurantMapper {
      * @return A detailed Restaurant DTO including total reviews.
      */
     @Mapping(source = "reviews", target = "totalReviews", qualifiedByName = "populateTotalReviews")
+    @Mapping(source = "id", target = "reviewsUrl", qualifiedByName = "reviewsUrl")
     RestaurantDto toRestaurantDto(Restaurant restaurant);
 
+    /**
+     * Converts a {@link RestaurantDetail} to a {@link RestaurantDto} holding only the newest
+     * reviews, plus the review aggregates and the link to all reviews.
+     *
+     * @param detail The detail view of a restaurant.
+     * @return A detailed Restaurant DTO whose review list is limited.
+     */
+    @Mapping(target = ".", source = "restaurant")
+    @Mapping(target = "reviews", source = "latestReviews")
+    @Mapping(target = "totalReviews", source = "reviewCount")
+    @Mapping(target = "reviewStats", source = "detail")
+    @Mapping(target = "reviewsUrl", source = "restaurant.id", qualifiedByName = "reviewsUrl")
+    RestaurantDto toRestaurantDto(RestaurantDetail detail);
+
+    /**
+     * Converts a {@link RestaurantDetail} like {@link #toRestaurantDto(RestaurantDetail)} but
+     * without reviews, for responses that return them separately.
+     *
+     * @param detail The detail view of a restaurant.
+     * @return A detailed Restaurant DTO without reviews.
+     */
+    @InheritConfiguration(name = "toRestaurantDto")
+    @Mapping(target = "reviews", ignore = true)
+    @Named("withoutReviews")
+    RestaurantDto toRestaurantDtoWithoutReviews(RestaurantDetail detail);
+
+    /**
+     * Converts a {@link RestaurantPage} to a {@link RestaurantPageDto}.
+     *
+     * @param page The gathered restaurant page.
+     * @return A DTO with every section of the page.
+     */
+    @Mapping(target = "restaurant", source = "detail", qualifiedByName = "withoutReviews")
+    RestaurantPageDto toRestaurantPageDto(RestaurantPage page);
+
+    /**
+     * Converts a {@link Review} to a {@link ReviewDto}.
+     *
+     * @param review The review.
+     * @return The review DTO.
+     */
+    ReviewDto toReviewDto(Review review);
+
+    /**
+     * Converts a page of {@link Review}s, keeping its paging information.
+     *
+     * @param reviews A page of reviews.
+     * @return The page of review DTOs.
+     */
+    default Page<ReviewDto> toReviewDtoPage(Page<Review> reviews) {
+        return reviews == null ? null : reviews.map(this::toReviewDto);
+    }
+
+    /**
+     * Converts a section timing to fractional milliseconds.
+     *
+     * @param duration The time spent.
+     * @return The time in milliseconds.
+     */
+    default Double toMillis(Duration duration) {
+        return duration == null ? null : duration.toNanos() / 1_000_000.0;
+    }
+
+    /**
+     * Extracts the review aggregates of a {@link RestaurantDetail}.
+     *
+     * @param detail The detail view of a restaurant.
+     * @return The review count and rating distribution.
+     */
+    @Mapping(target = "count", source = "reviewCount")
+    ReviewStatsDto toReviewStatsDto(RestaurantDetail detail);
+
     /**
      * Converts a {@link Restaurant} entity to a {@link RestaurantSummaryDto}, including review count.
      *
@@ -48,6 +131,15 @@ public interface RestaurantMapper {
     @Mapping(source = "reviews", target = "totalReviews", qualifiedByName = "populateTotalReviews")
     RestaurantSummaryDto toSummaryDto(Restaurant restaurant);
 
+    /**
+     * Converts a {@link RestaurantBatchResult} to a {@link RestaurantBatchDto},
+     * mapping each found restaurant to a summary.
+     *
+     * @param result The batch lookup result.
+     * @return A DTO with restaurant summaries in request order and the missing IDs.
+     */
+    RestaurantBatchDto toBatchDto(RestaurantBatchResult result);
+
     /**
      * Helper method used by MapStruct to calculate the total number of reviews for a restaurant.
      *
@@ -59,6 +151,17 @@ public interface RestaurantMapper {
         return (reviews != null) ? reviews.size() : 0;
     }
 
+    /**
+     * Builds the path of the paged reviews endpoint of a restaurant.
+     *
+     * @param restaurantId The restaurant ID.
+     * @return The path, newest reviews first.
+     */
+    @Named("reviewsUrl")
+    default String reviewsUrl(String restaurantId) {
+        return restaurantId == null ? null : "/api/restaurants/" + restaurantId + "/reviews?sort=datePosted,desc";
+    }
+
     /**
      * Converts an Elasticsearch {@link GeoPoint} to a {@link GeoPointDto}.
      *
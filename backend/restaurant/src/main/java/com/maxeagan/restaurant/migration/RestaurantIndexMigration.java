@@ -0,0 +1,160 @@
+package com.maxeagan.restaurant.migration;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch._types.OpType;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch.tasks.GetTasksResponse;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Copies restaurant documents from a legacy index into the index the application
+ * currently writes to, whenever the mapping changed in a way Elasticsearch cannot apply
+ * in place (e.g. nested to object fields, codec or doc_values changes).
+ * <p>
+ * The current index is created with the new mapping by the repository on startup. This
+ * runner then looks for the newest existing index in
+ * <code>app.elasticsearch.migration.legacy-indices</code> and reindexes it into the current
+ * one before the application reports ready.
+ * Only the newest existing legacy index is ever copied; older ones in the list were
+ * migrated into it and are retired along with it.
+ * <p>
+ * The copy runs once: afterwards the legacy index is closed, or deleted with
+ * <code>app.elasticsearch.migration.delete-legacy=true</code>, and a closed legacy index
+ * counts as migrated. Later starts therefore never copy back documents that were deleted
+ * from the current index since. A closed index is kept for rollback and can be reopened.
+ * <p>
+ * The copy uses <code>op_type=create</code> with conflicts ignored, so a migration that was
+ * interrupted before the legacy index was closed can be repeated without overwriting
+ * documents already written to the new index.
+ * <p>
+ * Additive mapping changes (new fields) are applied to the current index in place on every start.
+ */
+@Component
+@ConditionalOnProperty(name = "app.elasticsearch.migration.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class RestaurantIndexMigration implements ApplicationRunner {
+
+    private static final Time TASK_POLL_TIMEOUT = Time.of(t -> t.time("30s"));
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+
+    /**
+     * Former restaurant index names, newest first.
+     */
+    @Value("${app.elasticsearch.migration.legacy-indices:restaurants_v2,restaurants}")
+    private List<String> legacyIndices;
+
+    @Value("${app.elasticsearch.migration.delete-legacy:false}")
+    private boolean deleteLegacy;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        String target = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+        updateMapping(target);
+
+        for (int i = 0; i < legacyIndices.size(); i++) {
+            String legacy = legacyIndices.get(i);
+            if (legacy.equals(target) || !exists(legacy)) {
+                continue;
+            }
+            if (isOpen(legacy)) {
+                migrate(legacy, target);
+                // Older indices were copied into this one long ago; retire them as well, so the
+                // chain cannot fall back to one of them once this index is gone.
+                for (String older : legacyIndices.subList(i + 1, legacyIndices.size())) {
+                    if (!older.equals(target) && exists(older) && isOpen(older)) {
+                        retire(older);
+                    }
+                }
+            } else {
+                log.debug("Legacy restaurant index {} is closed; already migrated to {}", legacy, target);
+            }
+            return;
+        }
+        log.debug("No legacy restaurant index found; {} is up to date", target);
+    }
+
+    /**
+     * Adds fields introduced since the current index was created (e.g. photo metadata) to its
+     * mapping. Elasticsearch accepts new fields in place; without this they would be mapped
+     * dynamically, with the wrong types and index options, the first time a document has them.
+     */
+    private void updateMapping(String target) {
+        try {
+            elasticsearchOperations.indexOps(Restaurant.class).putMapping();
+        } catch (RuntimeException e) {
+            log.warn("Could not update the mapping of {}; new fields may be mapped dynamically", target, e);
+        }
+    }
+
+    private void migrate(String legacy, String target) throws IOException {
+        log.info("Migrating restaurants from {} to {}", legacy, target);
+        long start = System.currentTimeMillis();
+
+        String taskId = elasticsearchClient.reindex(r -> r
+                .source(s -> s.index(legacy))
+                .dest(d -> d.index(target).opType(OpType.Create))
+                .conflicts(Conflicts.Proceed)
+                .refresh(true)
+                .waitForCompletion(false)
+        ).task();
+
+        GetTasksResponse task;
+        do {
+            task = elasticsearchClient.tasks().get(t -> t
+                    .taskId(taskId)
+                    .waitForCompletion(true)
+                    .timeout(TASK_POLL_TIMEOUT));
+            if (!task.completed()) {
+                log.info("Migration {} -> {} still running: {}", legacy, target, task.task().status());
+            }
+        } while (!task.completed());
+
+        if (task.error() != null) {
+            throw new IllegalStateException("Migration from " + legacy + " to " + target
+                    + " failed: " + task.error().reason());
+        }
+
+        log.info("Migrated restaurants from {} to {} in {} ms: {}",
+                legacy, target, System.currentTimeMillis() - start, task.response());
+
+        retire(legacy);
+    }
+
+    /**
+     * Deletes or closes a legacy index so later starts do not copy it again.
+     */
+    private void retire(String legacy) throws IOException {
+        if (deleteLegacy) {
+            elasticsearchOperations.indexOps(IndexCoordinates.of(legacy)).delete();
+            log.info("Deleted legacy index {}", legacy);
+        } else {
+            elasticsearchClient.indices().close(c -> c.index(legacy));
+            log.info("Closed legacy index {}", legacy);
+        }
+    }
+
+    private boolean exists(String index) {
+        return elasticsearchOperations.indexOps(IndexCoordinates.of(index)).exists();
+    }
+
+    private boolean isOpen(String index) throws IOException {
+        return elasticsearchClient.cat().indices(c -> c.index(index)).valueBody().stream()
+                .anyMatch(record -> "open".equals(record.status()));
+    }
+}
@@ -0,0 +1,97 @@
+package com.maxeagan.restaurant.migration;
+
+import com.maxeagan.restaurant.services.impl.FileSystemStorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves photos stored flat in the storage root into the sharded directory layout of
+ * {@link FileSystemStorageService}.
+ * <p>
+ * Runs in the background after startup, so the application serves traffic while it works;
+ * both layouts stay readable throughout, and each file is moved atomically. The directory is
+ * streamed and moves are spread over <code>app.storage.layout-migration.threads</code> workers
+ * with a bounded queue, so memory use does not grow with the number of files. Rerunning it is
+ * harmless: once the root holds no flat files it finishes immediately.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.layout-migration.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class StorageLayoutMigration implements ApplicationRunner {
+
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private final ObjectProvider<FileSystemStorageService> fileSystemStorage;
+
+    @Value("${app.storage.layout-migration.threads:4}")
+    private int threads;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        FileSystemStorageService storage = fileSystemStorage.getIfAvailable();
+        if (storage == null) {
+            return;
+        }
+        Thread.ofPlatform()
+                .name("storage-layout-migration")
+                .daemon()
+                .start(() -> migrate(storage));
+    }
+
+    private void migrate(FileSystemStorageService storage) {
+        long start = System.currentTimeMillis();
+        AtomicLong moved = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 100),
+                Thread.ofPlatform().name("storage-layout-migration-", 0).daemon().factory(),
+                // Back-pressure: the listing thread moves files itself when the workers fall behind.
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try {
+            storage.forEachFlatFile(fileName -> workers.execute(() -> {
+                try {
+                    storage.moveToShardedLayout(fileName);
+                    if (moved.incrementAndGet() % PROGRESS_INTERVAL == 0) {
+                        log.info("Storage layout migration moved {} files", moved.get());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                    log.warn("Could not move {} to the sharded layout", fileName, e);
+                }
+            }));
+        } catch (IOException e) {
+            log.error("Storage layout migration could not list the storage directory", e);
+        } finally {
+            workers.shutdown();
+        }
+
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (moved.get() > 0 || failed.get() > 0) {
+            log.info("Storage layout migration finished in {} ms: {} moved, {} failed",
+                    System.currentTimeMillis() - start, moved.get(), failed.get());
+        }
+    }
+}
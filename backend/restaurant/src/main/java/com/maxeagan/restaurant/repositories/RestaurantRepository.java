@@ -1,29 +1,59 @@
 package com.maxeagan.restaurant.repositories;
 
+import com.maxeagan.restaurant.domain.GeoStatus;
 import com.maxeagan.restaurant.domain.entities.Restaurant;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.annotations.Query;
+import org.springframework.data.elasticsearch.annotations.SourceFilters;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Elasticsearch repository for performing CRUD operations on Restaurant documents.
  *
  * Extends {@link ElasticsearchRepository} to inherit built-in indexing, search, and delete support.
- * Includes custom queries for advanced search functionality.
+ * Includes custom queries for advanced search functionality, and the hand-written
+ * operations of {@link RestaurantRepositoryCustom}.
+ * <p>
+ * The search methods fetch only the <code>_source</code> paths passed as {@code sourceIncludes}
+ * (e.g. {@link #SUMMARY_SOURCE_FIELDS}); the returned restaurants are partial.
  */
 @Repository
-public interface RestaurantRepository extends ElasticsearchRepository<Restaurant, String> {
+public interface RestaurantRepository extends ElasticsearchRepository<Restaurant, String>, RestaurantRepositoryCustom {
 
     /**
      * Finds restaurants with an average rating greater than or equal to the specified minimum rating.
      *
-     * @param minRating minimum average rating to filter by
-     * @param pageable  pagination and sorting information
+     * @param minRating      minimum average rating to filter by
+     * @param sourceIncludes source paths to fetch
+     * @param pageable       pagination and sorting information
      * @return a paginated list of restaurants matching the rating filter
      */
-    Page<Restaurant> findByAverageRatingGreaterThanEqual(Float minRating, Pageable pageable);
+    @SourceFilters(includes = "?1")
+    Page<Restaurant> findByAverageRatingGreaterThanEqual(Float minRating, List<String> sourceIncludes, Pageable pageable);
+
+    /**
+     * Lists all restaurants.
+     *
+     * @param sourceIncludes source paths to fetch
+     * @param pageable       pagination and sorting information
+     * @return a page of restaurants
+     */
+    @Query("{\"match_all\": {}}")
+    @SourceFilters(includes = "?0")
+    Page<Restaurant> findAllWithSource(List<String> sourceIncludes, Pageable pageable);
+
+    /**
+     * Finds restaurants by geocoding status, e.g. those still waiting for the background geocoder.
+     *
+     * @param geoStatus the status to filter by
+     * @param pageable  pagination information
+     * @return a page of matching restaurants
+     */
+    Page<Restaurant> findByGeoStatus(GeoStatus geoStatus, Pageable pageable);
 
     /**
      * Performs a fuzzy text search across restaurant names and cuisine types,
@@ -36,9 +66,10 @@ public interface RestaurantRepository extends ElasticsearchRepository<Restaurant
      *   <li>At least one "should" clause must match (minimum_should_match = 1)</li>
      * </ul>
      *
-     * @param query     the text input to search for (fuzzy matched)
-     * @param minRating minimum average rating to filter by
-     * @param pageable  pagination and sorting information
+     * @param query          the text input to search for (fuzzy matched)
+     * @param minRating      minimum average rating to filter by
+     * @param sourceIncludes source paths to fetch
+     * @param pageable       pagination and sorting information
      * @return a paginated list of restaurants matching the criteria
      */
     @Query("{" +
@@ -53,17 +84,19 @@ public interface RestaurantRepository extends ElasticsearchRepository<Restaurant
             " \"minimum_should_match\": 1" +
             " }" +
             "}")
-    Page<Restaurant> findByQueryAndMinRating(String query, Float minRating, Pageable pageable);
+    @SourceFilters(includes = "?2")
+    Page<Restaurant> findByQueryAndMinRating(String query, Float minRating, List<String> sourceIncludes, Pageable pageable);
 
     /**
      * Finds restaurants within a specified radius (in miles) from a given geographic point.
      *
      * <p>This uses a geo-distance filter based on latitude and longitude.
      *
-     * @param latitude  the central point's latitude
-     * @param longitude the central point's longitude
-     * @param radiusMi  the radius to search within (in miles)
-     * @param pageable  pagination and sorting information
+     * @param latitude       the central point's latitude
+     * @param longitude      the central point's longitude
+     * @param radiusMi       the radius to search within (in miles)
+     * @param sourceIncludes source paths to fetch
+     * @param pageable       pagination and sorting information
      * @return a paginated list of nearby restaurants
      */
     @Query("{" +
@@ -79,10 +112,12 @@ public interface RestaurantRepository extends ElasticsearchRepository<Restaurant
             " ]" +
             " }" +
             "}")
+    @SourceFilters(includes = "?3")
     Page<Restaurant> findByLocationNear(
             Float latitude,
             Float longitude,
             Float radiusMi,
+            List<String> sourceIncludes,
             Pageable pageable);
 
 }
@@ -0,0 +1,120 @@
+package com.maxeagan.restaurant.repositories;
+
+import com.maxeagan.restaurant.domain.GeoStatus;
+import com.maxeagan.restaurant.domain.RestaurantDetail;
+import com.maxeagan.restaurant.domain.entities.Address;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.domain.entities.Review;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Custom repository fragment for {@link RestaurantRepository} with operations that
+ * cannot be expressed as derived or {@code @Query} methods.
+ * <p>
+ * Implemented by {@link RestaurantRepositoryCustomImpl} on top of
+ * {@link org.springframework.data.elasticsearch.core.ElasticsearchOperations}.
+ */
+public interface RestaurantRepositoryCustom {
+
+    /**
+     * Source fields backing {@link com.maxeagan.restaurant.domain.dtos.RestaurantSummaryDto}.
+     * Only review IDs are fetched, which is enough to count reviews without
+     * transferring their content.
+     */
+    List<String> SUMMARY_SOURCE_FIELDS = List.of(
+            "name", "cuisineType", "averageRating", "address", "photos", "reviews.id");
+
+    /**
+     * Fetches several restaurants in a single Elasticsearch <code>_mget</code> request,
+     * returning only the fields needed for summary views.
+     *
+     * @param ids the restaurant IDs to fetch
+     * @return one entry per requested ID, in request order; empty where the restaurant does not exist
+     */
+    List<Optional<Restaurant>> findSummariesByIds(List<String> ids);
+
+    /**
+     * Looks up the current version of a restaurant without fetching its source.
+     *
+     * @param id the restaurant ID
+     * @return the document's sequence number and primary term, or empty if it does not exist
+     */
+    Optional<SeqNoPrimaryTerm> findVersionById(String id);
+
+    /**
+     * Fetches a restaurant with only some of its source fields, e.g. for a sparse fieldset.
+     * The result is partial and must not be cached or saved.
+     *
+     * @param id             the restaurant ID
+     * @param sourceIncludes the source paths to fetch
+     * @return the partial restaurant, or empty if it does not exist
+     */
+    Optional<Restaurant> findByIdWithSource(String id, List<String> sourceIncludes);
+
+    /**
+     * Fetches the detail view of a restaurant in a single search: the restaurant without its
+     * reviews, the newest reviews as nested inner hits and the rating distribution as a
+     * nested aggregation. Only the returned reviews are read from the store.
+     *
+     * @param id             the restaurant ID
+     * @param sourceIncludes the restaurant source paths to fetch; all but the reviews if empty
+     * @param latestReviews  how many of the newest reviews to return; 0 for none
+     * @return the detail view, or empty if the restaurant does not exist
+     */
+    Optional<RestaurantDetail> findDetailById(String id, List<String> sourceIncludes, int latestReviews);
+
+    /**
+     * The parts of the restaurant page that do not come from the restaurant document itself.
+     *
+     * @param viewerReview the viewer's newest review of the restaurant, if any
+     * @param nearby       the closest other restaurants, nearest first, holding only summary fields
+     * @param took         Elasticsearch's own time per executed search, keyed by
+     *                     <code>viewerReview</code> and <code>nearby</code>
+     */
+    record PageSections(Optional<Review> viewerReview, List<Restaurant> nearby, Map<String, Duration> took) {
+    }
+
+    /**
+     * Finds the viewer's review of a restaurant and the restaurants around it with a single
+     * <code>_msearch</code> request, so Elasticsearch runs both searches in parallel. A section
+     * whose input is missing is skipped; if both are, no request is made.
+     *
+     * @param restaurantId   the restaurant shown on the page
+     * @param viewerId       the user whose review to find; null for an anonymous viewer
+     * @param location       the restaurant's location; null if it has none
+     * @param nearbyDistance the search radius around the location, e.g. <code>5km</code>
+     * @param nearbyCount    how many nearby restaurants to return; 0 for none
+     * @return the sections; empty where skipped or nothing was found
+     */
+    PageSections findPageSections(
+            String restaurantId, String viewerId, GeoPoint location, String nearbyDistance, int nearbyCount);
+
+    /**
+     * The geocoding result for one restaurant, applied only if the restaurant is still
+     * pending at the address that was geocoded.
+     *
+     * @param restaurantId the restaurant to update
+     * @param address      the address that was geocoded
+     * @param location     the resolved location, or null if there is none
+     * @param status       the resulting status
+     */
+    record GeoLocationUpdate(String restaurantId, Address address, GeoPoint location, GeoStatus status) {
+    }
+
+    /**
+     * Writes geocoding results with a single <code>_bulk</code> request of scripted partial
+     * updates, touching only <code>geoLocation</code> and <code>geoStatus</code>. Restaurants
+     * whose address changed or that are no longer pending in the meantime are left unchanged.
+     *
+     * @param updates the results to write
+     * @throws org.springframework.data.elasticsearch.BulkFailureException if some updates failed,
+     *         e.g. because the restaurant was deleted
+     */
+    void updateGeoLocations(List<GeoLocationUpdate> updates);
+}
@@ -0,0 +1,303 @@
+package com.maxeagan.restaurant.repositories;
+
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.LongTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.ChildScoreMode;
+import com.maxeagan.restaurant.domain.RestaurantDetail;
+import com.maxeagan.restaurant.domain.entities.Address;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.domain.entities.Review;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.data.elasticsearch.core.query.SourceFilter;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Implementation of {@link RestaurantRepositoryCustom}, picked up by Spring Data
+ * through its <code>Impl</code> naming convention.
+ */
+@RequiredArgsConstructor
+public class RestaurantRepositoryCustomImpl implements RestaurantRepositoryCustom {
+
+    private static final SourceFilter SUMMARY_SOURCE = new FetchSourceFilter(
+            SUMMARY_SOURCE_FIELDS.toArray(String[]::new),
+            null
+    );
+
+    /**
+     * Excludes the whole source; the version is part of the get metadata.
+     */
+    private static final SourceFilter NO_SOURCE = new FetchSourceFilter(null, new String[]{"*"});
+
+    /**
+     * The embedded reviews are returned through inner hits instead.
+     */
+    private static final String[] DETAIL_SOURCE_EXCLUDES = {"reviews"};
+
+    private static final String REVIEWS_AGGREGATION = "reviews";
+    private static final String VIEWER_REVIEW_SECTION = "viewerReview";
+    private static final String NEARBY_SECTION = "nearby";
+    private static final String RATINGS_AGGREGATION = "ratings";
+
+    /**
+     * Applies a geocoding result only while the restaurant is still pending at the geocoded
+     * address; otherwise the update is a no-op, so a late result never overwrites a newer address.
+     */
+    private static final String GEO_LOCATION_UPDATE_SCRIPT = """
+            if (ctx._source.geoStatus != 'PENDING' || ctx._source.address != params.address) {
+              ctx.op = 'noop';
+            } else {
+              ctx._source.geoLocation = params.location;
+              ctx._source.geoStatus = params.status;
+            }""";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    @Override
+    public List<Optional<Restaurant>> findSummariesByIds(List<String> ids) {
+        NativeQuery query = NativeQuery.builder()
+                .withIds(ids)
+                .withSourceFilter(SUMMARY_SOURCE)
+                .build();
+
+        // _mget answers in request order, with an empty item for every missing ID.
+        return elasticsearchOperations.multiGet(query, Restaurant.class)
+                .stream()
+                .map(item -> item.hasItem() ? Optional.of(item.getItem()) : Optional.<Restaurant>empty())
+                .toList();
+    }
+
+    @Override
+    public Optional<SeqNoPrimaryTerm> findVersionById(String id) {
+        NativeQuery query = NativeQuery.builder()
+                .withIds(id)
+                .withSourceFilter(NO_SOURCE)
+                .build();
+
+        return elasticsearchOperations.multiGet(query, Restaurant.class)
+                .stream()
+                .filter(MultiGetItem::hasItem)
+                .map(item -> item.getItem().getSeqNoPrimaryTerm())
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    @Override
+    public Optional<Restaurant> findByIdWithSource(String id, List<String> sourceIncludes) {
+        NativeQuery query = NativeQuery.builder()
+                .withIds(id)
+                .withSourceFilter(new FetchSourceFilter(sourceIncludes.toArray(String[]::new), null))
+                .build();
+
+        return elasticsearchOperations.multiGet(query, Restaurant.class)
+                .stream()
+                .filter(MultiGetItem::hasItem)
+                .map(MultiGetItem::getItem)
+                .findFirst();
+    }
+
+    @Override
+    public Optional<RestaurantDetail> findDetailById(String id, List<String> sourceIncludes, int latestReviews) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> {
+                    b.filter(f -> f.ids(ids -> ids.values(id)));
+                    if (latestReviews > 0) {
+                        // Optional clause: restaurants without reviews still match.
+                        b.should(s -> s.nested(n -> n
+                                .path("reviews")
+                                .query(all -> all.matchAll(m -> m))
+                                .scoreMode(ChildScoreMode.None)
+                                .innerHits(inner -> inner
+                                        .size(latestReviews)
+                                        .sort(sort -> sort.field(field -> field
+                                                .field("reviews.datePosted")
+                                                .order(SortOrder.Desc))))));
+                    }
+                    return b;
+                }))
+                .withSourceFilter(new FetchSourceFilter(
+                        sourceIncludes.isEmpty() ? null : sourceIncludes.toArray(String[]::new),
+                        DETAIL_SOURCE_EXCLUDES))
+                .withAggregation(REVIEWS_AGGREGATION, Aggregation.of(a -> a
+                        .nested(n -> n.path("reviews"))
+                        .aggregations(RATINGS_AGGREGATION, ratings -> ratings
+                                .terms(t -> t.field("reviews.rating").size(100)))))
+                .withMaxResults(1)
+                .build();
+
+        SearchHits<Restaurant> hits = elasticsearchOperations.search(query, Restaurant.class);
+        if (!hits.hasSearchHits()) {
+            return Optional.empty();
+        }
+        SearchHit<Restaurant> hit = hits.getSearchHit(0);
+
+        List<Review> reviews = innerReviews(hit);
+
+        Map<Integer, Long> ratingCounts = new TreeMap<>();
+        long reviewCount = 0;
+        if (hits.getAggregations() instanceof ElasticsearchAggregations aggregations) {
+            Aggregate nested = aggregations.aggregationsAsMap().get(REVIEWS_AGGREGATION).aggregation().getAggregate();
+            reviewCount = nested.nested().docCount();
+            for (LongTermsBucket bucket : nested.nested().aggregations().get(RATINGS_AGGREGATION).lterms().buckets().array()) {
+                ratingCounts.put((int) bucket.key(), bucket.docCount());
+            }
+        }
+
+        return Optional.of(RestaurantDetail.builder()
+                .restaurant(hit.getContent())
+                .latestReviews(reviews)
+                .reviewCount(reviewCount)
+                .ratingCounts(ratingCounts)
+                .build());
+    }
+
+    @Override
+    public PageSections findPageSections(
+            String restaurantId, String viewerId, GeoPoint location, String nearbyDistance, int nearbyCount) {
+        List<String> sections = new ArrayList<>(2);
+        List<NativeQuery> queries = new ArrayList<>(2);
+
+        if (viewerId != null) {
+            sections.add(VIEWER_REVIEW_SECTION);
+            queries.add(NativeQuery.builder()
+                    .withQuery(q -> q.bool(b -> b
+                            .filter(f -> f.ids(ids -> ids.values(restaurantId)))
+                            .filter(f -> f.nested(n -> n
+                                    .path("reviews")
+                                    .query(term -> term.term(t -> t.field("reviews.writtenBy.id").value(viewerId)))
+                                    .scoreMode(ChildScoreMode.None)
+                                    .innerHits(inner -> inner
+                                            .size(1)
+                                            .sort(sort -> sort.field(field -> field
+                                                    .field("reviews.datePosted")
+                                                    .order(SortOrder.Desc))))))))
+                    .withSourceFilter(NO_SOURCE)
+                    .withMaxResults(1)
+                    .build());
+        }
+        if (location != null && nearbyCount > 0) {
+            sections.add(NEARBY_SECTION);
+            queries.add(NativeQuery.builder()
+                    .withQuery(q -> q.bool(b -> b
+                            .filter(f -> f.geoDistance(g -> g
+                                    .field("geoLocation")
+                                    .distance(nearbyDistance)
+                                    .location(l -> l.latlon(ll -> ll.lat(location.getLat()).lon(location.getLon())))))
+                            .mustNot(not -> not.ids(ids -> ids.values(restaurantId)))))
+                    .withSort(sort -> sort.geoDistance(g -> g
+                            .field("geoLocation")
+                            .location(l -> l.latlon(ll -> ll.lat(location.getLat()).lon(location.getLon())))
+                            .order(SortOrder.Asc)))
+                    .withSourceFilter(SUMMARY_SOURCE)
+                    .withMaxResults(nearbyCount)
+                    .build());
+        }
+        if (queries.isEmpty()) {
+            return new PageSections(Optional.empty(), List.of(), Map.of());
+        }
+
+        List<SearchHits<Restaurant>> results = elasticsearchOperations.multiSearch(queries, Restaurant.class);
+
+        Optional<Review> viewerReview = Optional.empty();
+        List<Restaurant> nearby = List.of();
+        Map<String, Duration> took = new LinkedHashMap<>();
+        for (int i = 0; i < sections.size(); i++) {
+            SearchHits<Restaurant> hits = results.get(i);
+            if (hits.getExecutionDuration() != null) {
+                took.put(sections.get(i), hits.getExecutionDuration());
+            }
+            if (VIEWER_REVIEW_SECTION.equals(sections.get(i))) {
+                viewerReview = hits.getSearchHits().stream()
+                        .flatMap(hit -> innerReviews(hit).stream())
+                        .findFirst();
+            } else {
+                nearby = hits.getSearchHits().stream()
+                        .map(SearchHit::getContent)
+                        .toList();
+            }
+        }
+        return new PageSections(viewerReview, nearby, took);
+    }
+
+    @Override
+    public void updateGeoLocations(List<GeoLocationUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        List<UpdateQuery> queries = updates.stream()
+                .map(update -> {
+                    Map<String, Object> params = new HashMap<>();
+                    params.put("address", sourceOf(update.address()));
+                    params.put("location", update.location() == null ? null
+                            : Map.of("lat", update.location().getLat(), "lon", update.location().getLon()));
+                    params.put("status", update.status().name());
+                    return UpdateQuery.builder(update.restaurantId())
+                            .withScript(GEO_LOCATION_UPDATE_SCRIPT)
+                            .withScriptType(ScriptType.INLINE)
+                            .withLang("painless")
+                            .withParams(params)
+                            .build();
+                })
+                .toList();
+        elasticsearchOperations.bulkUpdate(queries, Restaurant.class);
+    }
+
+    /**
+     * Reads the reviews returned as nested inner hits of a restaurant hit.
+     */
+    private static List<Review> innerReviews(SearchHit<Restaurant> hit) {
+        if (!hit.getInnerHits().containsKey("reviews")) {
+            return List.of();
+        }
+        return hit.getInnerHits("reviews").getSearchHits().stream()
+                .map(SearchHit::getContent)
+                .filter(Review.class::isInstance)
+                .map(Review.class::cast)
+                .toList();
+    }
+
+    /**
+     * Renders an address the way it is stored in <code>_source</code>, where null fields are omitted.
+     */
+    private static Map<String, Object> sourceOf(Address address) {
+        Map<String, Object> source = new LinkedHashMap<>();
+        if (address == null) {
+            return source;
+        }
+        putIfNotNull(source, "streetNumber", address.getStreetNumber());
+        putIfNotNull(source, "streetName", address.getStreetName());
+        putIfNotNull(source, "unit", address.getUnit());
+        putIfNotNull(source, "city", address.getCity());
+        putIfNotNull(source, "state", address.getState());
+        putIfNotNull(source, "postalCode", address.getPostalCode());
+        putIfNotNull(source, "country", address.getCountry());
+        return source;
+    }
+
+    private static void putIfNotNull(Map<String, Object> source, String field, String value) {
+        if (value != null) {
+            source.put(field, value);
+        }
+    }
+}
@@ -3,12 +3,15 @@ package com.maxeagan.restaurant.services;
 import com.maxeagan.restaurant.domain.GeoLocation;
 import com.maxeagan.restaurant.domain.entities.Address;
 
+import java.util.Optional;
+
 /**
  * Service interface for determining the geographic coordinates (latitude and longitude)
  * of a given address.
  * <p>
- * Implementations of this interface may use external geocoding APIs (e.g., Google Maps, Mapbox)
- * or internal logic (e.g., random coordinate generation within a bounding box for testing purposes).
+ * Implementations of this interface may use external geocoding APIs (e.g., Google Maps, Mapbox),
+ * a local gazetteer, or internal logic (e.g., random coordinate generation within a bounding box
+ * for testing purposes). The implementation is selected with <code>app.geocoding.provider</code>.
  */
 public interface GeoLocationService {
 
@@ -16,7 +19,8 @@ public interface GeoLocationService {
      * Computes or retrieves the {@link GeoLocation} (latitude and longitude) for the given {@link Address}.
      *
      * @param address the address to geolocate
-     * @return the geographic coordinates corresponding to the provided address
+     * @return the geographic coordinates corresponding to the provided address,
+     *         or empty if the address cannot be located
      */
-    GeoLocation geoLocate(Address address);
+    Optional<GeoLocation> geoLocate(Address address);
 }
@@ -0,0 +1,44 @@
+package com.maxeagan.restaurant.services;
+
+import com.maxeagan.restaurant.domain.PhotoVariant;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service interface for producing and serving resized copies ("derivatives") of uploaded photos.
+ *
+ * Derivatives are generated at a fixed set of widths so clients can request an image no larger
+ * than they display instead of downloading the original upload.
+ */
+public interface PhotoDerivativeService {
+
+    /**
+     * Returns the derivative widths that apply to a stored photo, i.e. the configured widths
+     * smaller than the original. Only reads the image header.
+     *
+     * @param fileName the stored file name of the original photo
+     * @return the applicable widths in ascending order, or an empty list if the photo is missing
+     *         or not a readable image
+     */
+    List<Integer> derivativeWidths(String fileName);
+
+    /**
+     * Queues generation of all derivatives of a stored photo on the background worker pool.
+     * Never blocks; if the pool is saturated the derivatives are generated on first request instead.
+     *
+     * @param fileName the stored file name of the original photo
+     */
+    void generateAsync(String fileName);
+
+    /**
+     * Loads the smallest derivative at least {@code width} pixels wide, generating it on demand
+     * if it does not exist yet. Falls back to the original when no derivative is smaller.
+     *
+     * @param fileName the stored file name of the original photo
+     * @param width    the width the client wants to display
+     * @return the best-fitting image, flagged as a fallback when the original is served because
+     *         the derivative could not be generated; empty if the original photo does not exist
+     */
+    Optional<PhotoVariant> loadDerivative(String fileName, int width);
+}
@@ -0,0 +1,21 @@
+package com.maxeagan.restaurant.services;
+
+import com.maxeagan.restaurant.domain.PhotoMetadata;
+
+import java.util.Optional;
+
+/**
+ * Service interface for extracting layout and placeholder metadata from stored photos,
+ * so clients can reserve space and show a preview before the image itself arrives.
+ */
+public interface PhotoMetadataService {
+
+    /**
+     * Extracts the dimensions, byte size, dominant color and BlurHash placeholder of a stored photo.
+     * Results are cached, as stored photos never change.
+     *
+     * @param fileName the stored file name of the photo
+     * @return the metadata, or empty if the photo is missing or not a readable image
+     */
+    Optional<PhotoMetadata> extract(String fileName);
+}
@@ -1,9 +1,14 @@
 package com.maxeagan.restaurant.services;
 
+import com.maxeagan.restaurant.domain.PhotoUploadResult;
+import com.maxeagan.restaurant.domain.PhotoVariant;
 import com.maxeagan.restaurant.domain.entities.Photo;
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,6 +26,24 @@ public interface PhotoService {
      */
     Photo uploadPhoto(MultipartFile file);
 
+    /**
+     * Uploads a photo streamed directly from the request body.
+     *
+     * @param content          the image content; not closed by this method
+     * @param originalFilename the file name sent by the client
+     * @return a {@link Photo} object representing the uploaded image
+     */
+    Photo uploadPhoto(InputStream content, String originalFilename);
+
+    /**
+     * Uploads several photos at once. Files are validated and stored independently, so one
+     * rejected file does not fail the others.
+     *
+     * @param files the image files to upload
+     * @return one result per file, in the order given
+     */
+    List<PhotoUploadResult> uploadPhotos(List<MultipartFile> files);
+
     /**
      * Retrieves a stored photo as a Spring {@link Resource} by its identifier.
      *
@@ -28,4 +51,25 @@ public interface PhotoService {
      * @return an {@link Optional} containing the photo resource if found, or empty if not
      */
     Optional<Resource> getPhotoAsResource(String id);
+
+    /**
+     * Retrieves the best-fitting resized copy of a stored photo for the requested display width.
+     *
+     * @param id    the unique ID or filename of the stored photo
+     * @param width the width in pixels the client will display
+     * @return an {@link Optional} containing the smallest derivative at least {@code width} wide,
+     *         the original if none is or the derivative could not be generated, or empty if the
+     *         photo does not exist
+     */
+    Optional<PhotoVariant> getPhotoVariant(String id, int width);
+
+    /**
+     * Builds the {@link Photo} metadata for an already uploaded file that is being attached
+     * to a restaurant or review.
+     *
+     * @param url        the URL returned when the photo was uploaded
+     * @param uploadDate the timestamp to record for the photo
+     * @return a {@link Photo} including the widths of its available derivatives
+     */
+    Photo describePhoto(String url, LocalDateTime uploadDate);
 }
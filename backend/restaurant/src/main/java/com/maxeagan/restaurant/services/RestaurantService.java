@@ -1,10 +1,16 @@
 package com.maxeagan.restaurant.services;
 
+import com.maxeagan.restaurant.domain.FieldSelection;
+import com.maxeagan.restaurant.domain.RestaurantBatchResult;
 import com.maxeagan.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.maxeagan.restaurant.domain.RestaurantDetail;
+import com.maxeagan.restaurant.domain.RestaurantPage;
 import com.maxeagan.restaurant.domain.entities.Restaurant;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -37,8 +43,9 @@ public interface RestaurantService {
      * @param latitude  optional latitude for geo-based filtering
      * @param longitude optional longitude for geo-based filtering
      * @param radius    optional radius in kilometers
+     * @param fields    the summary fields the caller needs; others are not fetched
      * @param pageable  pagination and sorting configuration
-     * @return a paginated list of matching restaurants
+     * @return a paginated list of matching restaurants, holding only summary fields
      */
     Page<Restaurant> searchRestaurants(
             String query,
@@ -46,6 +53,7 @@ public interface RestaurantService {
             Float latitude,
             Float longitude,
             Float radius,
+            FieldSelection fields,
             Pageable pageable
     );
 
@@ -57,6 +65,49 @@ public interface RestaurantService {
      */
     Optional<Restaurant> getRestaurant(String id);
 
+    /**
+     * Retrieves the detail view of a restaurant: the restaurant with its newest reviews and
+     * aggregates over all reviews, without loading every review.
+     * <p>
+     * For a sparse fieldset only the selected fields are fetched, unless the view is cached.
+     *
+     * @param id     the restaurant ID
+     * @param fields the fields the caller needs
+     * @return an {@link Optional} containing the {@link RestaurantDetail} if found
+     */
+    Optional<RestaurantDetail> getRestaurantDetail(String id, FieldSelection fields);
+
+    /**
+     * Gathers everything the restaurant page shows in one call: the detail view, the first page
+     * of reviews, the viewer's own review and nearby restaurants.
+     *
+     * @param id       the restaurant ID
+     * @param viewerId the ID of the user viewing the page; null for an anonymous viewer
+     * @param timed    whether to record the time spent per section, if enabled
+     * @return an {@link Optional} containing the {@link RestaurantPage} if the restaurant was found
+     */
+    Optional<RestaurantPage> getRestaurantPage(String id, String viewerId, boolean timed);
+
+    /**
+     * Retrieves the current version of a restaurant without loading the whole document,
+     * e.g. to answer conditional requests.
+     *
+     * @param id the restaurant ID
+     * @return the document's sequence number and primary term, or empty if not found
+     */
+    Optional<SeqNoPrimaryTerm> getRestaurantVersion(String id);
+
+    /**
+     * Retrieves several restaurants by ID in a single backend lookup.
+     * Duplicate IDs are collapsed; the order of first appearance is kept.
+     *
+     * @param ids the restaurant IDs to fetch
+     * @return the found restaurants in request order, plus the IDs that were not found
+     * @throws com.maxeagan.restaurant.exceptions.BatchSizeExceededException if more IDs are
+     *         requested than the configured maximum batch size
+     */
+    RestaurantBatchResult getRestaurants(List<String> ids);
+
     /**
      * Updates an existing restaurant with new data.
      *
@@ -1,5 +1,6 @@
 package com.maxeagan.restaurant.services;
 
+import com.maxeagan.restaurant.domain.FieldSelection;
 import com.maxeagan.restaurant.domain.ReviewCreateUpdateRequest;
 import com.maxeagan.restaurant.domain.entities.Review;
 import com.maxeagan.restaurant.domain.entities.User;
@@ -29,18 +30,20 @@ public interface ReviewService {
      *
      * @param restaurantId the restaurant to list reviews for
      * @param pageable     pagination and sorting info
+     * @param fields       the review fields the caller needs; others may be left empty
      * @return paginated list of {@link Review} objects
      */
-    Page<Review> listReviews(String restaurantId, Pageable pageable);
+    Page<Review> listReviews(String restaurantId, Pageable pageable, FieldSelection fields);
 
     /**
      * Retrieves a single review by restaurant and review ID.
      *
      * @param restaurantId the restaurant ID
      * @param reviewId     the review ID
+     * @param fields       the review fields the caller needs; others may be left empty
      * @return an {@link Optional} containing the review if found
      */
-    Optional<Review> getReview(String restaurantId, String reviewId);
+    Optional<Review> getReview(String restaurantId, String reviewId, FieldSelection fields);
 
     /**
      * Updates an existing review written by the given user.
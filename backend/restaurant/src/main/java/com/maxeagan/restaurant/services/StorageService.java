@@ -3,6 +3,7 @@ package com.maxeagan.restaurant.services;
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.Optional;
 
 /**
@@ -21,6 +22,46 @@ public interface StorageService {
      */
     String store(MultipartFile file, String fileName);
 
+    /**
+     * Stores generated content (e.g. a resized photo) under the exact file name given,
+     * replacing any existing file. Readers never observe a partially written file.
+     *
+     * @param content  the bytes to store
+     * @param fileName the target file name, including extension
+     */
+    void store(byte[] content, String fileName);
+
+    /**
+     * Stores the given multipart file under a name derived from the SHA-256 of its content.
+     * Uploading identical content again returns the existing file and adds a reference to it.
+     *
+     * @param file the file to store
+     * @return the identifier of the stored file
+     */
+    String storeContentAddressed(MultipartFile file);
+
+    /**
+     * Stores an upload read straight from the request body under the specified file name,
+     * without the container spooling it to a temporary file first. The size limit and the
+     * file type (from its leading magic bytes) are checked while the content streams in.
+     *
+     * @param content          the upload content; not closed by this method
+     * @param originalFilename the file name sent by the client, used for its extension
+     * @param fileName         the target file name, without extension
+     * @return the identifier of the stored file
+     */
+    String store(InputStream content, String originalFilename, String fileName);
+
+    /**
+     * Streaming variant of {@link #storeContentAddressed(MultipartFile)}: the SHA-256 is
+     * computed while the content is written, so the upload is read and written only once.
+     *
+     * @param content          the upload content; not closed by this method
+     * @param originalFilename the file name sent by the client, used for its extension
+     * @return the identifier of the stored file
+     */
+    String storeContentAddressed(InputStream content, String originalFilename);
+
     /**
      * Loads a stored file as a Spring {@link Resource} by its identifier.
      *
@@ -0,0 +1,294 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.cache.RestaurantCache;
+import com.maxeagan.restaurant.domain.GeoLocation;
+import com.maxeagan.restaurant.domain.GeoStatus;
+import com.maxeagan.restaurant.domain.entities.Address;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.repositories.RestaurantRepository;
+import com.maxeagan.restaurant.repositories.RestaurantRepositoryCustom.GeoLocationUpdate;
+import com.maxeagan.restaurant.services.GeoLocationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Resolves restaurant addresses outside the request that saved them, so geocoder latency
+ * never adds to write latency. Enabled with <code>app.geocoding.async.enabled=true</code>,
+ * which makes {@link RestaurantServiceImpl} save restaurants as {@link GeoStatus#PENDING}
+ * and hand them to {@link #enqueue}.
+ * <p>
+ * A single worker takes up to <code>app.geocoding.async.batch-size</code> pending restaurants
+ * at a time, geocodes them no faster than <code>app.geocoding.async.max-requests-per-second</code>,
+ * and writes the results back with one bulk partial update. Geocoder errors are retried with
+ * exponential backoff up to <code>app.geocoding.async.max-attempts</code> times before the
+ * restaurant is marked {@link GeoStatus#FAILED}.
+ * <p>
+ * The queue lives in memory. Restaurants left pending by a restart, by a full queue or by a
+ * concurrent full-document save are found again by a periodic sweep of the index.
+ * <p>
+ * Metrics: <code>geocoding.async.queue.depth</code> and <code>geocoding.async.queue.oldest</code>
+ * (age in seconds of the longest-waiting restaurant), <code>geocoding.async.lag</code> (enqueue to
+ * write-back) and <code>geocoding.async.results</code> by outcome.
+ */
+@Component
+@ConditionalOnProperty(name = "app.geocoding.async.enabled", havingValue = "true")
+@Slf4j
+public class BackgroundGeocoder {
+
+    private final GeoLocationService geoLocationService;
+    private final RestaurantRepository restaurantRepository;
+    private final RestaurantCache restaurantCache;
+    private final int batchSize;
+    private final long requestIntervalNanos;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final int queueCapacity;
+
+    private final DelayQueue<Task> queue = new DelayQueue<>();
+
+    /**
+     * The latest task of every queued restaurant. Older tasks for the same restaurant still in
+     * {@link #queue} (from an address change) are skipped when they come up.
+     */
+    private final Map<String, Task> pending = new ConcurrentHashMap<>();
+
+    private final Timer lag;
+    private final MeterRegistry meterRegistry;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    /**
+     * One pending restaurant, ready once {@code readyAtNanos} has passed.
+     */
+    record Task(String restaurantId, Address address, long enqueuedAtNanos, int attempts, long readyAtNanos)
+            implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAtNanos, ((Task) other).readyAtNanos);
+        }
+    }
+
+    public BackgroundGeocoder(
+            GeoLocationService geoLocationService,
+            RestaurantRepository restaurantRepository,
+            RestaurantCache restaurantCache,
+            MeterRegistry meterRegistry,
+            @Value("${app.geocoding.async.batch-size:50}") int batchSize,
+            @Value("${app.geocoding.async.max-requests-per-second:20}") int maxRequestsPerSecond,
+            @Value("${app.geocoding.async.max-attempts:5}") int maxAttempts,
+            @Value("${app.geocoding.async.retry-backoff:PT1S}") Duration retryBackoff,
+            @Value("${app.geocoding.async.queue-capacity:10000}") int queueCapacity
+    ) {
+        this.geoLocationService = geoLocationService;
+        this.restaurantRepository = restaurantRepository;
+        this.restaurantCache = restaurantCache;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.max(1, batchSize);
+        this.requestIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxRequestsPerSecond);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        this.queueCapacity = queueCapacity;
+
+        Gauge.builder("geocoding.async.queue.depth", pending, Map::size)
+                .description("Restaurants waiting for their address to be geocoded")
+                .register(meterRegistry);
+        Gauge.builder("geocoding.async.queue.oldest", this, BackgroundGeocoder::oldestAgeSeconds)
+                .description("Seconds the longest-waiting restaurant has been pending")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.lag = Timer.builder("geocoding.async.lag")
+                .description("Time from saving a restaurant until its location is written")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("geocoder").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Queues a saved restaurant for geocoding, replacing any queued task for it.
+     * When the queue is full the restaurant stays pending until the next sweep.
+     *
+     * @param restaurant the saved restaurant, with the address to geocode
+     */
+    public void enqueue(Restaurant restaurant) {
+        if (pending.size() >= queueCapacity && !pending.containsKey(restaurant.getId())) {
+            result("dropped").increment();
+            log.warn("Geocoding queue is full; restaurant {} waits for the next sweep", restaurant.getId());
+            return;
+        }
+        long now = System.nanoTime();
+        Task task = new Task(restaurant.getId(), restaurant.getAddress(), now, 0, now);
+        pending.put(task.restaurantId(), task);
+        queue.add(task);
+    }
+
+    /**
+     * Re-queues restaurants that are pending in the index but not in memory, e.g. after a restart.
+     */
+    @Scheduled(initialDelayString = "${app.geocoding.async.sweep-initial-delay:PT30S}",
+            fixedDelayString = "${app.geocoding.async.sweep-interval:PT5M}")
+    public void sweep() {
+        int found = 0;
+        int page = 0;
+        Page<Restaurant> restaurants;
+        do {
+            restaurants = restaurantRepository.findByGeoStatus(GeoStatus.PENDING, PageRequest.of(page++, batchSize));
+            for (Restaurant restaurant : restaurants) {
+                if (!pending.containsKey(restaurant.getId())) {
+                    enqueue(restaurant);
+                    found++;
+                }
+            }
+        } while (restaurants.hasNext() && pending.size() < queueCapacity);
+
+        if (found > 0) {
+            log.info("Re-queued {} restaurants left pending for geocoding", found);
+        }
+    }
+
+    private void run() {
+        long[] nextRequestAt = {System.nanoTime()};
+        List<Task> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                process(batch, nextRequestAt);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Index unavailable: the tasks stay pending and the sweep picks them up again.
+                log.error("Could not write geocoding results for {} restaurants", batch.size(), e);
+                batch.forEach(task -> pending.remove(task.restaurantId(), task));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void process(List<Task> batch, long[] nextRequestAt) {
+        List<GeoLocationUpdate> updates = new ArrayList<>(batch.size());
+        List<Task> completed = new ArrayList<>(batch.size());
+
+        for (Task task : batch) {
+            if (pending.get(task.restaurantId()) != task) {
+                continue;
+            }
+            pace(nextRequestAt);
+            try {
+                GeoPoint location = geoLocationService.geoLocate(task.address())
+                        .map(BackgroundGeocoder::toGeoPoint)
+                        .orElse(null);
+                GeoStatus status = location != null ? GeoStatus.RESOLVED : GeoStatus.NOT_FOUND;
+                updates.add(new GeoLocationUpdate(task.restaurantId(), task.address(), location, status));
+                completed.add(task);
+                result(status.name().toLowerCase()).increment();
+            } catch (RuntimeException e) {
+                if (task.attempts() + 1 >= maxAttempts) {
+                    log.warn("Giving up geocoding restaurant {} after {} attempts",
+                            task.restaurantId(), task.attempts() + 1, e);
+                    updates.add(new GeoLocationUpdate(task.restaurantId(), task.address(), null, GeoStatus.FAILED));
+                    completed.add(task);
+                    result("failed").increment();
+                } else {
+                    retry(task, e);
+                }
+            }
+        }
+
+        try {
+            restaurantRepository.updateGeoLocations(updates);
+        } catch (BulkFailureException e) {
+            // Typically restaurants deleted while they were queued.
+            log.warn("Geocoding results not written for {} restaurants: {}",
+                    e.getFailedDocuments().size(), e.getFailedDocuments().keySet());
+        }
+
+        long now = System.nanoTime();
+        for (Task task : completed) {
+            restaurantCache.invalidate(task.restaurantId());
+            if (pending.remove(task.restaurantId(), task)) {
+                lag.record(now - task.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void retry(Task task, RuntimeException e) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(task.attempts(), 16));
+        log.debug("Geocoding restaurant {} failed; retrying in {}", task.restaurantId(), backoff, e);
+        Task next = new Task(task.restaurantId(), task.address(), task.enqueuedAtNanos(),
+                task.attempts() + 1, System.nanoTime() + backoff.toNanos());
+        if (pending.replace(task.restaurantId(), task, next)) {
+            queue.add(next);
+            result("retried").increment();
+        }
+    }
+
+    /**
+     * Blocks until the next geocoder request is allowed by the configured rate.
+     */
+    private void pace(long[] nextRequestAt) {
+        long now = System.nanoTime();
+        if (nextRequestAt[0] > now) {
+            LockSupport.parkNanos(nextRequestAt[0] - now);
+        }
+        nextRequestAt[0] = Math.max(now, nextRequestAt[0]) + requestIntervalNanos;
+    }
+
+    private double oldestAgeSeconds() {
+        long now = System.nanoTime();
+        return pending.values().stream()
+                .mapToLong(task -> now - task.enqueuedAtNanos())
+                .max()
+                .orElse(0) / 1e9;
+    }
+
+    private Counter result(String outcome) {
+        return Counter.builder("geocoding.async.results")
+                .tag("result", outcome)
+                .register(meterRegistry);
+    }
+
+    private static GeoPoint toGeoPoint(GeoLocation geoLocation) {
+        return new GeoPoint(geoLocation.getLatitude(), geoLocation.getLongitude());
+    }
+}
@@ -0,0 +1,77 @@
+package com.maxeagan.restaurant.services.impl;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only {@link org.springframework.core.io.Resource} over a (typically direct) {@link ByteBuffer}.
+ * <p>
+ * Every stream reads its own view of the buffer, so one instance can be served to any number
+ * of concurrent requests. Keeps the original file name and modification time so responses
+ * carry the same validators as the file it was loaded from.
+ */
+public class ByteBufferResource extends AbstractResource {
+
+    private final ByteBuffer content;
+    private final String filename;
+    private final long lastModified;
+
+    public ByteBufferResource(ByteBuffer content, String filename, long lastModified) {
+        this.content = content.asReadOnlyBuffer();
+        this.filename = filename;
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        ByteBuffer view = content.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return view.hasRemaining() ? view.get() & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (!view.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(length, view.remaining());
+                view.get(bytes, offset, count);
+                return count;
+            }
+
+            @Override
+            public int available() {
+                return view.remaining();
+            }
+        };
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return content.remaining();
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Cached file [" + filename + "]";
+    }
+}
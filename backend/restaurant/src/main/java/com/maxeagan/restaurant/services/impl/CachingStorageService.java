@@ -0,0 +1,177 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxeagan.restaurant.cache.AdmissionSketch;
+import com.maxeagan.restaurant.cache.ContentHashCache;
+import com.maxeagan.restaurant.services.StorageService;
+import com.maxeagan.restaurant.web.RedirectableResource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Optional;
+
+/**
+ * {@link StorageService} decorator that keeps the bytes of small, frequently read files in
+ * direct (off-heap) {@link ByteBuffer}s, so hot photos are served without touching the disk
+ * and without adding to the Java heap the garbage collector has to scan.
+ * <p>
+ * A file is only copied into the cache once {@link AdmissionSketch} has seen it requested
+ * <code>app.storage.cache.admission-threshold</code> times recently, so one-off reads (crawlers,
+ * old photos) never displace hot entries. Among admitted files, Caffeine's size-weighted
+ * W-TinyLFU policy decides what to evict. Files larger than
+ * <code>app.storage.cache.max-file-bytes</code> always go to the backing storage.
+ * <p>
+ * Files the backing storage lets clients fetch directly (see {@link RedirectableResource})
+ * are never cached, so the redirect is not replaced by an in-memory copy.
+ * <p>
+ * Writes go straight to the backing storage and evict the written name. Disable with
+ * <code>app.storage.cache.enabled=false</code>.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.storage.cache.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CachingStorageService implements StorageService {
+
+    private final StorageService delegate;
+    private final long maxFileBytes;
+    private final int admissionThreshold;
+    private final AdmissionSketch admissionSketch;
+    private final Cache<String, ByteBufferResource> cache;
+    private final Counter rejectedAdmissions;
+
+    public CachingStorageService(
+            @Qualifier("storageBackend") StorageService delegate,
+            MeterRegistry meterRegistry,
+            @Value("${app.storage.cache.max-bytes:134217728}") long maxBytes,
+            @Value("${app.storage.cache.max-file-bytes:262144}") long maxFileBytes,
+            @Value("${app.storage.cache.admission-threshold:2}") int admissionThreshold
+    ) {
+        this.delegate = delegate;
+        this.maxFileBytes = maxFileBytes;
+        this.admissionThreshold = admissionThreshold;
+        this.admissionSketch = new AdmissionSketch((int) Math.min(1 << 20, Math.max(1024, maxBytes / 16_384)));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String name, ByteBufferResource resource) -> (int) resource.contentLength())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "storage");
+        Gauge.builder("storage.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of file reads served from the off-heap cache")
+                .register(meterRegistry);
+        Gauge.builder("storage.cache.bytes", cache, c -> c.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0))
+                        .orElse(0L))
+                .description("Off-heap bytes held by the file cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejectedAdmissions = Counter.builder("storage.cache.admissions.rejected")
+                .description("Cache misses not admitted because the file is not read often enough")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String store(MultipartFile file, String fileName) {
+        String storedName = delegate.store(file, fileName);
+        cache.invalidate(storedName);
+        return storedName;
+    }
+
+    @Override
+    public void store(byte[] content, String fileName) {
+        delegate.store(content, fileName);
+        cache.invalidate(fileName);
+    }
+
+    @Override
+    public String storeContentAddressed(MultipartFile file) {
+        // Content-addressed files never change, so there is nothing to evict.
+        return delegate.storeContentAddressed(file);
+    }
+
+    @Override
+    public String store(InputStream content, String originalFilename, String fileName) {
+        String storedName = delegate.store(content, originalFilename, fileName);
+        cache.invalidate(storedName);
+        return storedName;
+    }
+
+    @Override
+    public String storeContentAddressed(InputStream content, String originalFilename) {
+        return delegate.storeContentAddressed(content, originalFilename);
+    }
+
+    /**
+     * Drops a file from the cache after it was deleted behind this decorator's back,
+     * e.g. by the orphaned photo collector.
+     *
+     * @param id the identifier of the deleted file
+     */
+    public void evict(String id) {
+        cache.invalidate(id);
+    }
+
+    @Override
+    public Optional<Resource> loadAsResource(String id) {
+        ByteBufferResource cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<Resource> resource = delegate.loadAsResource(id);
+        if (resource.isEmpty()) {
+            return resource;
+        }
+        if (resource.get() instanceof RedirectableResource redirectable && redirectable.redirectUri().isPresent()) {
+            // Clients fetch it from the store directly; caching it here would proxy it again.
+            return resource;
+        }
+        if (admissionSketch.increment(id) < admissionThreshold) {
+            rejectedAdmissions.increment();
+            return resource;
+        }
+
+        try {
+            long length = resource.get().contentLength();
+            if (length > maxFileBytes) {
+                return resource;
+            }
+            ByteBufferResource loaded = load(id, resource.get(), (int) length);
+            cache.put(id, loaded);
+            return Optional.of(loaded);
+        } catch (IOException e) {
+            log.warn("Could not cache file {}; serving it from storage", id, e);
+            return resource;
+        }
+    }
+
+    private static ByteBufferResource load(String id, Resource resource, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        try (InputStream in = resource.getInputStream();
+             ReadableByteChannel channel = Channels.newChannel(in)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends.
+            }
+        }
+        buffer.flip();
+        return new ByteBufferResource(buffer, id, ContentHashCache.lastModified(resource));
+    }
+}
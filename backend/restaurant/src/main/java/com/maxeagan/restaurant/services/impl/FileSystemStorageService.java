@@ -2,33 +2,82 @@ package com.maxeagan.restaurant.services.impl;
 
 import com.maxeagan.restaurant.exceptions.StorageException;
 import com.maxeagan.restaurant.services.StorageService;
+import com.maxeagan.restaurant.util.BloomFilter;
+import com.maxeagan.restaurant.util.FsyncBatcher;
+import com.maxeagan.restaurant.util.FsyncMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
 import java.util.Optional;
-import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Service for storing files on the local file system.
  * Handles file validation, storage, and retrieval as Spring Resources.
+ * Qualified as the storage backend, which {@link CachingStorageService} wraps when enabled.
+ * The default backend; <code>app.storage.backend=s3</code> selects {@link S3StorageService} instead.
+ * <p>
+ * Files are spread over a two-level fan-out of 65,536 directories, e.g.
+ * <code>3f/a2/3fa2…jpg</code>, so no single directory grows large. Files written before the
+ * sharded layout existed stay readable from the flat root until
+ * {@link com.maxeagan.restaurant.migration.StorageLayoutMigration} has moved them.
+ * <p>
+ * Keeps a {@link BloomFilter} of every stored file name, built in the background at startup
+ * and updated on every write, so lookups of names that were never stored (scrapers, stale
+ * links) are answered without touching the disk. The filter only knows about files written
+ * through this instance, so disable it with <code>app.storage.bloom.enabled=false</code> when
+ * several nodes write to a shared storage directory.
+ * <p>
+ * Streamed uploads are written once, into a temporary file next to their final location,
+ * and forced to disk according to <code>app.storage.fsync.mode</code> before they are renamed
+ * into place (see {@link FsyncBatcher}).
  */
 @Service
+@Qualifier("storageBackend")
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "filesystem", matchIfMissing = true)
+@RequiredArgsConstructor
 @Slf4j
 public class FileSystemStorageService implements StorageService {
 
+    private final MeterRegistry meterRegistry;
+
     /**
      * Root directory path for file storage, configurable via application properties.
      */
@@ -37,15 +86,49 @@ public class FileSystemStorageService implements StorageService {
 
     private Path rootLocation;
 
+    @Value("${app.storage.bloom.enabled:true}")
+    private boolean bloomEnabled;
+
+    @Value("${app.storage.bloom.expected-files:1000000}")
+    private long bloomExpectedFiles;
+
+    @Value("${app.storage.bloom.false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate;
+
+    private BloomFilter storedNames;
+
     /**
-     * Maximum allowed file size in bytes (5MB).
+     * Set once the startup scan has added every existing file to {@link #storedNames};
+     * until then negative answers from the filter are not trusted.
      */
-    private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
+    private volatile boolean storedNamesReady;
+
+    private Counter definiteMisses;
+    private Counter falsePositives;
+
+    @Value("${app.storage.fsync.mode:batch}")
+    private FsyncMode fsyncMode = FsyncMode.BATCH;
+
+    @Value("${app.storage.fsync.max-delay:2ms}")
+    private Duration fsyncMaxDelay = Duration.ofMillis(2);
+
+    @Value("${app.storage.fsync.max-batch-size:64}")
+    private int fsyncMaxBatchSize = 64;
+
+    private FsyncBatcher fsyncBatcher;
+
+    private static final Pattern HEX_PREFIX = Pattern.compile("^[0-9a-f]{4}");
 
     /**
-     * Allowed file extensions for upload.
+     * Striped in-process locks serializing dedup decisions and orphan deletion per file.
      */
-    private static final Set<String> ALLOWED_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif");
+    private final Object[] fileLocks = new Object[64];
+
+    {
+        for (int i = 0; i < fileLocks.length; i++) {
+            fileLocks[i] = new Object();
+        }
+    }
 
     /**
      * Initializes the storage directory. Creates it if it doesn't exist.
@@ -61,6 +144,77 @@ public class FileSystemStorageService implements StorageService {
             log.error("Failed to create storage directory", e);
             throw new StorageException("Could not initialize storage location", e);
         }
+
+        if (bloomEnabled) {
+            initStoredNames();
+        }
+        fsyncBatcher = new FsyncBatcher(fsyncMode, fsyncMaxDelay, fsyncMaxBatchSize, meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fsyncBatcher.close();
+    }
+
+    /**
+     * Creates the Bloom filter and its metrics and fills it from the storage directory on a
+     * background thread, scanning the top-level shard directories in parallel.
+     */
+    private void initStoredNames() {
+        storedNames = new BloomFilter(bloomExpectedFiles, bloomFalsePositiveRate);
+
+        definiteMisses = Counter.builder("storage.bloom.definite.misses")
+                .description("Lookups answered as missing by the Bloom filter without a disk probe")
+                .register(meterRegistry);
+        falsePositives = Counter.builder("storage.bloom.false.positives")
+                .description("Lookups the Bloom filter let through that found no file")
+                .register(meterRegistry);
+        Gauge.builder("storage.bloom.false.positive.rate", this, storage -> {
+                    double misses = storage.definiteMisses.count() + storage.falsePositives.count();
+                    return misses == 0 ? 0 : storage.falsePositives.count() / misses;
+                })
+                .description("Observed share of missing files the Bloom filter did not catch")
+                .register(meterRegistry);
+        Gauge.builder("storage.bloom.expected.false.positive.rate", storedNames, BloomFilter::expectedFalsePositiveRate)
+                .description("False-positive rate expected from the number of stored names")
+                .register(meterRegistry);
+        Gauge.builder("storage.bloom.memory", storedNames, BloomFilter::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        Thread.ofPlatform().name("storage-bloom-filter").daemon().start(() -> {
+            long start = System.currentTimeMillis();
+            try (Stream<Path> entries = Files.list(rootLocation)) {
+                entries.toList().parallelStream().forEach(this::addStoredNames);
+                storedNamesReady = true;
+                log.info("Indexed stored files into Bloom filter in {} ms", System.currentTimeMillis() - start);
+            } catch (IOException | UncheckedIOException e) {
+                log.error("Could not index stored files; missing files will be looked up on disk", e);
+            }
+        });
+    }
+
+    private void addStoredNames(Path entry) {
+        if (!Files.isDirectory(entry)) {
+            rememberStoredName(entry.getFileName().toString());
+            return;
+        }
+        try (Stream<Path> files = Files.walk(entry)) {
+            files.filter(Files::isRegularFile)
+                    .forEach(file -> rememberStoredName(file.getFileName().toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records a file name in the Bloom filter. Called before the file becomes visible, so a
+     * concurrent lookup can never be answered "missing" for a file that exists.
+     */
+    private void rememberStoredName(String fileName) {
+        if (storedNames != null && !fileName.startsWith(".")) {
+            storedNames.add(fileName);
+        }
     }
 
     /**
@@ -73,68 +227,392 @@ public class FileSystemStorageService implements StorageService {
      */
     @Override
     public String store(MultipartFile file, String fileName) {
-        if (file.isEmpty()) {
-            throw new StorageException("Cannot save an empty file");
+        String extension = PhotoUploadValidator.validate(file);
+
+        String finalFileName = fileName + "." + extension;
+        Path destinationFile = resolve(finalFileName);
+
+        try (InputStream inputStream = file.getInputStream()) {
+            Files.createDirectories(destinationFile.getParent());
+            rememberStoredName(finalFileName);
+            Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Stored file: {}", finalFileName);
+            return finalFileName;
+        } catch (IOException e) {
+            log.error("Failed to store file {}", finalFileName, e);
+            throw new StorageException("Failed to store file", e);
+        }
+    }
+
+    /**
+     * Streams the upload into a temporary file while computing its SHA-256, then either
+     * discards the copy (the content is already stored) or atomically moves it into place.
+     * @param file the uploaded multipart file
+     * @return the stored filename: the hex digest plus the normalized extension
+     * @throws StorageException if validation fails or file can't be saved
+     */
+    @Override
+    public String storeContentAddressed(MultipartFile file) {
+        String extension = PhotoUploadValidator.normalizeExtension(PhotoUploadValidator.validate(file));
+
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(rootLocation, ".upload-", null);
+            MessageDigest digest = sha256();
+            try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String finalFileName = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            commitContentAddressed(tempFile, finalFileName);
+            return finalFileName;
+        } catch (IOException e) {
+            log.error("Failed to store content-addressed file", e);
+            throw new StorageException("Failed to store file", e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Streams the upload into a temporary file in the storage directory and renames it into
+     * place, so the content is written exactly once. The size limit and the magic bytes are
+     * checked as the content arrives; a rejected upload stops being read immediately.
+     * @param content the upload content
+     * @param originalFilename the client's file name, used for its extension
+     * @param fileName desired name (without extension) for stored file
+     * @return the final stored filename including extension
+     * @throws StorageException if validation fails or file can't be saved
+     */
+    @Override
+    public String store(InputStream content, String originalFilename, String fileName) {
+        String extension = PhotoUploadValidator.validateFilename(originalFilename);
+
+        String finalFileName = fileName + "." + extension;
+        Path destinationFile = resolve(finalFileName);
+
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(rootLocation, ".upload-", null);
+            writeUpload(content, extension, tempFile);
+            Files.createDirectories(destinationFile.getParent());
+            rememberStoredName(finalFileName);
+            Files.move(tempFile, destinationFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Stored file: {}", finalFileName);
+            return finalFileName;
+        } catch (IOException e) {
+            log.error("Failed to store file {}", finalFileName, e);
+            throw new StorageException("Failed to store file", e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Streams the upload into a temporary file while computing its SHA-256, checking the size
+     * limit and magic bytes on the way, then deduplicates it like
+     * {@link #storeContentAddressed(MultipartFile)}.
+     * @param content the upload content
+     * @param originalFilename the client's file name, used for its extension
+     * @return the stored filename: the hex digest plus the normalized extension
+     * @throws StorageException if validation fails or file can't be saved
+     */
+    @Override
+    public String storeContentAddressed(InputStream content, String originalFilename) {
+        String extension = PhotoUploadValidator.normalizeExtension(PhotoUploadValidator.validateFilename(originalFilename));
+
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(rootLocation, ".upload-", null);
+            String finalFileName = writeUpload(content, extension, tempFile) + "." + extension;
+            commitContentAddressed(tempFile, finalFileName);
+            return finalFileName;
+        } catch (IOException e) {
+            log.error("Failed to store content-addressed file", e);
+            throw new StorageException("Failed to store file", e);
+        } finally {
+            deleteQuietly(tempFile);
         }
+    }
 
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new StorageException("File too large. Max size is " + (MAX_FILE_SIZE / (1024 * 1024)) + "MB");
+    /**
+     * Copies the upload into {@code target} in a single pass, hashing it and enforcing the size
+     * limit and file signature as it goes, then forces it to disk per the configured fsync mode.
+     * @return the hex SHA-256 of the content
+     */
+    private String writeUpload(InputStream content, String extension, Path target) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[PhotoUploadValidator.UPLOAD_BUFFER_BYTES];
+        long size = 0;
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = content.readNBytes(buffer, 0, buffer.length)) > 0) {
+                PhotoUploadValidator.checkChunk(buffer, read, size, extension);
+                size += read;
+                digest.update(buffer, 0, read);
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+            if (size == 0) {
+                throw new StorageException("Cannot save an empty file");
+            }
+            fsyncBatcher.sync(channel);
         }
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
-        String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
-        if (originalFilename == null || originalFilename.isBlank()) {
-            throw new StorageException("Invalid original filename");
+    /**
+     * Moves a fully written temporary file to its content-addressed name, or drops it when that
+     * content is already stored.
+     */
+    private void commitContentAddressed(Path tempFile, String finalFileName) throws IOException {
+        Path destinationFile = resolve(finalFileName);
+
+        synchronized (lockFor(finalFileName)) {
+            Optional<Path> existing = locate(finalFileName);
+            if (existing.isPresent()) {
+                // Counts as a fresh upload for the orphan collector's grace period.
+                Files.setLastModifiedTime(existing.get(), FileTime.from(Instant.now()));
+                log.info("Deduplicated upload into existing file: {}", finalFileName);
+            } else {
+                Files.createDirectories(destinationFile.getParent());
+                rememberStoredName(finalFileName);
+                Files.move(tempFile, destinationFile, StandardCopyOption.ATOMIC_MOVE);
+                log.info("Stored file: {}", finalFileName);
+            }
         }
+    }
 
-        String extension = Optional.ofNullable(StringUtils.getFilenameExtension(originalFilename))
-                .map(String::toLowerCase)
-                .orElseThrow(() -> new StorageException("Missing file extension"));
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 
-        if (!ALLOWED_EXTENSIONS.contains(extension)) {
-            throw new StorageException("Unsupported file type: " + extension);
+    /**
+     * Resolves the location of a file in the sharded layout.
+     * @param fileName the stored filename
+     * @return the path <code>{root}/ab/cd/{fileName}</code>
+     * @throws StorageException if the name could point outside its shard directory
+     */
+    public Path resolve(String fileName) {
+        if (fileName == null || fileName.isEmpty() || fileName.startsWith(".")
+                || fileName.contains("/") || fileName.contains("\\")) {
+            throw new StorageException("Invalid file name: " + fileName);
         }
+        return rootLocation.resolve(shardOf(fileName)).resolve(fileName);
+    }
 
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new StorageException("Unsupported content type: " + contentType);
+    /**
+     * Finds an existing file in the sharded layout, falling back to the flat layout for files
+     * that have not been migrated. The sharded path is checked again last, so a file moved by
+     * the migration between the two checks is still found.
+     */
+    private Optional<Path> locate(String fileName) {
+        Path sharded = resolve(fileName);
+        if (Files.exists(sharded)) {
+            return Optional.of(sharded);
         }
+        Path flat = rootLocation.resolve(fileName);
+        if (Files.exists(flat)) {
+            return Optional.of(flat);
+        }
+        return Files.exists(sharded) ? Optional.of(sharded) : Optional.empty();
+    }
 
-        String finalFileName = fileName + "." + extension;
-        Path destinationFile = rootLocation.resolve(finalFileName).normalize();
+    /**
+     * Returns the shard directory of a file, e.g. <code>3f/a2</code>. Names starting with four hex
+     * digits (content hashes, UUIDs and their derivatives) use them directly, so a photo and its
+     * derivatives share a directory; any other name is sharded by the SHA-256 of the name.
+     */
+    static String shardOf(String fileName) {
+        String key = fileName;
+        if (!HEX_PREFIX.matcher(fileName).find()) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(fileName.getBytes(StandardCharsets.UTF_8));
+                key = HexFormat.of().formatHex(hash, 0, 2);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+        return key.substring(0, 2) + "/" + key.substring(2, 4);
+    }
 
-        if (!destinationFile.startsWith(rootLocation)) {
-            throw new StorageException("Cannot store file outside the configured directory");
+    /**
+     * Calls {@code action} with the name of every file still stored in the flat layout,
+     * excluding temporary files. Streams the directory, so it is safe on very large roots.
+     * @param action receives each file name
+     * @throws IOException if the root directory can't be read
+     */
+    public void forEachFlatFile(Consumer<String> action) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(rootLocation,
+                file -> Files.isRegularFile(file) && !file.getFileName().toString().startsWith("."))) {
+            for (Path file : files) {
+                action.accept(file.getFileName().toString());
+            }
         }
+    }
 
-        try (InputStream inputStream = file.getInputStream()) {
-            Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
-            log.info("Stored file: {}", finalFileName);
-            return finalFileName;
+    /**
+     * A stored file as seen by {@link #forEachStoredFile(Consumer)}.
+     * @param name the stored filename
+     * @param size the file size in bytes
+     * @param lastModified when the file was last written (or last deduplicated into)
+     */
+    public record StoredFile(String name, long size, Instant lastModified) {
+    }
+
+    /**
+     * Calls {@code action} with every stored file in either layout, excluding temporary files.
+     * Walks the directory tree lazily, so it is safe on very large
+     * roots; files may be deleted by {@code action} while the walk is in progress.
+     * @param action receives each stored file
+     * @throws IOException if the storage directory can't be read
+     */
+    public void forEachStoredFile(Consumer<StoredFile> action) throws IOException {
+        Files.walkFileTree(rootLocation, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                String fileName = file.getFileName().toString();
+                if (attributes.isRegularFile() && !fileName.startsWith(".")) {
+                    action.accept(new StoredFile(fileName, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // Deleted or moved by the application since the directory was listed.
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Deletes a file unless it was written after {@code cutoff}. The age is checked under the
+     * file's lock, so an upload that deduplicates into the file at the same time keeps it alive.
+     * @param fileName the stored filename
+     * @param cutoff only files last modified before this instant are deleted
+     * @return true if the file was deleted
+     * @throws IOException if the file can't be deleted
+     */
+    public boolean deleteIfUnmodifiedSince(String fileName, Instant cutoff) throws IOException {
+        synchronized (lockFor(fileName)) {
+            Optional<Path> file = locate(fileName);
+            if (file.isEmpty() || Files.getLastModifiedTime(file.get()).toInstant().isAfter(cutoff)) {
+                return false;
+            }
+            Files.delete(file.get());
+            log.info("Deleted unreferenced file: {}", fileName);
+            return true;
+        }
+    }
+
+    /**
+     * Moves one file from the flat layout into its shard. Safe to run while the application
+     * reads and writes: reads find the file in either place, a sharded copy written in the
+     * meantime wins over the flat one.
+     * @param fileName the name of a file in the flat root
+     * @throws IOException if the file can't be moved
+     */
+    public void moveToShardedLayout(String fileName) throws IOException {
+        Path flat = rootLocation.resolve(fileName);
+        Path sharded = resolve(fileName);
+
+        synchronized (lockFor(fileName)) {
+            if (!Files.exists(flat)) {
+                return;
+            }
+            Files.createDirectories(sharded.getParent());
+            if (!Files.exists(sharded)) {
+                Files.move(flat, sharded, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            }
+            Files.delete(flat);
+        }
+    }
+
+    private Object lockFor(String fileName) {
+        return fileLocks[Math.floorMod(fileName.hashCode(), fileLocks.length)];
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
         } catch (IOException e) {
-            log.error("Failed to store file {}", finalFileName, e);
+            log.warn("Could not delete temporary file {}", file, e);
+        }
+    }
+
+    /**
+     * Writes the content to a temporary file in the storage directory and atomically moves
+     * it into place, so concurrent readers see either the old file or the complete new one.
+     * @param content the bytes to store
+     * @param fileName the final stored filename including extension
+     * @throws StorageException if the file can't be saved
+     */
+    @Override
+    public void store(byte[] content, String fileName) {
+        Path destinationFile = resolve(fileName);
+
+        try {
+            Files.createDirectories(destinationFile.getParent());
+            Path tempFile = Files.createTempFile(rootLocation, ".tmp-", null);
+            try {
+                Files.write(tempFile, content);
+                rememberStoredName(fileName);
+                Files.move(tempFile, destinationFile,
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            log.debug("Stored generated file: {}", fileName);
+        } catch (IOException e) {
+            log.error("Failed to store file {}", fileName, e);
             throw new StorageException("Failed to store file", e);
         }
     }
 
     /**
-     * Loads a stored file as a Spring Resource.
+     * Loads a stored file as a Spring Resource from either layout.
      * Returns an Optional containing the resource if it exists and is readable.
+     * Names the Bloom filter has never seen are reported missing without a disk probe.
      * @param fileName the stored filename to load
      * @return Optional<Resource> wrapping the file resource or empty if not found/readable
      */
     @Override
     public Optional<Resource> loadAsResource(String fileName) {
+        boolean filtered = storedNamesReady;
+        if (filtered && !storedNames.mightContain(fileName)) {
+            definiteMisses.increment();
+            return Optional.empty();
+        }
+
         try {
-            Path file = rootLocation.resolve(fileName);
+            Optional<Path> file = locate(fileName);
+            if (file.isEmpty()) {
+                if (filtered) {
+                    falsePositives.increment();
+                }
+                return Optional.empty();
+            }
 
-            Resource resource = new UrlResource(file.toUri());
+            Resource resource = new UrlResource(file.get().toUri());
 
-            if (resource.exists() || resource.isReadable()) {
+            if (resource.exists() && resource.isReadable()) {
                 return Optional.of(resource);
             } else {
                 return Optional.empty();
             }
-        } catch (MalformedURLException e) {
+        } catch (MalformedURLException | StorageException e) {
             log.warn("Could not read file: {}", fileName, e);
             return Optional.empty();
         }
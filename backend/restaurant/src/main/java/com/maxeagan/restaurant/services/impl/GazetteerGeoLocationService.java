@@ -0,0 +1,124 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxeagan.restaurant.domain.GeoLocation;
+import com.maxeagan.restaurant.domain.entities.Address;
+import com.maxeagan.restaurant.services.GeoLocationService;
+import com.maxeagan.restaurant.util.Gazetteer;
+import com.maxeagan.restaurant.util.GazetteerBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link GeoLocationService} that looks addresses up in a local, memory-mapped {@link Gazetteer},
+ * so geocoding works offline and costs a binary search instead of a network call.
+ * Selected with <code>app.geocoding.provider=gazetteer</code>.
+ * <p>
+ * The gazetteer file is <code>app.geocoding.gazetteer.path</code>. When
+ * <code>app.geocoding.gazetteer.source</code> names a CSV of address points (e.g. an
+ * OpenAddresses extract) that is newer than the file, the file is rebuilt from it at startup.
+ * <p>
+ * Results, including misses, are cached by normalized address in a bounded Caffeine cache of
+ * <code>app.geocoding.cache.max-size</code> entries, so the same address spelled differently
+ * is looked up once.
+ */
+@Service
+@ConditionalOnProperty(name = "app.geocoding.provider", havingValue = "gazetteer")
+@Slf4j
+public class GazetteerGeoLocationService implements GeoLocationService {
+
+    private final Path gazetteerPath;
+    private final String sourcePath;
+    private final Cache<Gazetteer.Query, Optional<GeoLocation>> locations;
+    private final Map<Gazetteer.Precision, Counter> matches = new EnumMap<>(Gazetteer.Precision.class);
+    private final Counter misses;
+
+    private Gazetteer gazetteer;
+
+    public GazetteerGeoLocationService(
+            MeterRegistry meterRegistry,
+            @Value("${app.geocoding.gazetteer.path:data/gazetteer.bin}") String gazetteerPath,
+            @Value("${app.geocoding.gazetteer.source:}") String sourcePath,
+            @Value("${app.geocoding.cache.max-size:50000}") long cacheMaxSize
+    ) {
+        this.gazetteerPath = Paths.get(gazetteerPath);
+        this.sourcePath = sourcePath;
+        this.locations = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, locations, "geocoding");
+        for (Gazetteer.Precision precision : Gazetteer.Precision.values()) {
+            matches.put(precision, Counter.builder("geocoding.lookups")
+                    .tag("result", precision.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.misses = Counter.builder("geocoding.lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (StringUtils.hasText(sourcePath)) {
+            Path source = Paths.get(sourcePath);
+            if (!Files.exists(gazetteerPath)
+                    || Files.getLastModifiedTime(source).compareTo(Files.getLastModifiedTime(gazetteerPath)) > 0) {
+                GazetteerBuilder.build(source, gazetteerPath);
+            }
+        }
+        gazetteer = Gazetteer.open(gazetteerPath);
+        log.info("Opened gazetteer {} with {} entries", gazetteerPath.toAbsolutePath(), gazetteer.size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        gazetteer.close();
+    }
+
+    /**
+     * Returns the coordinates of the address, or of its street or postal code when the exact
+     * address is not in the gazetteer.
+     *
+     * @param address the address to geolocate
+     * @return the coordinates, or empty if not even the postal code is known
+     */
+    @Override
+    public Optional<GeoLocation> geoLocate(Address address) {
+        Gazetteer.Query query = Gazetteer.Query.of(
+                address.getPostalCode(), address.getStreetNumber(), address.getStreetName());
+        return locations.get(query, this::lookup);
+    }
+
+    private Optional<GeoLocation> lookup(Gazetteer.Query query) {
+        Optional<Gazetteer.Match> match = gazetteer.locate(query);
+        if (match.isEmpty()) {
+            misses.increment();
+            log.debug("Address not in gazetteer: {}", query);
+            return Optional.empty();
+        }
+
+        matches.get(match.get().precision()).increment();
+        return Optional.of(GeoLocation.builder()
+                .latitude(match.get().latitude())
+                .longitude(match.get().longitude())
+                .build());
+    }
+}
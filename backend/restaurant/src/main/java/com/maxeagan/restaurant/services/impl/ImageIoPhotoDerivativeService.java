@@ -0,0 +1,359 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxeagan.restaurant.concurrency.SingleFlight;
+import com.maxeagan.restaurant.domain.PhotoVariant;
+import com.maxeagan.restaurant.services.PhotoDerivativeService;
+import com.maxeagan.restaurant.services.StorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PhotoDerivativeService} that resizes photos with the JDK's ImageIO and Java2D.
+ * <p>
+ * Derivatives are stored next to the original through {@link StorageService} as
+ * <code>{photoId}_w{width}.{ext}</code>. JPEG originals produce JPEG derivatives; PNG and GIF
+ * originals produce PNG derivatives, keeping transparency (animated GIFs keep only their first frame).
+ * Photos are never upscaled.
+ * <p>
+ * Uploads queue all derivatives on a small bounded worker pool, so resizing never competes with
+ * request threads for more than the configured number of cores. Requests for a derivative that
+ * does not exist yet (queue overflow, older uploads) generate that one width on demand, with
+ * concurrent requests for the same derivative sharing one generation.
+ */
+@Service
+@Slf4j
+public class ImageIoPhotoDerivativeService implements PhotoDerivativeService {
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final StorageService storageService;
+    private final List<Integer> widths;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Maps a requested derivative file name to the file that serves it: the derivative itself,
+     * or the original when the original is already narrower than the requested width. Originals
+     * served because generation failed are not remembered, so the next request tries again.
+     */
+    private final Cache<String, String> resolvedFiles = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    private final SingleFlight<String, Optional<Generated>> onDemandGenerations;
+    private final Timer asyncGenerationTimer;
+    private final Timer onDemandGenerationTimer;
+    private final Counter rejectedGenerations;
+
+    public ImageIoPhotoDerivativeService(
+            StorageService storageService,
+            MeterRegistry meterRegistry,
+            @Value("${app.photos.derivatives.widths:160,480,1080}") List<Integer> widths,
+            @Value("${app.photos.derivatives.worker-threads:2}") int workerThreads,
+            @Value("${app.photos.derivatives.queue-capacity:100}") int queueCapacity,
+            @Value("${app.photos.derivatives.max-pixels:40000000}") long maxPixels
+    ) {
+        this.storageService = storageService;
+        this.widths = widths.stream().sorted().distinct().toList();
+        this.maxPixels = maxPixels;
+
+        this.rejectedGenerations = Counter.builder("photo.derivatives.rejected")
+                .description("Derivative generations dropped because the worker queue was full")
+                .register(meterRegistry);
+        this.asyncGenerationTimer = Timer.builder("photo.derivatives.generation")
+                .tag("mode", "async")
+                .register(meterRegistry);
+        this.onDemandGenerationTimer = Timer.builder("photo.derivatives.generation")
+                .tag("mode", "on-demand")
+                .register(meterRegistry);
+        this.onDemandGenerations = new SingleFlight<>("photo.derivative", meterRegistry);
+
+        this.executor = new ThreadPoolExecutor(
+                workerThreads, workerThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("photo-derivatives-", 0).daemon().factory(),
+                (task, pool) -> {
+                    rejectedGenerations.increment();
+                    log.warn("Photo derivative queue is full; derivatives will be generated on demand");
+                });
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "photo.derivatives");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public List<Integer> derivativeWidths(String fileName) {
+        try {
+            return withReader(fileName, reader -> {
+                int originalWidth = reader.getWidth(0);
+                return widths.stream().filter(width -> width < originalWidth).toList();
+            }).orElse(List.of());
+        } catch (IOException e) {
+            log.warn("Could not read dimensions of photo {}", fileName, e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public void generateAsync(String fileName) {
+        executor.execute(() -> asyncGenerationTimer.record(() -> {
+            try {
+                generateAll(fileName);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not generate derivatives of photo {}", fileName, e);
+            }
+        }));
+    }
+
+    @Override
+    public Optional<PhotoVariant> loadDerivative(String fileName, int width) {
+        Optional<Integer> targetWidth = widths.stream().filter(w -> w >= width).findFirst();
+        if (targetWidth.isEmpty()) {
+            return storageService.loadAsResource(fileName).map(PhotoVariant::of);
+        }
+
+        String derivativeName = derivativeFileName(fileName, targetWidth.get());
+        String resolved = resolvedFiles.getIfPresent(derivativeName);
+        if (resolved == null) {
+            Optional<Resource> existing = storageService.loadAsResource(derivativeName);
+            if (existing.isPresent()) {
+                resolvedFiles.put(derivativeName, derivativeName);
+                return existing.map(PhotoVariant::of);
+            }
+
+            Optional<Generated> generated = onDemandGenerations.execute(derivativeName, () ->
+                    onDemandGenerationTimer.record(() -> generateOne(fileName, targetWidth.get())));
+            if (generated.isEmpty()) {
+                return Optional.empty();
+            }
+            if (generated.get().fallback()) {
+                return storageService.loadAsResource(generated.get().fileName())
+                        .map(original -> new PhotoVariant(original, true));
+            }
+            resolved = generated.get().fileName();
+            resolvedFiles.put(derivativeName, resolved);
+        }
+        return storageService.loadAsResource(resolved).map(PhotoVariant::of);
+    }
+
+    /**
+     * The file generated for (or standing in for) a requested derivative.
+     *
+     * @param fileName the derivative, or the original
+     * @param fallback true if the original stands in because generation failed
+     */
+    private record Generated(String fileName, boolean fallback) {
+    }
+
+    /**
+     * Decodes the original once and produces every applicable width, largest first, each one
+     * scaled from the previous to keep the work proportional to the output size.
+     */
+    private void generateAll(String fileName) throws IOException {
+        // Re-uploads of identical content (content-addressed storage) already have their derivatives.
+        boolean complete = derivativeWidths(fileName).stream()
+                .allMatch(width -> storageService.loadAsResource(derivativeFileName(fileName, width)).isPresent());
+        if (complete) {
+            return;
+        }
+
+        Optional<BufferedImage> decoded = withReader(fileName, reader -> {
+            checkPixelCount(fileName, reader, 1);
+            return reader.read(0);
+        });
+        if (decoded.isEmpty()) {
+            log.warn("Photo {} no longer exists; skipping derivatives", fileName);
+            return;
+        }
+
+        BufferedImage source = decoded.get();
+        String format = outputFormat(fileName);
+        List<Integer> targets = new ArrayList<>(widths.stream()
+                .filter(width -> width < decoded.get().getWidth())
+                .toList());
+        targets.sort((a, b) -> b - a);
+
+        for (int width : targets) {
+            BufferedImage scaled = scale(source, width, isOpaque(format));
+            String derivativeName = derivativeFileName(fileName, width);
+            storageService.store(encode(scaled, format), derivativeName);
+            resolvedFiles.put(derivativeName, derivativeName);
+            source = scaled;
+        }
+        log.debug("Generated derivatives {} of photo {}", targets, fileName);
+    }
+
+    /**
+     * Generates a single derivative, decoding the original with subsampling so large photos
+     * are never fully expanded in memory for a small thumbnail.
+     *
+     * @return the file that serves the requested width, or empty if the original is missing
+     */
+    private Optional<Generated> generateOne(String fileName, int width) {
+        try {
+            Optional<BufferedImage> decoded = withReader(fileName, reader -> {
+                int originalWidth = reader.getWidth(0);
+                if (originalWidth <= width) {
+                    return null;
+                }
+                int subsampling = Math.max(1, originalWidth / (width * 2));
+                checkPixelCount(fileName, reader, subsampling);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            });
+
+            if (decoded.isEmpty()) {
+                // Missing original, or already narrow enough to serve as is.
+                return storageService.loadAsResource(fileName).map(original -> new Generated(fileName, false));
+            }
+
+            String format = outputFormat(fileName);
+            String derivativeName = derivativeFileName(fileName, width);
+            storageService.store(encode(scale(decoded.get(), width, isOpaque(format)), format), derivativeName);
+            return Optional.of(new Generated(derivativeName, false));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not generate {}px derivative of photo {}; serving the original", width, fileName, e);
+            return storageService.loadAsResource(fileName).map(original -> new Generated(fileName, true));
+        }
+    }
+
+    private void checkPixelCount(String fileName, ImageReader reader, int subsampling) throws IOException {
+        long pixels = (long) (reader.getWidth(0) / subsampling) * (reader.getHeight(0) / subsampling);
+        if (pixels > maxPixels) {
+            throw new IOException("Photo " + fileName + " is too large to resize: " + pixels + " pixels");
+        }
+    }
+
+    /**
+     * Opens the stored photo with a matching ImageIO reader. The stream is buffered in memory
+     * rather than in ImageIO's temporary files, without changing ImageIO's global cache setting.
+     *
+     * @return the callback's result, or empty if the photo does not exist or the callback returned null
+     */
+    private <T> Optional<T> withReader(String fileName, ReaderCallback<T> callback) throws IOException {
+        Optional<Resource> resource = storageService.loadAsResource(fileName);
+        if (resource.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try (InputStream in = resource.get().getInputStream();
+             ImageInputStream imageIn = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + fileName);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                return Optional.ofNullable(callback.apply(reader));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image to the target width, preserving aspect ratio. Large reductions are done
+     * in halving steps, which keeps bilinear filtering from dropping detail.
+     */
+    static BufferedImage scale(BufferedImage source, int targetWidth, boolean opaque) {
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+        int imageType = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = width == targetWidth ? targetHeight : Math.max(targetHeight, height / 2);
+
+            BufferedImage next = new BufferedImage(width, height, imageType);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth);
+
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOut = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (isOpaque(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    static String derivativeFileName(String fileName, int width) {
+        return StringUtils.stripFilenameExtension(fileName) + "_w" + width + "." + outputFormat(fileName);
+    }
+
+    private static String outputFormat(String fileName) {
+        String extension = StringUtils.getFilenameExtension(fileName);
+        return "jpg".equalsIgnoreCase(extension) || "jpeg".equalsIgnoreCase(extension) ? "jpg" : "png";
+    }
+
+    private static boolean isOpaque(String format) {
+        return "jpg".equals(format);
+    }
+
+    @FunctionalInterface
+    private interface ReaderCallback<T> {
+        T apply(ImageReader reader) throws IOException;
+    }
+}
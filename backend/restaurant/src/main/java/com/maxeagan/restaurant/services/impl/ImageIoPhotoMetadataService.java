@@ -0,0 +1,187 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxeagan.restaurant.domain.PhotoMetadata;
+import com.maxeagan.restaurant.services.PhotoMetadataService;
+import com.maxeagan.restaurant.services.StorageService;
+import com.maxeagan.restaurant.util.BlurHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * {@link PhotoMetadataService} that reads photos with the JDK's ImageIO.
+ * <p>
+ * Dimensions come from the image header. The dominant color and BlurHash are computed from a
+ * copy of about {@value #SAMPLE_SIZE}px decoded with source subsampling, so even large photos
+ * are never fully expanded in memory. Photos above <code>app.photos.derivatives.max-pixels</code>
+ * (after subsampling) only get dimensions and size.
+ */
+@Service
+@Slf4j
+public class ImageIoPhotoMetadataService implements PhotoMetadataService {
+
+    /**
+     * Longest side of the sample used for the color and the placeholder.
+     */
+    static final int SAMPLE_SIZE = 32;
+
+    /**
+     * BlurHash components along the longer side; the shorter side gets one less.
+     */
+    private static final int BLUR_HASH_COMPONENTS = 4;
+
+    private final StorageService storageService;
+    private final long maxPixels;
+    private final Timer extractionTimer;
+
+    private final Cache<String, PhotoMetadata> metadata = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .recordStats()
+            .build();
+
+    public ImageIoPhotoMetadataService(
+            StorageService storageService,
+            MeterRegistry meterRegistry,
+            @Value("${app.photos.derivatives.max-pixels:40000000}") long maxPixels
+    ) {
+        this.storageService = storageService;
+        this.maxPixels = maxPixels;
+        this.extractionTimer = Timer.builder("photo.metadata.extraction").register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, metadata, "photo.metadata");
+    }
+
+    @Override
+    public Optional<PhotoMetadata> extract(String fileName) {
+        PhotoMetadata cached = metadata.getIfPresent(fileName);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<PhotoMetadata> extracted = extractionTimer.record(() -> read(fileName));
+        extracted.ifPresent(value -> metadata.put(fileName, value));
+        return extracted;
+    }
+
+    private Optional<PhotoMetadata> read(String fileName) {
+        Optional<Resource> resource = storageService.loadAsResource(fileName);
+        if (resource.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try (InputStream in = resource.get().getInputStream();
+             ImageInputStream imageIn = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                log.warn("Unsupported image format: {}", fileName);
+                return Optional.empty();
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                PhotoMetadata.PhotoMetadataBuilder result = PhotoMetadata.builder()
+                        .width(width)
+                        .height(height)
+                        .sizeBytes(resource.get().contentLength());
+
+                int subsampling = Math.max(1, Math.max(width, height) / (SAMPLE_SIZE * 2));
+                long sampledPixels = (long) (width / subsampling) * (height / subsampling);
+                if (sampledPixels > maxPixels) {
+                    log.warn("Photo {} is too large to sample: {} pixels", fileName, sampledPixels);
+                    return Optional.of(result.build());
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage sample = shrink(reader.read(0, param));
+
+                boolean landscape = width >= height;
+                return Optional.of(result
+                        .dominantColor(dominantColor(sample))
+                        .blurHash(BlurHash.encode(sample,
+                                landscape ? BLUR_HASH_COMPONENTS : BLUR_HASH_COMPONENTS - 1,
+                                landscape ? BLUR_HASH_COMPONENTS - 1 : BLUR_HASH_COMPONENTS))
+                        .build());
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not extract metadata of photo {}", fileName, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Scales the subsampled image so its longer side is at most {@link #SAMPLE_SIZE}.
+     */
+    private static BufferedImage shrink(BufferedImage image) {
+        double factor = Math.min(1.0, (double) SAMPLE_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+
+        BufferedImage sample = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = sample.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return sample;
+    }
+
+    /**
+     * Returns the average color of the most populated bucket of a coarse (4 bits per channel)
+     * histogram, which picks the color a viewer perceives as dominant rather than a muddy mean.
+     *
+     * @return the color as <code>#rrggbb</code>
+     */
+    static String dominantColor(BufferedImage image) {
+        int[] counts = new int[4096];
+        long[][] sums = new long[4096][3];
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int rgb = image.getRGB(x, y);
+                int r = (rgb >> 16) & 0xFF;
+                int g = (rgb >> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                int bucket = (r >> 4) << 8 | (g >> 4) << 4 | (b >> 4);
+                counts[bucket]++;
+                sums[bucket][0] += r;
+                sums[bucket][1] += g;
+                sums[bucket][2] += b;
+            }
+        }
+
+        int dominant = 0;
+        for (int bucket = 1; bucket < counts.length; bucket++) {
+            if (counts[bucket] > counts[dominant]) {
+                dominant = bucket;
+            }
+        }
+        int count = Math.max(1, counts[dominant]);
+        return String.format("#%02x%02x%02x",
+                sums[dominant][0] / count, sums[dominant][1] / count, sums[dominant][2] / count);
+    }
+}
@@ -1,44 +1,163 @@
 package com.maxeagan.restaurant.services.impl;
 
+import com.maxeagan.restaurant.domain.PhotoUploadResult;
+import com.maxeagan.restaurant.domain.PhotoVariant;
 import com.maxeagan.restaurant.domain.entities.Photo;
+import com.maxeagan.restaurant.exceptions.BaseException;
+import com.maxeagan.restaurant.exceptions.BatchSizeExceededException;
+import com.maxeagan.restaurant.services.PhotoDerivativeService;
+import com.maxeagan.restaurant.services.PhotoMetadataService;
 import com.maxeagan.restaurant.services.PhotoService;
 import com.maxeagan.restaurant.services.StorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of {@link PhotoService} that handles photo uploads and retrieval.
  *
- * Uses {@link StorageService} to persist and access photo files.
+ * Uses {@link StorageService} to persist and access photo files, and
+ * {@link PhotoDerivativeService} to produce and serve resized copies.
+ * Dimensions and placeholders come from {@link PhotoMetadataService}.
+ * Files of a batch upload are stored in parallel on a small bounded pool; when it is saturated
+ * the request thread stores its own files, so a burst of batches cannot queue without limit.
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class PhotoServiceImpl implements PhotoService {
 
     private final StorageService storageService;
+    private final PhotoDerivativeService photoDerivativeService;
+    private final PhotoMetadataService photoMetadataService;
+    private final MeterRegistry meterRegistry;
 
     /**
-     * Uploads a photo by generating a unique ID, storing the file using {@link StorageService},
+     * Whether uploads are named by content hash (identical photos stored once) or by a random UUID.
+     */
+    @Value("${app.storage.content-addressed:true}")
+    private boolean contentAddressed;
+
+    /**
+     * Maximum number of files accepted by {@link #uploadPhotos(List)}.
+     */
+    @Value("${app.photos.upload.batch.max-files:10}")
+    private int maxBatchFiles;
+
+    @Value("${app.photos.upload.batch.worker-threads:4}")
+    private int batchWorkerThreads;
+
+    @Value("${app.photos.upload.batch.queue-capacity:32}")
+    private int batchQueueCapacity;
+
+    private ThreadPoolExecutor batchExecutor;
+
+    @PostConstruct
+    public void init() {
+        batchExecutor = new ThreadPoolExecutor(
+                batchWorkerThreads, batchWorkerThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchQueueCapacity),
+                Thread.ofPlatform().name("photo-uploads-", 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, batchExecutor, "photo.uploads.batch");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdown();
+    }
+
+    /**
+     * Uploads a photo by storing the file using {@link StorageService} under its content hash
+     * (or a generated unique ID when content addressing is disabled),
      * and returning a {@link Photo} entity containing the file URL and upload timestamp.
+     * Resized copies are generated in the background.
      *
      * @param file the image file to upload
      * @return a {@link Photo} entity with metadata for the uploaded image
      */
     @Override
     public Photo uploadPhoto(MultipartFile file) {
-        String photoId = UUID.randomUUID().toString();
-        String url = storageService.store(file, photoId);
+        String url = contentAddressed
+                ? storageService.storeContentAddressed(file)
+                : storageService.store(file, UUID.randomUUID().toString());
 
-        return Photo.builder()
-                .url(url)
-                .uploadDate(LocalDateTime.now())
-                .build();
+        return uploaded(url);
+    }
+
+    /**
+     * Uploads a photo streamed from the request, written to storage in a single pass.
+     *
+     * @param content          the image content
+     * @param originalFilename the file name sent by the client
+     * @return a {@link Photo} entity with metadata for the uploaded image
+     */
+    @Override
+    public Photo uploadPhoto(InputStream content, String originalFilename) {
+        String url = contentAddressed
+                ? storageService.storeContentAddressed(content, originalFilename)
+                : storageService.store(content, originalFilename, UUID.randomUUID().toString());
+
+        return uploaded(url);
+    }
+
+    /**
+     * Stores the files of a batch upload in parallel, each validated on its own.
+     * Rejected files are reported with the reason in their result instead of failing the batch.
+     *
+     * @param files the image files to upload
+     * @return one result per file, in the order given
+     * @throws BatchSizeExceededException if more than the configured maximum number of files is sent
+     */
+    @Override
+    public List<PhotoUploadResult> uploadPhotos(List<MultipartFile> files) {
+        if (files.size() > maxBatchFiles) {
+            throw new BatchSizeExceededException(
+                    "Cannot upload more than " + maxBatchFiles + " photos at once");
+        }
+
+        List<CompletableFuture<PhotoUploadResult>> results = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> uploadOne(file), batchExecutor))
+                .toList();
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    private PhotoUploadResult uploadOne(MultipartFile file) {
+        PhotoUploadResult.PhotoUploadResultBuilder result = PhotoUploadResult.builder()
+                .fileName(file.getOriginalFilename());
+        try {
+            return result.photo(uploadPhoto(file)).build();
+        } catch (BaseException e) {
+            log.warn("Rejected photo {} of batch upload: {}", file.getOriginalFilename(), e.getMessage());
+            return result.error(e.getMessage()).build();
+        } catch (RuntimeException e) {
+            log.error("Failed to store photo {} of batch upload", file.getOriginalFilename(), e);
+            return result.error("Unable to store file").build();
+        }
+    }
+
+    private Photo uploaded(String url) {
+        Photo photo = describePhoto(url, LocalDateTime.now());
+        photoDerivativeService.generateAsync(url);
+        return photo;
     }
 
     /**
@@ -51,4 +170,29 @@ public class PhotoServiceImpl implements PhotoService {
     public Optional<Resource> getPhotoAsResource(String id) {
         return storageService.loadAsResource(id);
     }
+
+    @Override
+    public Optional<PhotoVariant> getPhotoVariant(String id, int width) {
+        return photoDerivativeService.loadDerivative(id, width);
+    }
+
+    /**
+     * Builds the photo metadata, including dimensions, size and placeholders.
+     * Extraction runs once per file at upload; attaching the photo later hits the metadata cache.
+     */
+    @Override
+    public Photo describePhoto(String url, LocalDateTime uploadDate) {
+        Photo.PhotoBuilder photo = Photo.builder()
+                .url(url)
+                .uploadDate(uploadDate)
+                .derivativeWidths(photoDerivativeService.derivativeWidths(url));
+
+        photoMetadataService.extract(url).ifPresent(metadata -> photo
+                .width(metadata.getWidth())
+                .height(metadata.getHeight())
+                .sizeBytes(metadata.getSizeBytes())
+                .dominantColor(metadata.getDominantColor())
+                .blurHash(metadata.getBlurHash()));
+        return photo.build();
+    }
 }
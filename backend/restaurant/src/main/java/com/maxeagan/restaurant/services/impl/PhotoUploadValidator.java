@@ -0,0 +1,134 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.exceptions.StorageException;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Upload checks shared by the {@link com.maxeagan.restaurant.services.StorageService} backends:
+ * size limit, allowed extensions, declared content type and, for streamed uploads, the
+ * file signature (magic bytes).
+ */
+final class PhotoUploadValidator {
+
+    /**
+     * Maximum allowed file size in bytes (5MB).
+     */
+    static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
+
+    /**
+     * Read buffer for streamed uploads; also large enough to hold every file signature.
+     */
+    static final int UPLOAD_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Allowed file extensions for upload.
+     */
+    private static final Set<String> ALLOWED_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif");
+
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF_SIGNATURE = {'G', 'I', 'F', '8'};
+
+    private PhotoUploadValidator() {
+    }
+
+    /**
+     * Validates file size, extension, and content type of an upload.
+     * @param file the uploaded multipart file
+     * @return the lower-case file extension
+     * @throws StorageException if validation fails
+     */
+    static String validate(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new StorageException("Cannot save an empty file");
+        }
+
+        if (file.getSize() > MAX_FILE_SIZE) {
+            throw tooLarge();
+        }
+
+        String extension = validateFilename(file.getOriginalFilename());
+
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new StorageException("Unsupported content type: " + contentType);
+        }
+
+        return extension;
+    }
+
+    /**
+     * Validates the client's file name of an upload and extracts its extension.
+     * @param originalFilename the file name sent by the client
+     * @return the lower-case file extension
+     * @throws StorageException if the name has no allowed extension
+     */
+    static String validateFilename(String originalFilename) {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            throw new StorageException("Invalid original filename");
+        }
+        String cleanFilename = StringUtils.cleanPath(originalFilename);
+
+        String extension = Optional.ofNullable(StringUtils.getFilenameExtension(cleanFilename))
+                .map(String::toLowerCase)
+                .orElseThrow(() -> new StorageException("Missing file extension"));
+
+        if (!ALLOWED_EXTENSIONS.contains(extension)) {
+            throw new StorageException("Unsupported file type: " + extension);
+        }
+        return extension;
+    }
+
+    /**
+     * Checks the next chunk of a streamed upload: the first chunk must start with the signature
+     * of the declared type, and the total must stay within {@link #MAX_FILE_SIZE}.
+     * @param chunk the buffer holding the chunk
+     * @param length the number of bytes of the chunk
+     * @param sizeBefore the number of bytes received before this chunk
+     * @param extension the declared extension
+     * @throws StorageException if the chunk is rejected
+     */
+    static void checkChunk(byte[] chunk, int length, long sizeBefore, String extension) {
+        if (sizeBefore == 0 && !normalizeExtension(extension).equals(sniffExtension(chunk, length))) {
+            throw new StorageException("File content does not match its type: " + extension);
+        }
+        if (sizeBefore + length > MAX_FILE_SIZE) {
+            throw tooLarge();
+        }
+    }
+
+    /**
+     * Identifies an image format from the leading bytes of a file.
+     * @return the normalized extension of the detected format, or null if none is recognized
+     */
+    static String sniffExtension(byte[] header, int length) {
+        if (startsWith(header, length, JPEG_SIGNATURE)) {
+            return "jpg";
+        }
+        if (startsWith(header, length, PNG_SIGNATURE)) {
+            return "png";
+        }
+        if (startsWith(header, length, GIF_SIGNATURE)) {
+            return "gif";
+        }
+        return null;
+    }
+
+    static String normalizeExtension(String extension) {
+        return "jpeg".equals(extension) ? "jpg" : extension;
+    }
+
+    private static boolean startsWith(byte[] header, int length, byte[] signature) {
+        return length >= signature.length
+                && Arrays.equals(header, 0, signature.length, signature, 0, signature.length);
+    }
+
+    private static StorageException tooLarge() {
+        return new StorageException("File too large. Max size is " + (MAX_FILE_SIZE / (1024 * 1024)) + "MB");
+    }
+}
@@ -3,15 +3,20 @@ package com.maxeagan.restaurant.services.impl;
 import com.maxeagan.restaurant.domain.GeoLocation;
 import com.maxeagan.restaurant.domain.entities.Address;
 import com.maxeagan.restaurant.services.GeoLocationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.util.Random;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Service implementation that returns a pseudo-random geolocation
  * within the general Kansas City area for a given address.
+ * The default provider; select {@link GazetteerGeoLocationService} with
+ * <code>app.geocoding.provider=gazetteer</code> for real coordinates.
  */
 @Service
+@ConditionalOnProperty(name = "app.geocoding.provider", havingValue = "random", matchIfMissing = true)
 public class RandomKansasCityGeoLocationService implements GeoLocationService {
 
     /**
@@ -34,8 +39,8 @@ public class RandomKansasCityGeoLocationService implements GeoLocationService {
      * @return a randomly generated {@link GeoLocation} within Kansas City bounds.
      */
     @Override
-    public GeoLocation geoLocate(Address address) {
-        Random random = new Random();
+    public Optional<GeoLocation> geoLocate(Address address) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
 
         // Corrected: Use the LATITUDE bounds for latitude
         double latitude = MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
@@ -43,9 +48,9 @@ public class RandomKansasCityGeoLocationService implements GeoLocationService {
         // Corrected: Use the LONGITUDE bounds for longitude
         double longitude = MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
 
-        return GeoLocation.builder()
+        return Optional.of(GeoLocation.builder()
                 .latitude(latitude)
                 .longitude(longitude)
-                .build();
+                .build());
     }
 }
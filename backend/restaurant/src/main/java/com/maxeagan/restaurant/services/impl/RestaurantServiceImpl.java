@@ -1,26 +1,52 @@
 package com.maxeagan.restaurant.services.impl;
 
+import com.maxeagan.restaurant.cache.RestaurantCache;
+import com.maxeagan.restaurant.concurrency.SingleFlight;
+import com.maxeagan.restaurant.domain.FieldSelection;
 import com.maxeagan.restaurant.domain.GeoLocation;
+import com.maxeagan.restaurant.domain.GeoStatus;
+import com.maxeagan.restaurant.domain.RestaurantBatchResult;
 import com.maxeagan.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.maxeagan.restaurant.domain.RestaurantDetail;
+import com.maxeagan.restaurant.domain.RestaurantPage;
 import com.maxeagan.restaurant.domain.dtos.RestaurantDto;
 import com.maxeagan.restaurant.domain.entities.Address;
 import com.maxeagan.restaurant.domain.entities.Photo;
 import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.domain.entities.Review;
+import com.maxeagan.restaurant.exceptions.BatchSizeExceededException;
 import com.maxeagan.restaurant.exceptions.RestaurantNotFoundException;
 import com.maxeagan.restaurant.repositories.RestaurantRepository;
+import com.maxeagan.restaurant.repositories.RestaurantRepositoryCustom.PageSections;
 import com.maxeagan.restaurant.services.GeoLocationService;
+import com.maxeagan.restaurant.services.PhotoService;
 import com.maxeagan.restaurant.services.RestaurantService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -31,18 +57,84 @@ import java.util.Optional;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class RestaurantServiceImpl implements RestaurantService {
 
     private final RestaurantRepository restaurantRepository;
     private final GeoLocationService geoLocationService;
+    private final PhotoService photoService;
+    private final RestaurantCache restaurantCache;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<BackgroundGeocoder> backgroundGeocoder;
+
+    /**
+     * Number of newest reviews in the detail view.
+     */
+    @Value("${app.restaurants.detail.latest-reviews:10}")
+    private int latestReviews;
+
+    /**
+     * Number of other restaurants suggested on the restaurant page, and how far they may be.
+     */
+    @Value("${app.restaurants.page.nearby.count:5}")
+    private int nearbyCount;
+
+    @Value("${app.restaurants.page.nearby.distance:5km}")
+    private String nearbyDistance;
+
+    /**
+     * Whether the restaurant page may report its per-section timings.
+     */
+    @Value("${app.restaurants.page.debug-timings:false}")
+    private boolean debugTimings;
+
+    /**
+     * Maximum number of IDs accepted by {@link #getRestaurants(List)}.
+     */
+    @Value("${app.restaurants.batch.max-size:100}")
+    private int maxBatchSize;
+
+    /**
+     * Collapse identical lookups and searches that arrive while one is already in flight.
+     */
+    private SingleFlight<String, Optional<Restaurant>> restaurantLookups;
+    private SingleFlight<String, Optional<RestaurantDetail>> detailLookups;
+    private SingleFlight<SearchKey, Page<Restaurant>> restaurantSearches;
+
+    /**
+     * Identifies identical {@link #searchRestaurants} calls.
+     */
+    private record SearchKey(
+            String query, Float minRating, Float latitude, Float longitude, Float radius,
+            List<String> sourceIncludes, Pageable pageable
+    ) {
+    }
+
+    /**
+     * Source paths of DTO properties that are derived or shaped differently in the document.
+     */
+    private static final Map<String, String> DTO_SOURCE_ALIASES = Map.of(
+            "totalReviews", "reviews.id",
+            "geoLocation", "geoLocation"
+    );
+
+    @PostConstruct
+    public void init() {
+        restaurantLookups = new SingleFlight<>("restaurant.get", meterRegistry);
+        detailLookups = new SingleFlight<>("restaurant.detail", meterRegistry);
+        restaurantSearches = new SingleFlight<>("restaurant.search", meterRegistry);
+    }
 
     /**
      * Creates and saves a new {@link Restaurant} entity based on the incoming request.
      * <p>
      * Steps:
      * <ul>
-     *   <li>Resolves geolocation based on the address using {@link GeoLocationService}.</li>
-     *   <li>Converts photo URLs into {@link Photo} entities with timestamps.</li>
+     *   <li>Resolves geolocation based on the address using {@link GeoLocationService};
+     *       an address that cannot be located leaves the restaurant without a location.
+     *       With the {@link BackgroundGeocoder} enabled the restaurant is saved as
+     *       {@link GeoStatus#PENDING} instead and located after the request.</li>
+     *   <li>Converts photo URLs into {@link Photo} entities with timestamps and derivative widths.</li>
      *   <li>Builds and saves a {@link Restaurant} entity via the repository.</li>
      * </ul>
      *
@@ -52,27 +144,23 @@ public class RestaurantServiceImpl implements RestaurantService {
     @Override
     public Restaurant createRestaurant(RestaurantCreateUpdateRequest request) {
         Address address = request.getAddress();
-        GeoLocation geoLocation = geoLocationService.geoLocate(address);
-        GeoPoint geoPoint = new GeoPoint(geoLocation.getLatitude(), geoLocation.getLongitude());
 
         List<String> photoIds = request.getPhotoIds();
         List<Photo> photos = photoIds.stream()
-                .map(photoUrl -> Photo.builder()
-                        .url(photoUrl)
-                        .uploadDate(LocalDateTime.now())
-                        .build()).toList();
+                .map(photoUrl -> photoService.describePhoto(photoUrl, LocalDateTime.now()))
+                .toList();
 
         Restaurant restaurant = Restaurant.builder()
                 .name(request.getName())
                 .contactInformation(request.getContactInformation())
                 .address(address)
-                .geoLocation(geoPoint)
                 .operatingHours(request.getOperatingHours())
                 .averageRating(0f)
                 .photos(photos)
                 .build();
+        applyGeoLocation(restaurant);
 
-        return restaurantRepository.save(restaurant);
+        return enqueueIfPending(restaurantRepository.save(restaurant));
     }
 
     /**
@@ -96,36 +184,56 @@ public class RestaurantServiceImpl implements RestaurantService {
      * @param latitude   optional latitude for geo-distance filtering
      * @param longitude  optional longitude for geo-distance filtering
      * @param radius     optional radius (in miles) for geo-distance filtering
+     * @param fields     the summary fields to fetch; all summary fields if not restricted
      * @param pageable   pagination and sorting information
      * @return a {@link Page} of {@link Restaurant} matching the applied criteria
      */
     public Page<Restaurant> searchRestaurants(
             String query, Float minRating, Float latitude,
-            Float longitude, Float radius, Pageable pageable) {
+            Float longitude, Float radius, FieldSelection fields, Pageable pageable) {
+
+        // Search results are only shown as summaries: never fetch reviews or opening hours.
+        List<String> sourceIncludes = fields.isAll()
+                ? RestaurantRepository.SUMMARY_SOURCE_FIELDS
+                : fields.sourceIncludes("", DTO_SOURCE_ALIASES);
+
+        // Identical concurrent searches share one Elasticsearch request.
+        return restaurantSearches.execute(
+                new SearchKey(query, minRating, latitude, longitude, radius, sourceIncludes, pageable),
+                () -> doSearchRestaurants(query, minRating, latitude, longitude, radius, sourceIncludes, pageable)
+        );
+    }
+
+    private Page<Restaurant> doSearchRestaurants(
+            String query, Float minRating, Float latitude,
+            Float longitude, Float radius, List<String> sourceIncludes, Pageable pageable) {
 
         Float searchMinRating = (minRating == null) ? 0f : minRating;
 
         // Full-featured fuzzy search with rating
         if (query != null && !query.trim().isEmpty()) {
-            return restaurantRepository.findByQueryAndMinRating(query, searchMinRating, pageable);
+            return restaurantRepository.findByQueryAndMinRating(query, searchMinRating, sourceIncludes, pageable);
         }
 
         // Geo search
         if (latitude != null && longitude != null && radius != null) {
-            return restaurantRepository.findByLocationNear(latitude, longitude, radius, pageable);
+            return restaurantRepository.findByLocationNear(latitude, longitude, radius, sourceIncludes, pageable);
         }
 
         // Just rating
         if (minRating != null) {
-            return restaurantRepository.findByAverageRatingGreaterThanEqual(minRating, pageable);
+            return restaurantRepository.findByAverageRatingGreaterThanEqual(minRating, sourceIncludes, pageable);
         }
 
         // Default fallback
-        return restaurantRepository.findAll(pageable);
+        return restaurantRepository.findAllWithSource(sourceIncludes, pageable);
     }
 
     /**
-     * Retrieves a restaurant by its unique id
+     * Retrieves a restaurant by its unique id, served from the {@link RestaurantCache}
+     * when possible. Identical concurrent lookups are coalesced into one.
+     * <p>
+     * The returned instance may be shared with other requests and must not be modified.
      *
      * @param id the unique id of the restaurant
      * @return an {@code Optional} containing the {@code Restaurant} if found,
@@ -133,14 +241,180 @@ public class RestaurantServiceImpl implements RestaurantService {
      */
     @Override
     public Optional<Restaurant> getRestaurant(String id) {
-        return restaurantRepository.findById(id);
+        return restaurantLookups.execute(id, () -> restaurantCache.get(id, restaurantRepository::findById));
+    }
+
+    /**
+     * Serves the detail view from the {@link RestaurantCache}. On a miss it is derived from
+     * the cached restaurant if there is one, and otherwise fetched with a single search that
+     * reads only the newest reviews. Identical concurrent lookups are coalesced into one.
+     * <p>
+     * Sparse fieldsets are served from a cached view as well; otherwise they fetch only the
+     * selected fields (and reviews only if selected) without caching the partial result.
+     *
+     * @param id     the unique id of the restaurant
+     * @param fields the fields the caller needs
+     * @return the detail view, or empty if not found
+     */
+    @Override
+    public Optional<RestaurantDetail> getRestaurantDetail(String id, FieldSelection fields) {
+        if (fields.isAll()) {
+            return detailLookups.execute(id, () -> restaurantCache.getDetail(id,
+                    key -> loadDetail(key, List.of(), latestReviews)));
+        }
+        return restaurantCache.getDetailIfPresent(id)
+                .or(() -> loadDetail(id, fields.sourceIncludes("", DTO_SOURCE_ALIASES),
+                        fields.includes("reviews") ? latestReviews : 0));
+    }
+
+    private Optional<RestaurantDetail> loadDetail(String id, List<String> sourceIncludes, int reviews) {
+        Optional<Restaurant> cached = restaurantCache.getIfPresent(id);
+        if (cached.isPresent()) {
+            return Optional.of(RestaurantDetail.of(cached.get(), latestReviews));
+        }
+        return restaurantRepository.findDetailById(id, sourceIncludes, reviews);
+    }
+
+    /**
+     * Builds the restaurant page from the cache-aware {@link #getRestaurantDetail} plus a single
+     * <code>_msearch</code> for the viewer's review and the nearby restaurants, which needs the
+     * restaurant's location and therefore follows the detail lookup. The first page of reviews
+     * is the detail view's newest reviews, and the viewer's review is read from the cached
+     * restaurant when there is one, so a fully cached page costs one request.
+     *
+     * @param id       the restaurant ID
+     * @param viewerId the ID of the user viewing the page; null for an anonymous viewer
+     * @param timed    whether to record the time spent per section; ignored unless
+     *                 <code>app.restaurants.page.debug-timings</code> is enabled
+     * @return the page, or empty if the restaurant does not exist
+     */
+    @Override
+    public Optional<RestaurantPage> getRestaurantPage(String id, String viewerId, boolean timed) {
+        Map<String, Duration> timings = timed && debugTimings ? new LinkedHashMap<>() : null;
+        long start = System.nanoTime();
+
+        Optional<RestaurantDetail> found = getRestaurantDetail(id, FieldSelection.ALL);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        RestaurantDetail detail = found.get();
+        long detailDone = System.nanoTime();
+
+        // A cached document holds every review, so the viewer's one needs no search.
+        Optional<Review> cachedViewerReview = Optional.empty();
+        Optional<Restaurant> cached = viewerId == null ? Optional.empty() : restaurantCache.getIfPresent(id);
+        if (cached.isPresent()) {
+            cachedViewerReview = newestReviewBy(cached.get(), viewerId);
+        }
+
+        PageSections sections = restaurantRepository.findPageSections(
+                id,
+                cached.isPresent() ? null : viewerId,
+                detail.getRestaurant().getGeoLocation(),
+                nearbyDistance,
+                nearbyCount);
+        long sectionsDone = System.nanoTime();
+
+        if (timings != null) {
+            timings.put("detail", Duration.ofNanos(detailDone - start));
+            timings.put("sections", Duration.ofNanos(sectionsDone - detailDone));
+            sections.took().forEach((section, took) -> timings.put(section + ".took", took));
+            timings.put("total", Duration.ofNanos(sectionsDone - start));
+        }
+
+        return Optional.of(RestaurantPage.builder()
+                .detail(detail)
+                .reviews(new PageImpl<>(
+                        detail.getLatestReviews(),
+                        PageRequest.of(0, latestReviews, Sort.by(Sort.Direction.DESC, "datePosted")),
+                        detail.getReviewCount()))
+                .viewerReview(cachedViewerReview.or(sections::viewerReview).orElse(null))
+                .nearby(sections.nearby())
+                .timings(timings)
+                .build());
+    }
+
+    private static Optional<Review> newestReviewBy(Restaurant restaurant, String userId) {
+        if (restaurant.getReviews() == null) {
+            return Optional.empty();
+        }
+        return restaurant.getReviews().stream()
+                .filter(review -> review.getWrittenBy() != null && userId.equals(review.getWrittenBy().getId()))
+                .max(Comparator.comparing(Review::getDatePosted, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    /**
+     * Takes the version from the {@link RestaurantCache} when the restaurant or its detail view
+     * is cached, so it matches what would be served; otherwise asks Elasticsearch for the
+     * version alone.
+     *
+     * @param id the unique id of the restaurant
+     * @return the current version, or empty if the restaurant does not exist
+     */
+    @Override
+    public Optional<SeqNoPrimaryTerm> getRestaurantVersion(String id) {
+        Optional<Restaurant> cached = restaurantCache.getIfPresent(id)
+                .or(() -> restaurantCache.getDetailIfPresent(id).map(RestaurantDetail::getRestaurant));
+        if (cached.isPresent()) {
+            return Optional.ofNullable(cached.get().getSeqNoPrimaryTerm());
+        }
+        return restaurantRepository.findVersionById(id);
+    }
+
+    /**
+     * Retrieves several restaurants with a single Elasticsearch <code>_mget</code>
+     * that fetches only the fields used by summary views.
+     *
+     * @param ids the restaurant IDs to fetch; duplicates are fetched once and blank IDs ignored
+     * @return the found restaurants in request order, plus the IDs that were not found;
+     *         empty without a request if no IDs were given
+     * @throws BatchSizeExceededException if more than the configured maximum number of
+     *         distinct IDs is requested
+     */
+    @Override
+    public RestaurantBatchResult getRestaurants(List<String> ids) {
+        List<String> distinctIds = ids.stream()
+                .filter(id -> !id.isBlank())
+                .distinct()
+                .toList();
+
+        if (distinctIds.size() > maxBatchSize) {
+            throw new BatchSizeExceededException(
+                    "Cannot fetch more than " + maxBatchSize + " restaurants at once");
+        }
+        if (distinctIds.isEmpty()) {
+            // Elasticsearch rejects an _mget without documents.
+            return RestaurantBatchResult.builder()
+                    .restaurants(List.of())
+                    .missingIds(List.of())
+                    .build();
+        }
+
+        List<Optional<Restaurant>> results = restaurantRepository.findSummariesByIds(distinctIds);
+
+        List<Restaurant> restaurants = new ArrayList<>(distinctIds.size());
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            Optional<Restaurant> restaurant = results.get(i);
+            if (restaurant.isPresent()) {
+                restaurants.add(restaurant.get());
+            } else {
+                missingIds.add(distinctIds.get(i));
+            }
+        }
+
+        return RestaurantBatchResult.builder()
+                .restaurants(restaurants)
+                .missingIds(missingIds)
+                .build();
     }
 
     /**
      * Updates the details of an existing restaurant.
      *
      * <p>If the restaurant with the specified ID does not exist, a {@link RestaurantNotFoundException} is thrown.
-     * This method updates all relevant fields including address, geolocation, contact info, operating hours, and photos.</p>
+     * This method updates all relevant fields including address, geolocation, contact info, operating hours, and photos.
+     * The address is only geocoded again when it differs from the stored one.</p>
      *
      * @param id      the unique identifier of the restaurant to update
      * @param request the request object containing updated restaurant data
@@ -149,35 +423,70 @@ public class RestaurantServiceImpl implements RestaurantService {
      */
     @Override
     public Restaurant updateRestaurant(String id, RestaurantCreateUpdateRequest request) {
-        Restaurant restaurant = getRestaurant(id)
+        Restaurant restaurant = restaurantRepository.findById(id)
                 .orElseThrow(() -> new RestaurantNotFoundException("Restaurant with this ID does not exist: " + id));
 
-        GeoLocation newGeolocation = geoLocationService.geoLocate(
-                request.getAddress()
-        );
-        GeoPoint newGeoPoint = new GeoPoint(newGeolocation.getLatitude(), newGeolocation.getLongitude());
+        // Geocoding is skipped when the address is unchanged.
+        boolean relocate = !Objects.equals(restaurant.getAddress(), request.getAddress())
+                || restaurant.getGeoLocation() == null;
 
         List<String> photoIds = request.getPhotoIds();
         List<Photo> photos = photoIds.stream()
-                .map(photoUrl -> Photo.builder()
-                        .url(photoUrl)
-                        .uploadDate(LocalDateTime.now())
-                        .build()).toList();
+                .map(photoUrl -> photoService.describePhoto(photoUrl, LocalDateTime.now()))
+                .toList();
 
         restaurant.setName(request.getName());
         restaurant.setCuisineType(restaurant.getCuisineType());
         restaurant.setContactInformation(request.getContactInformation());
         restaurant.setAddress(request.getAddress());
-        restaurant.setGeoLocation(newGeoPoint);
+        if (relocate) {
+            applyGeoLocation(restaurant);
+        }
         restaurant.setOperatingHours(request.getOperatingHours());
         restaurant.setPhotos(photos);
 
-        return restaurantRepository.save(restaurant);
+        Restaurant savedRestaurant = enqueueIfPending(restaurantRepository.save(restaurant));
+        restaurantCache.invalidate(id);
+        return savedRestaurant;
 
     }
 
+    /**
+     * Sets the location of a restaurant from its address, or marks it {@link GeoStatus#PENDING}
+     * when the {@link BackgroundGeocoder} is enabled.
+     */
+    private void applyGeoLocation(Restaurant restaurant) {
+        if (backgroundGeocoder.getIfAvailable() != null) {
+            restaurant.setGeoLocation(null);
+            restaurant.setGeoStatus(GeoStatus.PENDING);
+            return;
+        }
+
+        Optional<GeoLocation> geoLocation = geoLocationService.geoLocate(restaurant.getAddress());
+        if (geoLocation.isEmpty()) {
+            log.warn("Could not geolocate address: {}", restaurant.getAddress());
+            restaurant.setGeoLocation(null);
+            restaurant.setGeoStatus(GeoStatus.NOT_FOUND);
+            return;
+        }
+        restaurant.setGeoLocation(new GeoPoint(geoLocation.get().getLatitude(), geoLocation.get().getLongitude()));
+        restaurant.setGeoStatus(GeoStatus.RESOLVED);
+    }
+
+    /**
+     * Hands a saved restaurant to the background geocoder if it is waiting for its location.
+     * Also covers a full save that overwrote a result written in the meantime.
+     */
+    private Restaurant enqueueIfPending(Restaurant saved) {
+        if (saved.getGeoStatus() == GeoStatus.PENDING) {
+            backgroundGeocoder.ifAvailable(geocoder -> geocoder.enqueue(saved));
+        }
+        return saved;
+    }
+
     @Override
     public void deleteRestaurant(String id) {
         restaurantRepository.deleteById(id);
+        restaurantCache.invalidate(id);
     }
 }
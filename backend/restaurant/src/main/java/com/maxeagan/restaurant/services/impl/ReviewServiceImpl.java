@@ -1,5 +1,8 @@
 package com.maxeagan.restaurant.services.impl;
 
+import com.maxeagan.restaurant.cache.RestaurantCache;
+import com.maxeagan.restaurant.concurrency.SingleFlight;
+import com.maxeagan.restaurant.domain.FieldSelection;
 import com.maxeagan.restaurant.domain.ReviewCreateUpdateRequest;
 import com.maxeagan.restaurant.domain.entities.Photo;
 import com.maxeagan.restaurant.domain.entities.Restaurant;
@@ -8,7 +11,10 @@ import com.maxeagan.restaurant.domain.entities.User;
 import com.maxeagan.restaurant.exceptions.RestaurantNotFoundException;
 import com.maxeagan.restaurant.exceptions.ReviewNotAllowedException;
 import com.maxeagan.restaurant.repositories.RestaurantRepository;
+import com.maxeagan.restaurant.services.PhotoService;
 import com.maxeagan.restaurant.services.ReviewService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -25,10 +31,33 @@ import java.util.stream.Collectors;
 public class ReviewServiceImpl implements ReviewService {
 
     private final RestaurantRepository restaurantRepository;
+    private final RestaurantCache restaurantCache;
+    private final PhotoService photoService;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Collapses identical review listings that arrive while one is already in flight.
+     */
+    private SingleFlight<ReviewPageKey, Page<Review>> reviewListings;
+
+    private record ReviewPageKey(String restaurantId, Pageable pageable, FieldSelection fields) {
+    }
+
+    /**
+     * Review fields fetched for every sparse request: the ID to find single reviews and the
+     * properties listings can be sorted by.
+     */
+    private static final List<String> REVIEW_KEY_SOURCE_FIELDS =
+            List.of("reviews.id", "reviews.datePosted", "reviews.rating");
+
+    @PostConstruct
+    public void init() {
+        reviewListings = new SingleFlight<>("review.list", meterRegistry);
+    }
 
     @Override
     public Review createReview(User author, String restaurantId, ReviewCreateUpdateRequest review) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
+        Restaurant restaurant = loadRestaurantForUpdate(restaurantId);
 
         boolean hasExistingReview = restaurant.getReviews().stream()
                 .anyMatch(r -> r.getWrittenBy().getId().equals(author.getId()));
@@ -39,10 +68,9 @@ public class ReviewServiceImpl implements ReviewService {
 
         LocalDateTime now = LocalDateTime.now();
 
-        List<Photo> photos = review.getPhotoIds().stream().map(url -> Photo.builder()
-                .url(url)
-                .uploadDate(now)
-                .build()).toList();
+        List<Photo> photos = review.getPhotoIds().stream()
+                .map(url -> photoService.describePhoto(url, now))
+                .toList();
 
         String reviewId = UUID.randomUUID().toString();
 
@@ -61,15 +89,24 @@ public class ReviewServiceImpl implements ReviewService {
         updateRestaurantAverageRating(restaurant);
 
         Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        restaurantCache.invalidate(restaurantId);
 
         return getReviewFromRestaurant(reviewId, savedRestaurant)
                 .orElseThrow(() -> new RuntimeException(("Error retrieving created review ")));
     }
 
     @Override
-    public Page<Review> listReviews(String restaurantId, Pageable pageable) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
-        List<Review> reviews = restaurant.getReviews();
+    public Page<Review> listReviews(String restaurantId, Pageable pageable, FieldSelection fields) {
+        return reviewListings.execute(
+                new ReviewPageKey(restaurantId, pageable, fields),
+                () -> doListReviews(restaurantId, pageable, fields)
+        );
+    }
+
+    private Page<Review> doListReviews(String restaurantId, Pageable pageable, FieldSelection fields) {
+        Restaurant restaurant = getRestaurantOrThrow(restaurantId, fields);
+        // Sort a copy: the cached restaurant is shared with concurrent readers.
+        List<Review> reviews = new ArrayList<>(restaurant.getReviews());
 
         Sort sort = pageable.getSort();
 
@@ -94,14 +131,14 @@ public class ReviewServiceImpl implements ReviewService {
             return new PageImpl<>(Collections.emptyList(), pageable, reviews.size());
         }
 
-        int end = Math.min(start + pageable.getPageNumber(), reviews.size());
+        int end = Math.min(start + pageable.getPageSize(), reviews.size());
 
         return new PageImpl<>(reviews.subList(start,end), pageable, reviews.size());
     }
 
     @Override
-    public Optional<Review> getReview(String restaurantId, String reviewId) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
+    public Optional<Review> getReview(String restaurantId, String reviewId, FieldSelection fields) {
+        Restaurant restaurant = getRestaurantOrThrow(restaurantId, fields);
 
         return getReviewFromRestaurant(reviewId, restaurant);
     }
@@ -115,7 +152,7 @@ public class ReviewServiceImpl implements ReviewService {
 
     @Override
     public Review updateReview(User author, String restaurantId, String reviewId, ReviewCreateUpdateRequest review) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
+        Restaurant restaurant = loadRestaurantForUpdate(restaurantId);
 
         String authorId = author.getId();
         Review existingReview = getReviewFromRestaurant(reviewId, restaurant)
@@ -135,11 +172,8 @@ public class ReviewServiceImpl implements ReviewService {
 
         existingReview.setPhotos(review.getPhotoIds()
                 .stream()
-                .map(photoId ->
-                        Photo.builder()
-                        .url(photoId)
-                        .uploadDate(LocalDateTime.now())
-                        .build()).toList());
+                .map(photoId -> photoService.describePhoto(photoId, LocalDateTime.now()))
+                .toList());
 
         updateRestaurantAverageRating(restaurant);
 
@@ -151,6 +185,7 @@ public class ReviewServiceImpl implements ReviewService {
         restaurant.setReviews(updatedReviews);
 
         restaurantRepository.save(restaurant);
+        restaurantCache.invalidate(restaurantId);
 
         return existingReview;
 
@@ -158,7 +193,7 @@ public class ReviewServiceImpl implements ReviewService {
 
     @Override
     public void deleteReview(String restaurantId, String reviewId) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
+        Restaurant restaurant = loadRestaurantForUpdate(restaurantId);
         List<Review> filteredReviews = restaurant.getReviews()
                 .stream()
                 .filter(r -> !reviewId.equals(r.getId()))
@@ -169,9 +204,36 @@ public class ReviewServiceImpl implements ReviewService {
         updateRestaurantAverageRating(restaurant);
 
         restaurantRepository.save(restaurant);
+        restaurantCache.invalidate(restaurantId);
+    }
+
+    /**
+     * Returns the cached restaurant, loading it into the cache on a miss. For a sparse
+     * fieldset a miss fetches only the selected review fields instead, without caching the
+     * partial restaurant.
+     */
+    private Restaurant getRestaurantOrThrow(String restaurantId, FieldSelection fields) {
+        Optional<Restaurant> restaurant = fields.isAll()
+                ? restaurantCache.get(restaurantId, restaurantRepository::findById)
+                : restaurantCache.getIfPresent(restaurantId)
+                        .or(() -> restaurantRepository.findByIdWithSource(restaurantId, reviewSourceIncludes(fields)));
+
+        return restaurant.orElseThrow(() -> new RestaurantNotFoundException(
+                "Restaurant with id not found: " + restaurantId)
+        );
+    }
+
+    private static List<String> reviewSourceIncludes(FieldSelection fields) {
+        List<String> includes = new ArrayList<>(REVIEW_KEY_SOURCE_FIELDS);
+        includes.addAll(fields.sourceIncludes("reviews.", Map.of()));
+        return includes;
     }
 
-    private Restaurant getRestaurantOrThrow(String restaurantId) {
+    /**
+     * Loads a private, up-to-date copy of a restaurant that is about to be modified.
+     * Bypasses the cache so shared instances are never mutated.
+     */
+    private Restaurant loadRestaurantForUpdate(String restaurantId) {
         return restaurantRepository.findById(restaurantId)
                 .orElseThrow(() -> new RestaurantNotFoundException(
                         "Restaurant with id not found: " + restaurantId)
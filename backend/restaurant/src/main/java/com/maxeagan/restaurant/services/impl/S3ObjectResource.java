@@ -0,0 +1,101 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.web.RedirectableResource;
+import org.springframework.core.io.AbstractResource;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * An object in an S3 bucket. Size and modification time come from the HEAD request that found
+ * the object; the content is only fetched when {@link #getInputStream()} is called, which does
+ * not happen at all when the client is redirected to a presigned URL instead.
+ */
+class S3ObjectResource extends AbstractResource implements RedirectableResource {
+
+    private final S3Client s3Client;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final String key;
+    private final String fileName;
+    private final long contentLength;
+    private final Instant lastModified;
+    private final Duration presignTtl;
+
+    /**
+     * @param presigner signs redirect URLs, or null to always serve through the application
+     */
+    S3ObjectResource(S3Client s3Client, S3Presigner presigner, String bucket, String key, String fileName,
+                     long contentLength, Instant lastModified, Duration presignTtl) {
+        this.s3Client = s3Client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.key = key;
+        this.fileName = fileName;
+        this.contentLength = contentLength;
+        this.lastModified = lastModified;
+        this.presignTtl = presignTtl;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getFilename() {
+        return fileName;
+    }
+
+    @Override
+    public String getDescription() {
+        return "S3 object [s3://" + bucket + "/" + key + "]";
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified != null ? lastModified.toEpochMilli() : -1;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        try {
+            return s3Client.getObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + getDescription(), e);
+        }
+    }
+
+    @Override
+    public Optional<URI> redirectUri() {
+        if (presigner == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(presigner.presignGetObject(presign -> presign
+                            .signatureDuration(presignTtl)
+                            .getObjectRequest(get -> get.bucket(bucket).key(key)))
+                    .url().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Presigned URL is not a valid URI", e);
+        }
+    }
+
+    @Override
+    public Duration redirectTtl() {
+        return presignTtl;
+    }
+}
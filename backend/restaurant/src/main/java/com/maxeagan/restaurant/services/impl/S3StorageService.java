@@ -0,0 +1,291 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.exceptions.StorageException;
+import com.maxeagan.restaurant.services.StorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for storing files in an S3-compatible object store (AWS S3, MinIO, Ceph, …),
+ * selected with <code>app.storage.backend=s3</code>. Qualified as the storage backend, which
+ * {@link CachingStorageService} wraps when enabled.
+ * <p>
+ * Every object is sent with a single PUT: uploads are at most
+ * {@link PhotoUploadValidator#MAX_FILE_SIZE} bytes, which is the smallest part S3 accepts in a
+ * multipart upload. Streamed uploads are buffered in memory so they can be checked and hashed
+ * before anything is written.
+ * <p>
+ * With <code>app.storage.s3.presigned-redirects=true</code> the loaded resources carry a
+ * presigned GET URL, and {@link com.maxeagan.restaurant.controllers.PhotoController} redirects
+ * clients to the store instead of proxying the bytes.
+ * <p>
+ * Content-addressed objects may be shared by several photos, so nothing is deleted on its own.
+ * Remove unreferenced objects with a bucket lifecycle rule or an offline job instead.
+ */
+@Service
+@Qualifier("storageBackend")
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "s3")
+@Slf4j
+public class S3StorageService implements StorageService {
+
+    private final S3Client s3Client;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final String keyPrefix;
+    private final Duration presignTtl;
+    private final Timer uploadTimer;
+
+    public S3StorageService(
+            S3Client s3Client,
+            S3Presigner presigner,
+            MeterRegistry meterRegistry,
+            @Value("${app.storage.s3.bucket}") String bucket,
+            @Value("${app.storage.s3.key-prefix:}") String keyPrefix,
+            @Value("${app.storage.s3.presigned-redirects:true}") boolean presignedRedirects,
+            @Value("${app.storage.s3.presign-ttl:PT15M}") Duration presignTtl
+    ) {
+        this.s3Client = s3Client;
+        this.presigner = presignedRedirects ? presigner : null;
+        this.bucket = bucket;
+        this.keyPrefix = keyPrefix;
+        this.presignTtl = presignTtl;
+        this.uploadTimer = Timer.builder("storage.s3.upload")
+                .register(meterRegistry);
+        log.info("S3 storage: bucket={}, prefix='{}', presignedRedirects={}",
+                bucket, keyPrefix, presignedRedirects);
+    }
+
+    /**
+     * Validates file size, extension, and content type, then uploads the file under
+     * {@code fileName} plus its extension.
+     * @param file the uploaded multipart file
+     * @param fileName desired name (without extension) for stored file
+     * @return the final stored filename including extension
+     * @throws StorageException if validation fails or file can't be saved
+     */
+    @Override
+    public String store(MultipartFile file, String fileName) {
+        String extension = PhotoUploadValidator.validate(file);
+        String finalFileName = fileName + "." + extension;
+
+        try (InputStream inputStream = file.getInputStream()) {
+            put(finalFileName, inputStream, file.getSize());
+            log.info("Stored file: {}", finalFileName);
+            return finalFileName;
+        } catch (IOException | SdkException e) {
+            log.error("Failed to store file {}", finalFileName, e);
+            throw new StorageException("Failed to store file", e);
+        }
+    }
+
+    /**
+     * Uploads generated content under the exact name given. S3 makes an object visible only once
+     * its upload has completed, so readers never see a partial file.
+     * @param content the bytes to store
+     * @param fileName the final stored filename including extension
+     * @throws StorageException if the file can't be saved
+     */
+    @Override
+    public void store(byte[] content, String fileName) {
+        try {
+            put(fileName, new ByteArrayInputStream(content), content.length);
+            log.debug("Stored generated file: {}", fileName);
+        } catch (SdkException e) {
+            log.error("Failed to store file {}", fileName, e);
+            throw new StorageException("Failed to store file", e);
+        }
+    }
+
+    /**
+     * Hashes the upload and uploads it under its SHA-256, unless an object with that name
+     * already exists.
+     * @param file the uploaded multipart file
+     * @return the stored filename: the hex digest plus the normalized extension
+     * @throws StorageException if validation fails or file can't be saved
+     */
+    @Override
+    public String storeContentAddressed(MultipartFile file) {
+        String extension = PhotoUploadValidator.normalizeExtension(PhotoUploadValidator.validate(file));
+        try {
+            return putContentAddressed(file.getBytes(), extension);
+        } catch (IOException | SdkException e) {
+            log.error("Failed to store content-addressed file", e);
+            throw new StorageException("Failed to store file", e);
+        }
+    }
+
+    /**
+     * Reads the upload into memory, checking the size limit and magic bytes as it arrives,
+     * and uploads it under {@code fileName} plus its extension.
+     * @param content the upload content
+     * @param originalFilename the client's file name, used for its extension
+     * @param fileName desired name (without extension) for stored file
+     * @return the final stored filename including extension
+     * @throws StorageException if validation fails or file can't be saved
+     */
+    @Override
+    public String store(InputStream content, String originalFilename, String fileName) {
+        String extension = PhotoUploadValidator.validateFilename(originalFilename);
+        String finalFileName = fileName + "." + extension;
+
+        try {
+            byte[] bytes = readUpload(content, extension);
+            put(finalFileName, new ByteArrayInputStream(bytes), bytes.length);
+            log.info("Stored file: {}", finalFileName);
+            return finalFileName;
+        } catch (IOException | SdkException e) {
+            log.error("Failed to store file {}", finalFileName, e);
+            throw new StorageException("Failed to store file", e);
+        }
+    }
+
+    /**
+     * Reads the upload into memory like {@link #store(InputStream, String, String)}, then
+     * deduplicates it like {@link #storeContentAddressed(MultipartFile)}.
+     * @param content the upload content
+     * @param originalFilename the client's file name, used for its extension
+     * @return the stored filename: the hex digest plus the normalized extension
+     * @throws StorageException if validation fails or file can't be saved
+     */
+    @Override
+    public String storeContentAddressed(InputStream content, String originalFilename) {
+        String extension = PhotoUploadValidator.normalizeExtension(PhotoUploadValidator.validateFilename(originalFilename));
+        try {
+            return putContentAddressed(readUpload(content, extension), extension);
+        } catch (IOException | SdkException e) {
+            log.error("Failed to store content-addressed file", e);
+            throw new StorageException("Failed to store file", e);
+        }
+    }
+
+    /**
+     * Looks the object up with a HEAD request; its content is fetched only if the resource
+     * is read rather than redirected to.
+     * @param fileName the stored filename to load
+     * @return Optional<Resource> wrapping the object, or empty if it does not exist
+     */
+    @Override
+    public Optional<Resource> loadAsResource(String fileName) {
+        if (fileName.isBlank() || fileName.startsWith(".") || fileName.contains("/") || fileName.contains("\\")) {
+            return Optional.empty();
+        }
+
+        String key = key(fileName);
+        try {
+            HeadObjectResponse head = s3Client.headObject(request -> request.bucket(bucket).key(key));
+            return Optional.of(new S3ObjectResource(s3Client, presigner, bucket, key, fileName,
+                    head.contentLength(), head.lastModified(), presignTtl));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            log.warn("Could not read object: {}", fileName, e);
+            return Optional.empty();
+        } catch (SdkException e) {
+            log.warn("Could not read object: {}", fileName, e);
+            return Optional.empty();
+        }
+    }
+
+    private String putContentAddressed(byte[] content, String extension) {
+        String finalFileName = HexFormat.of().formatHex(sha256().digest(content)) + "." + extension;
+        if (exists(finalFileName)) {
+            log.info("Deduplicated upload into existing object: {}", finalFileName);
+        } else {
+            put(finalFileName, new ByteArrayInputStream(content), content.length);
+            log.info("Stored file: {}", finalFileName);
+        }
+        return finalFileName;
+    }
+
+    private boolean exists(String fileName) {
+        try {
+            s3Client.headObject(request -> request.bucket(bucket).key(key(fileName)));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a streamed upload into memory in a single pass, enforcing the size limit and file
+     * signature as it goes.
+     */
+    private static byte[] readUpload(InputStream content, String extension) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(PhotoUploadValidator.UPLOAD_BUFFER_BYTES);
+        byte[] buffer = new byte[PhotoUploadValidator.UPLOAD_BUFFER_BYTES];
+        long size = 0;
+
+        int read;
+        while ((read = content.readNBytes(buffer, 0, buffer.length)) > 0) {
+            PhotoUploadValidator.checkChunk(buffer, read, size, extension);
+            size += read;
+            bytes.write(buffer, 0, read);
+        }
+        if (size == 0) {
+            throw new StorageException("Cannot save an empty file");
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Uploads {@code size} bytes from {@code content} with a single PUT.
+     */
+    private void put(String fileName, InputStream content, long size) {
+        String key = key(fileName);
+        String contentType = MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+
+        long start = System.nanoTime();
+        s3Client.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                RequestBody.fromInputStream(content, size));
+        uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private String key(String fileName) {
+        return keyPrefix + fileName;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
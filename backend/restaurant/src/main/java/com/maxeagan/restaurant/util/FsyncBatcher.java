@@ -0,0 +1,151 @@
+package com.maxeagan.restaurant.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forces written files to stable storage according to an {@link FsyncMode}.
+ * <p>
+ * In {@link FsyncMode#BATCH} mode callers block in {@link #sync(FileChannel)} while a flusher
+ * thread collects every file handed in within {@code maxDelay} (up to {@code maxBatchSize}),
+ * forces them back to back and then releases all their writers at once. Callers keep their
+ * channel open until {@link #sync} returns.
+ */
+@Slf4j
+public class FsyncBatcher implements AutoCloseable {
+
+    private final FsyncMode mode;
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingSync> pending = new LinkedBlockingQueue<>();
+    private final Timer syncTimer;
+    private final DistributionSummary batchSizes;
+    private final Thread flusher;
+
+    private volatile boolean closed;
+
+    public FsyncBatcher(FsyncMode mode, Duration maxDelay, int maxBatchSize, MeterRegistry meterRegistry) {
+        this.mode = mode;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.syncTimer = Timer.builder("storage.fsync")
+                .description("Time from handing a file to the batcher until it is on stable storage")
+                .tag("mode", mode.name().toLowerCase())
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("storage.fsync.batch.size")
+                .description("Files forced together by one flush")
+                .register(meterRegistry);
+        this.flusher = mode == FsyncMode.BATCH
+                ? Thread.ofPlatform().name("storage-fsync").daemon().start(this::flushLoop)
+                : null;
+    }
+
+    /**
+     * Forces the file's content to stable storage, unless the mode is {@link FsyncMode#NONE}.
+     *
+     * @param channel an open channel of the written file
+     * @throws IOException if the file could not be forced
+     */
+    public void sync(FileChannel channel) throws IOException {
+        if (mode == FsyncMode.NONE) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (mode == FsyncMode.ALWAYS || closed) {
+            channel.force(false);
+        } else {
+            PendingSync request = new PendingSync(channel, new CompletableFuture<>());
+            pending.add(request);
+            if (closed && pending.remove(request)) {
+                // The flusher may already have drained its queue for the last time.
+                channel.force(false);
+            } else {
+                await(request.done());
+            }
+        }
+        syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the flusher thread after forcing everything still queued.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+
+    private static void await(CompletableFuture<Void> done) throws IOException {
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for fsync");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("fsync failed", e.getCause());
+        }
+    }
+
+    private void flushLoop() {
+        List<PendingSync> batch = new ArrayList<>(maxBatchSize);
+        while (!closed) {
+            try {
+                batch.add(pending.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingSync next = pending.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Closing: flush what was collected plus anything still queued.
+            }
+            pending.drainTo(batch);
+            flush(batch);
+            batch.clear();
+        }
+        pending.drainTo(batch);
+        flush(batch);
+    }
+
+    private void flush(List<PendingSync> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (PendingSync request : batch) {
+            try {
+                request.channel().force(false);
+                request.done().complete(null);
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Could not force file to disk", e);
+                request.done().completeExceptionally(e);
+            }
+        }
+        batchSizes.record(batch.size());
+    }
+
+    private record PendingSync(FileChannel channel, CompletableFuture<Void> done) {
+    }
+}
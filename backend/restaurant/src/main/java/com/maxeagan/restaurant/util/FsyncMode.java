@@ -0,0 +1,26 @@
+package com.maxeagan.restaurant.util;
+
+/**
+ * When newly written files are forced to stable storage before they become visible.
+ * Selected with <code>app.storage.fsync.mode</code>.
+ */
+public enum FsyncMode {
+
+    /**
+     * Never forces; the operating system writes the data back on its own schedule.
+     * A crash can leave recently uploaded files empty or truncated.
+     */
+    NONE,
+
+    /**
+     * Each writer forces its own file before returning.
+     */
+    ALWAYS,
+
+    /**
+     * Writers hand their files to a single flusher thread, which forces everything that
+     * arrived within a short window together (group commit), so concurrent uploads share
+     * one round of journal commits instead of queueing behind each other's.
+     */
+    BATCH
+}
@@ -0,0 +1,256 @@
+package com.maxeagan.restaurant.util;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-only, memory-mapped table of coordinates keyed by normalized address, street and
+ * postal code, written by {@link GazetteerBuilder}.
+ * <p>
+ * The file is a 16-byte header followed by fixed-width records sorted by key bytes:
+ * <pre>
+ *   header: int magic "GAZ1", int key width, long record count
+ *   record: key (UTF-8, zero-padded to key width), float latitude, float longitude
+ * </pre>
+ * The key width is that of the longest key in the file, so keys are never truncated and a
+ * longer probe key has no entry.
+ * Lookups binary-search the mapping in place, so they allocate nothing but the probe key and
+ * the operating system's page cache keeps the hot part of the file in memory. A lookup tries
+ * the exact address first, then the street within the postal code, then the postal code alone.
+ * <p>
+ * Instances are thread-safe. The file must stay below 2GB (about 35 million records).
+ */
+public final class Gazetteer implements AutoCloseable {
+
+    static final int MAGIC = 0x47415A31;
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * How precisely a {@link Match} locates the address.
+     */
+    public enum Precision {
+        ADDRESS, STREET, POSTAL_CODE
+    }
+
+    /**
+     * Coordinates found for an address.
+     */
+    public record Match(double latitude, double longitude, Precision precision) {
+    }
+
+    /**
+     * An address reduced to the parts the gazetteer is keyed by, normalized so that spelling
+     * variants (case, punctuation, "Street" vs "St") map to the same entry. Equal queries always
+     * give the same result, which makes them usable as cache keys.
+     */
+    public record Query(String postalCode, String streetNumber, String streetName) {
+
+        public static Query of(String postalCode, String streetNumber, String streetName) {
+            return new Query(normalizePostalCode(postalCode), normalize(streetNumber), normalize(streetName));
+        }
+
+        String addressKey() {
+            return "a|" + postalCode + "|" + streetNumber + "|" + streetName;
+        }
+
+        String streetKey() {
+            return "s|" + postalCode + "|" + streetName;
+        }
+
+        String postalCodeKey() {
+            return "p|" + postalCode;
+        }
+    }
+
+    private static final Map<String, String> ABBREVIATIONS = Map.ofEntries(
+            Map.entry("street", "st"), Map.entry("avenue", "ave"), Map.entry("road", "rd"),
+            Map.entry("boulevard", "blvd"), Map.entry("drive", "dr"), Map.entry("lane", "ln"),
+            Map.entry("parkway", "pkwy"), Map.entry("place", "pl"), Map.entry("court", "ct"),
+            Map.entry("terrace", "ter"), Map.entry("highway", "hwy"), Map.entry("trafficway", "trfy"),
+            Map.entry("north", "n"), Map.entry("south", "s"), Map.entry("east", "e"), Map.entry("west", "w"));
+
+    private final FileChannel channel;
+    private final MappedByteBuffer records;
+    private final int keyWidth;
+    private final int recordBytes;
+    private final int count;
+
+    private Gazetteer(FileChannel channel, MappedByteBuffer records, int keyWidth, int count) {
+        this.channel = channel;
+        this.records = records;
+        this.keyWidth = keyWidth;
+        this.recordBytes = keyWidth + 2 * Float.BYTES;
+        this.count = count;
+    }
+
+    /**
+     * Maps a gazetteer file into memory.
+     *
+     * @param file a file written by {@link GazetteerBuilder}
+     * @return the opened gazetteer
+     * @throws IOException if the file cannot be read or is not a gazetteer
+     */
+    public static Gazetteer open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a gazetteer file or too large: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a gazetteer file: " + file);
+            }
+            int keyWidth = buffer.getInt(4);
+            long count = buffer.getLong(8);
+            if (HEADER_BYTES + count * (keyWidth + 2L * Float.BYTES) != size) {
+                throw new IOException("Truncated gazetteer file: " + file);
+            }
+            return new Gazetteer(channel, buffer, keyWidth, (int) count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Finds the most precise coordinates known for an address.
+     *
+     * @param query the normalized address
+     * @return the coordinates, or empty if not even the postal code is known
+     */
+    public Optional<Match> locate(Query query) {
+        if (query.postalCode().isEmpty()) {
+            return Optional.empty();
+        }
+        if (!query.streetName().isEmpty()) {
+            if (!query.streetNumber().isEmpty()) {
+                Optional<Match> address = find(query.addressKey(), Precision.ADDRESS);
+                if (address.isPresent()) {
+                    return address;
+                }
+            }
+            Optional<Match> street = find(query.streetKey(), Precision.STREET);
+            if (street.isPresent()) {
+                return street;
+            }
+        }
+        return find(query.postalCodeKey(), Precision.POSTAL_CODE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapping itself is released when the buffer is garbage collected.
+        channel.close();
+    }
+
+    private Optional<Match> find(String key, Precision precision) {
+        byte[] utf8 = key.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length > keyWidth) {
+            return Optional.empty();
+        }
+        byte[] probe = Arrays.copyOf(utf8, keyWidth);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = HEADER_BYTES + mid * recordBytes;
+            int comparison = compareKey(offset, probe);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return Optional.of(new Match(
+                        records.getFloat(offset + keyWidth),
+                        records.getFloat(offset + keyWidth + Float.BYTES),
+                        precision));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private int compareKey(int offset, byte[] probe) {
+        for (int i = 0; i < keyWidth; i++) {
+            int difference = Byte.toUnsignedInt(records.get(offset + i)) - Byte.toUnsignedInt(probe[i]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Lower-cases a street name or number, drops punctuation and abbreviates common street
+     * types and directions.
+     */
+    static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return "";
+        }
+        // Hand-rolled rather than a regex split: this runs on every lookup, cached or not.
+        StringBuilder normalized = new StringBuilder(value.length());
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= value.length(); i++) {
+            char c = i < value.length() ? value.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                if (!normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                String word = token.toString();
+                normalized.append(ABBREVIATIONS.getOrDefault(word, word));
+                token.setLength(0);
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Lower-cases a postal code and drops spaces and punctuation; US ZIP+4 codes are reduced
+     * to their five-digit ZIP code.
+     */
+    static String normalizePostalCode(String postalCode) {
+        if (postalCode == null) {
+            return "";
+        }
+        String trimmed = postalCode.strip();
+        if (trimmed.length() == 10 && trimmed.charAt(5) == '-' && isDigits(trimmed, 0, 5) && isDigits(trimmed, 6, 10)) {
+            return trimmed.substring(0, 5);
+        }
+        StringBuilder normalized = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isDigits(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,199 @@
+package com.maxeagan.restaurant.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds a {@link Gazetteer} file from a CSV of address points, e.g. an OpenAddresses extract.
+ * <p>
+ * Columns are found by header name (case-insensitive): <code>LAT</code>/<code>LATITUDE</code>,
+ * <code>LON</code>/<code>LONGITUDE</code>, <code>NUMBER</code>, <code>STREET</code> and
+ * <code>POSTCODE</code>. Besides one entry per address, the builder adds the centroid of every
+ * street within a postal code and of every postal code, so addresses missing from the source
+ * still resolve to their street or area. Rows without a postal code or coordinates are skipped.
+ * Records are as wide as the longest key, so no two keys share a record.
+ */
+@Slf4j
+public final class GazetteerBuilder {
+
+    private GazetteerBuilder() {
+    }
+
+    /**
+     * Reads {@code source} and atomically replaces {@code target} with the gazetteer built from it.
+     *
+     * @param source the CSV of address points
+     * @param target the gazetteer file to write
+     * @return the number of entries written
+     * @throws IOException if the source cannot be read, lacks a required column or the target cannot be written
+     */
+    public static int build(Path source, Path target) throws IOException {
+        Map<String, float[]> addresses = new HashMap<>();
+        Map<String, double[]> streets = new HashMap<>();
+        Map<String, double[]> postalCodes = new HashMap<>();
+        long rows = 0;
+        long skipped = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IOException("Empty gazetteer source: " + source);
+            }
+            List<String> columns = parseCsvLine(header.replace("\uFEFF", ""));
+            int lat = column(columns, source, "lat", "latitude");
+            int lon = column(columns, source, "lon", "longitude");
+            int number = column(columns, source, "number");
+            int street = column(columns, source, "street");
+            int postcode = column(columns, source, "postcode");
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rows++;
+                List<String> fields = parseCsvLine(line);
+                if (fields.size() < columns.size()) {
+                    skipped++;
+                    continue;
+                }
+                Gazetteer.Query query = Gazetteer.Query.of(fields.get(postcode), fields.get(number), fields.get(street));
+                float latitude;
+                float longitude;
+                try {
+                    latitude = Float.parseFloat(fields.get(lat));
+                    longitude = Float.parseFloat(fields.get(lon));
+                } catch (NumberFormatException e) {
+                    skipped++;
+                    continue;
+                }
+                if (query.postalCode().isEmpty()) {
+                    skipped++;
+                    continue;
+                }
+
+                if (!query.streetName().isEmpty()) {
+                    if (!query.streetNumber().isEmpty()) {
+                        addresses.putIfAbsent(query.addressKey(), new float[]{latitude, longitude});
+                    }
+                    accumulate(streets, query.streetKey(), latitude, longitude);
+                }
+                accumulate(postalCodes, query.postalCodeKey(), latitude, longitude);
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(addresses.size() + streets.size() + postalCodes.size());
+        addresses.forEach((key, point) -> entries.add(entry(key, point[0], point[1])));
+        streets.forEach((key, sums) -> entries.add(entry(key, (float) (sums[0] / sums[2]), (float) (sums[1] / sums[2]))));
+        postalCodes.forEach((key, sums) -> entries.add(entry(key, (float) (sums[0] / sums[2]), (float) (sums[1] / sums[2]))));
+        // Normalized keys hold no zero bytes, so this is also the order of the padded keys.
+        entries.sort((a, b) -> Arrays.compareUnsigned(a.key(), b.key()));
+
+        int written = write(entries, target);
+        log.info("Built gazetteer {} from {}: {} rows, {} skipped, {} entries",
+                target, source, rows, skipped, written);
+        return written;
+    }
+
+    private record Entry(byte[] key, float latitude, float longitude) {
+    }
+
+    private static Entry entry(String key, float latitude, float longitude) {
+        return new Entry(key.getBytes(StandardCharsets.UTF_8), latitude, longitude);
+    }
+
+    private static void accumulate(Map<String, double[]> centroids, String key, float latitude, float longitude) {
+        double[] sums = centroids.computeIfAbsent(key, k -> new double[3]);
+        sums[0] += latitude;
+        sums[1] += longitude;
+        sums[2]++;
+    }
+
+    /**
+     * Writes the sorted entries, zero-padded to the longest key, to a temporary file that is
+     * then moved over {@code target}.
+     */
+    private static int write(List<Entry> entries, Path target) throws IOException {
+        int keyWidth = entries.stream().mapToInt(entry -> entry.key().length).max().orElse(0);
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, ".gazetteer-", null);
+        try {
+            try (OutputStream file = Files.newOutputStream(tempFile);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(Gazetteer.MAGIC);
+                out.writeInt(keyWidth);
+                out.writeLong(entries.size());
+                for (Entry entry : entries) {
+                    out.write(Arrays.copyOf(entry.key(), keyWidth));
+                    out.writeFloat(entry.latitude());
+                    out.writeFloat(entry.longitude());
+                }
+            }
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return entries.size();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static int column(List<String> columns, Path source, String... names) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).strip().toLowerCase(Locale.ROOT);
+            for (String name : names) {
+                if (column.equals(name)) {
+                    return i;
+                }
+            }
+        }
+        throw new IOException("Gazetteer source " + source + " has no " + names[0].toUpperCase(Locale.ROOT) + " column");
+    }
+
+    /**
+     * Splits one CSV line, honouring double-quoted fields with <code>""</code> escapes.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,47 @@
+package com.maxeagan.restaurant.web;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.maxeagan.restaurant.domain.FieldSelection;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Applies the <code>fields</code> query parameter to every JSON response, trimming DTOs
+ * annotated with <code>@JsonFilter(FieldSelection.FILTER_ID)</code> to the selected properties.
+ * <p>
+ * Every response gets a filter provider, because Jackson refuses to write filtered DTOs
+ * without one; without the parameter it writes all properties.
+ */
+@RestControllerAdvice
+public class FieldSelectionAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    public static final String FIELDS_PARAMETER = "fields";
+
+    private static final FilterProvider ALL_FIELDS = new SimpleFilterProvider()
+            .addFilter(FieldSelection.FILTER_ID, SimpleBeanPropertyFilter.serializeAll());
+
+    @Override
+    protected void beforeBodyWriteInternal(
+            MappingJacksonValue bodyContainer,
+            MediaType contentType,
+            MethodParameter returnType,
+            ServerHttpRequest request,
+            ServerHttpResponse response
+    ) {
+        FieldSelection selection = request instanceof ServletServerHttpRequest servletRequest
+                ? FieldSelection.parse(servletRequest.getServletRequest().getParameter(FIELDS_PARAMETER))
+                : FieldSelection.ALL;
+
+        bodyContainer.setFilters(selection.isAll()
+                ? ALL_FIELDS
+                : new SimpleFilterProvider().addFilter(FieldSelection.FILTER_ID, new FieldSelectionFilter(selection)));
+    }
+}
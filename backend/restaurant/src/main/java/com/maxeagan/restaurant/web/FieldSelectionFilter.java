@@ -0,0 +1,82 @@
+package com.maxeagan.restaurant.web;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.maxeagan.restaurant.domain.FieldSelection;
+
+/**
+ * Jackson property filter that writes only the properties of a {@link FieldSelection}.
+ * <p>
+ * Properties are skipped while the response is streamed, so no trimmed copy of the DTOs or
+ * intermediate JSON tree is built. Paths are relative to the outermost filtered object, so in
+ * a page of summaries <code>name</code> means each summary's name and <code>photos.url</code>
+ * the URL of each of its photos. The path of top-level properties is their name; only nested
+ * properties build a path string.
+ */
+public class FieldSelectionFilter extends SimpleBeanPropertyFilter {
+
+    /**
+     * Whether instances of a class are written through this filter.
+     */
+    private static final ClassValue<Boolean> FILTERED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            JsonFilter filter = type.getAnnotation(JsonFilter.class);
+            return filter != null && FieldSelection.FILTER_ID.equals(filter.value());
+        }
+    };
+
+    private final FieldSelection selection;
+
+    public FieldSelectionFilter(FieldSelection selection) {
+        this.selection = selection;
+    }
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider, PropertyWriter writer)
+            throws Exception {
+        if (selection.includes(path(gen.getOutputContext(), writer.getName()))) {
+            writer.serializeAsField(pojo, gen, provider);
+        } else if (!gen.canOmitFields()) {
+            writer.serializeAsOmittedField(pojo, gen, provider);
+        }
+    }
+
+    /**
+     * Prefixes the property name with the names of the enclosing properties up to the
+     * outermost filtered object.
+     *
+     * @param context the output context of the object being written
+     * @param name    the property name
+     */
+    private static String path(JsonStreamContext context, String name) {
+        JsonStreamContext root = null;
+        for (JsonStreamContext parent = context.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent.inObject() && isFiltered(parent.getCurrentValue())) {
+                root = parent;
+            }
+        }
+        if (root == null) {
+            return name;
+        }
+
+        StringBuilder path = new StringBuilder(name);
+        for (JsonStreamContext parent = context.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent.inObject()) {
+                path.insert(0, '.').insert(0, parent.getCurrentName());
+            }
+            if (parent == root) {
+                break;
+            }
+        }
+        return path.toString();
+    }
+
+    private static boolean isFiltered(Object value) {
+        return value != null && FILTERED.get(value.getClass());
+    }
+}
@@ -0,0 +1,134 @@
+package com.maxeagan.restaurant.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Hands the body of full photo responses to Tomcat's sendfile support or to a front proxy,
+ * instead of copying it through the JVM.
+ * <p>
+ * Only plain GET requests for files on the local file system are offloaded. HEAD and Range
+ * requests, in-memory resources and (in sendfile mode) files below
+ * <code>app.photos.sendfile-min-bytes</code> keep the regular streaming path, as do all requests
+ * when the connector does not support sendfile. Callers set all response headers before
+ * calling {@link #offload}.
+ */
+@Component
+@Slf4j
+public class PhotoResponseWriter {
+
+    /**
+     * Request attributes understood by Tomcat's HTTP/1.1 connector (see its DefaultServlet).
+     */
+    static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_FILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_FILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final PhotoServingMode mode;
+    private final long sendfileMinBytes;
+    private final String offloadHeader;
+    private final String offloadPrefix;
+    private final Path storageRoot;
+    private final Counter sendfileResponses;
+    private final Counter offloadedResponses;
+
+    public PhotoResponseWriter(
+            MeterRegistry meterRegistry,
+            @Value("${app.photos.serving-mode:sendfile}") PhotoServingMode mode,
+            @Value("${app.photos.sendfile-min-bytes:49152}") long sendfileMinBytes,
+            @Value("${app.photos.offload.header:X-Accel-Redirect}") String offloadHeader,
+            @Value("${app.photos.offload.prefix:/internal/photos/}") String offloadPrefix,
+            @Value("${app.storage.location:uploads}") String storageLocation
+    ) {
+        this.mode = mode;
+        this.sendfileMinBytes = sendfileMinBytes;
+        this.offloadHeader = offloadHeader;
+        this.offloadPrefix = offloadPrefix;
+        this.storageRoot = Paths.get(storageLocation).toAbsolutePath().normalize();
+        this.sendfileResponses = Counter.builder("photo.responses.offloaded")
+                .tag("mode", "sendfile")
+                .register(meterRegistry);
+        this.offloadedResponses = Counter.builder("photo.responses.offloaded")
+                .tag("mode", "proxy")
+                .register(meterRegistry);
+        log.info("Serving photos in {} mode", mode);
+    }
+
+    /**
+     * Checks whether the body of this response can bypass the regular streaming path.
+     *
+     * @param photo   the resolved photo
+     * @param request the current request
+     * @return true if {@link #offload} will transfer the body
+     */
+    public boolean canOffload(Resource photo, HttpServletRequest request) {
+        if (mode == PhotoServingMode.STREAM
+                || !HttpMethod.GET.matches(request.getMethod())
+                || request.getHeader(HttpHeaders.RANGE) != null
+                || !photo.isFile()) {
+            return false;
+        }
+        if (mode == PhotoServingMode.OFFLOAD) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))
+                    && photo.contentLength() >= sendfileMinBytes;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Arranges for the photo body to be sent by Tomcat or the front proxy. Nothing is written
+     * to the response body; headers must already be set.
+     *
+     * @param photo    the resolved photo, accepted by {@link #canOffload}
+     * @param request  the current request
+     * @param response the current response
+     * @throws IOException if the photo file cannot be resolved
+     */
+    public void offload(Resource photo, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        File file = photo.getFile();
+
+        if (mode == PhotoServingMode.OFFLOAD) {
+            response.setHeader(offloadHeader, offloadPrefix + relativePath(file));
+            offloadedResponses.increment();
+            return;
+        }
+
+        long length = file.length();
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentLengthLong(length);
+        request.setAttribute(SENDFILE_FILENAME_ATTR, file.getAbsolutePath());
+        request.setAttribute(SENDFILE_FILE_START_ATTR, 0L);
+        request.setAttribute(SENDFILE_FILE_END_ATTR, length);
+        sendfileResponses.increment();
+    }
+
+    /**
+     * Returns the path of a stored file relative to the storage root (e.g. <code>3f/a2/3fa2…jpg</code>),
+     * which the front proxy maps below its internal location.
+     */
+    private String relativePath(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        if (!path.startsWith(storageRoot)) {
+            return file.getName();
+        }
+        return storageRoot.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,25 @@
+package com.maxeagan.restaurant.web;
+
+/**
+ * How the body of a full photo response is transferred to the client.
+ * Selected with <code>app.photos.serving-mode</code>.
+ */
+public enum PhotoServingMode {
+
+    /**
+     * Spring copies the file through heap buffers into the response stream.
+     */
+    STREAM,
+
+    /**
+     * Tomcat sends the file with <code>FileChannel.transferTo</code> (sendfile), so the bytes go
+     * from the page cache to the socket without being copied into the JVM.
+     */
+    SENDFILE,
+
+    /**
+     * The response carries only headers plus an internal redirect header
+     * (e.g. nginx <code>X-Accel-Redirect</code>), and the front proxy serves the file itself.
+     */
+    OFFLOAD
+}
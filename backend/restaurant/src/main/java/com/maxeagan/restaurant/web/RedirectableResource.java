@@ -0,0 +1,27 @@
+package com.maxeagan.restaurant.web;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A stored file that clients can download directly from where it is stored (e.g. through a
+ * presigned object-store URL), so the application answers with a redirect instead of copying
+ * the bytes through the JVM.
+ */
+public interface RedirectableResource {
+
+    /**
+     * Returns a URL the client can fetch the file from directly.
+     *
+     * @return the URL, or empty if the file must be served by the application
+     */
+    Optional<URI> redirectUri();
+
+    /**
+     * How long clients may reuse a URL returned by {@link #redirectUri()}.
+     *
+     * @return the time the URL stays valid
+     */
+    Duration redirectTtl();
+}
@@ -0,0 +1,70 @@
+package com.maxeagan.restaurant.web;
+
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.http.CacheControl;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Weak ETags for JSON responses built from a single Elasticsearch document, derived from the
+ * document's sequence number and primary term, which change on every write to it.
+ * <p>
+ * Because the tag is known before the response body is built, a matching
+ * <code>If-None-Match</code> can be answered with 304 from the cached document or a source-less
+ * version lookup, without loading or serializing the document. The tags are weak: they identify
+ * the document version, not the bytes, which also lets them survive response compression.
+ */
+public final class VersionETags {
+
+    /**
+     * Lets clients store responses but makes them revalidate before every reuse.
+     */
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache();
+
+    private VersionETags() {
+    }
+
+    /**
+     * @param version the document version
+     * @return the weak ETag, e.g. <code>W/"1-42"</code>
+     */
+    public static String of(SeqNoPrimaryTerm version) {
+        return "W/\"" + version.primaryTerm() + "-" + version.sequenceNumber() + "\"";
+    }
+
+    /**
+     * Returns the ETag of the current document version if it matches {@code ifNoneMatch}.
+     * The version is only looked up when the request is conditional.
+     *
+     * @param ifNoneMatch the request's If-None-Match header, or null
+     * @param version     looks up the current document version
+     * @return the matching ETag to send with a 304, or empty if the full response is needed
+     */
+    public static Optional<String> matching(String ifNoneMatch, Supplier<Optional<SeqNoPrimaryTerm>> version) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return Optional.empty();
+        }
+        return version.get()
+                .map(VersionETags::of)
+                .filter(eTag -> matches(ifNoneMatch, eTag));
+    }
+
+    /**
+     * Weak comparison (RFC 9110, section 8.8.3.2) against a list of entity tags or <code>*</code>.
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        String opaque = stripWeak(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.strip();
+            if (tag.equals("*") || stripWeak(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+}
@@ -0,0 +1,51 @@
+package com.maxeagan.restaurant.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContentHashCacheTest {
+
+    private static final byte[] CONTENT = "photo".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path storage;
+
+    private final ContentHashCache cache = new ContentHashCache(new SimpleMeterRegistry());
+
+    @Test
+    void usesTheNameOfContentAddressedFilesWithoutReadingThem() throws Exception {
+        String hex = HexFormat.of().formatHex(sha256(CONTENT));
+
+        // The file does not exist, so any attempt to read it would fail.
+        assertEquals(hex, cache.hash(new FileSystemResource(storage.resolve(hex + ".jpg"))));
+    }
+
+    @Test
+    void hashesTheContentOfOtherFiles() throws Exception {
+        String expected = Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(CONTENT));
+        String hex = HexFormat.of().formatHex(sha256(CONTENT));
+
+        assertEquals(expected, cache.hash(write("0b6a1f6e-3c55-4c0e-9d8e-0f7f4b1c2a9d.jpg")));
+        // Derivatives keep the name of their original but not its content.
+        assertEquals(expected, cache.hash(write(hex + "_w320.jpg")));
+    }
+
+    private FileSystemResource write(String fileName) throws Exception {
+        return new FileSystemResource(Files.write(storage.resolve(fileName), CONTENT));
+    }
+
+    private static byte[] sha256(byte[] content) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(content);
+    }
+}
@@ -0,0 +1,81 @@
+package com.maxeagan.restaurant.cache;
+
+import com.maxeagan.restaurant.domain.RestaurantDetail;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestaurantCacheTest {
+
+    private static final long MAX_WEIGHT = 1024 * 1024;
+
+    @Test
+    void servesRepeatedReadsFromCache() {
+        RestaurantCache cache = newCache(new LoopbackCacheInvalidationBus());
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("r1", id -> load(id, loads));
+        cache.get("r1", id -> load(id, loads));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void doesNotCacheMissingRestaurants() {
+        RestaurantCache cache = newCache(new LoopbackCacheInvalidationBus());
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("missing", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertTrue(cache.getIfPresent("missing").isEmpty());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidationOnOneNodeEvictsEveryNodeOnTheBus() {
+        LoopbackCacheInvalidationBus bus = new LoopbackCacheInvalidationBus();
+        RestaurantCache writer = newCache(bus);
+        RestaurantCache reader = newCache(bus);
+        AtomicInteger loads = new AtomicInteger();
+
+        writer.get("r1", id -> load(id, loads));
+        reader.get("r1", id -> load(id, loads));
+
+        writer.invalidate("r1");
+
+        assertTrue(writer.getIfPresent("r1").isEmpty());
+        assertTrue(reader.getIfPresent("r1").isEmpty());
+    }
+
+    @Test
+    void invalidationAlsoEvictsTheDetailView() {
+        RestaurantCache cache = newCache(new LoopbackCacheInvalidationBus());
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getDetail("r1", id -> load(id, loads).map(restaurant -> RestaurantDetail.of(restaurant, 10)));
+        assertTrue(cache.getDetailIfPresent("r1").isPresent());
+
+        cache.invalidate("r1");
+
+        assertTrue(cache.getDetailIfPresent("r1").isEmpty());
+    }
+
+    private static RestaurantCache newCache(CacheInvalidationBus bus) {
+        return new RestaurantCache(bus, new SimpleMeterRegistry(), MAX_WEIGHT, MAX_WEIGHT, Duration.ofMinutes(5));
+    }
+
+    private static Optional<Restaurant> load(String id, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return Optional.of(Restaurant.builder().id(id).name("Restaurant " + id).build());
+    }
+}
@@ -0,0 +1,118 @@
+package com.maxeagan.restaurant.concurrency;
+
+import com.maxeagan.restaurant.concurrency.AdaptiveConcurrencyLimiter.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    // Smoothing of 1 applies each estimate in full, which keeps the expected limits exact.
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 50, 1.5, 1.0);
+
+    @Test
+    void rejectsOnceTheLimitIsReached() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(10, limiter.getInFlight());
+
+        limiter.release(FAST, Outcome.IGNORED);
+
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyStaysNearTheNoLoadLatency() {
+        sampleAtFullLoad(FAST);
+        // 10 + sqrt(10)
+        assertEquals(13, limiter.getLimit());
+
+        // 1.4 ms is within the tolerance of 1.5 times the 1 ms baseline.
+        sampleAtFullLoad(TimeUnit.MICROSECONDS.toNanos(1400));
+        assertEquals(16, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        sampleAtFullLoad(FAST);
+        sampleAtFullLoad(FAST);
+        int grown = limiter.getLimit();
+
+        sampleAtFullLoad(SLOW);
+
+        // Gradient bottoms out at 0.5: 16.79 * 0.5 + sqrt(16.79)
+        assertEquals(16, grown);
+        assertEquals(12, limiter.getLimit());
+    }
+
+    @Test
+    void staysWithinItsBounds() {
+        for (int i = 0; i < 50; i++) {
+            sampleAtFullLoad(FAST);
+        }
+        assertEquals(50, limiter.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(SLOW, Outcome.DROPPED);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffMultiplicativelyOnOverload() {
+        assertTrue(limiter.tryAcquire());
+        limiter.release(FAST, Outcome.DROPPED);
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void ignoresLatencyOfCallsUnderLightLoad() {
+        assertTrue(limiter.tryAcquire());
+        limiter.release(FAST, Outcome.SUCCESS);
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void ignoresLatencyOfUnrelatedFailures() {
+        sampleAtFullLoad(FAST);
+        int limit = limiter.getLimit();
+
+        fillToLimit();
+        for (int i = limiter.getInFlight(); i > 0; i--) {
+            limiter.release(SLOW, Outcome.IGNORED);
+        }
+
+        assertEquals(limit, limiter.getLimit());
+    }
+
+    /**
+     * Completes one call with the given latency while every permit is taken.
+     */
+    private void sampleAtFullLoad(long rttNanos) {
+        fillToLimit();
+        limiter.release(rttNanos, Outcome.SUCCESS);
+        for (int i = limiter.getInFlight(); i > 0; i--) {
+            limiter.release(0, Outcome.IGNORED);
+        }
+    }
+
+    private void fillToLimit() {
+        while (limiter.tryAcquire()) {
+            // Take every available permit.
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.maxeagan.restaurant.concurrency;
+
+import com.maxeagan.restaurant.exceptions.ServiceOverloadedException;
+import com.maxeagan.restaurant.repositories.RestaurantRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RepositoryConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // One read and one write permit, so a single call in flight exhausts its budget.
+    private final RepositoryConcurrencyLimiter limiter = new RepositoryConcurrencyLimiter(
+            meterRegistry, true, 7, 1.5, 0.2, 1, 1, 10, 1, 1, 10);
+
+    @Test
+    void shedsCallsOverTheLimit() throws Throwable {
+        AtomicReference<Throwable> nested = new AtomicReference<>();
+        MethodInvocation outer = invocation(read(), () -> {
+            nested.set(assertThrows(Throwable.class, () -> limiter.invoke(invocation(read(), () -> "inner"))));
+            return "outer";
+        });
+
+        assertEquals("outer", limiter.invoke(outer));
+
+        ServiceOverloadedException e = assertInstanceOf(ServiceOverloadedException.class, nested.get());
+        assertEquals(7, e.getRetryAfterSeconds());
+        assertEquals(1, rejections("read"));
+        assertEquals(0, rejections("write"));
+
+        // The permit is returned once the outer call completes.
+        assertEquals("again", limiter.invoke(invocation(read(), () -> "again")));
+    }
+
+    @Test
+    void readsAndWritesHaveSeparateBudgets() throws Throwable {
+        MethodInvocation write = invocation(write(), () -> limiter.invoke(invocation(read(), () -> "read")));
+
+        assertEquals("read", limiter.invoke(write));
+        assertEquals(0, rejections("read"));
+        assertEquals(0, rejections("write"));
+    }
+
+    @Test
+    void overloadSignalsLowerTheLimit() throws Throwable {
+        SimpleMeterRegistry wideRegistry = new SimpleMeterRegistry();
+        RepositoryConcurrencyLimiter wide = new RepositoryConcurrencyLimiter(
+                wideRegistry, true, 1, 1.5, 0.2, 20, 4, 200, 10, 2, 50);
+        QueryTimeoutException timeout = new QueryTimeoutException("timed out");
+
+        assertSame(timeout, assertThrows(QueryTimeoutException.class,
+                () -> wide.invoke(invocation(read(), () -> {
+                    throw timeout;
+                }))));
+        assertThrows(IllegalArgumentException.class, () -> wide.invoke(invocation(read(), () -> {
+            throw new IllegalArgumentException("bad query");
+        })));
+
+        // Only the timeout cuts the limit: 20 * 0.9
+        assertEquals(18, limit(wideRegistry, "read"));
+        assertEquals(10, limit(wideRegistry, "write"));
+    }
+
+    @Test
+    void disabledLimiterPassesCallsThrough() throws Throwable {
+        RepositoryConcurrencyLimiter disabled = new RepositoryConcurrencyLimiter(
+                new SimpleMeterRegistry(), false, 1, 1.5, 0.2, 1, 1, 10, 1, 1, 10);
+        MethodInvocation outer = invocation(read(), () -> disabled.invoke(invocation(read(), () -> "inner")));
+
+        assertEquals("inner", disabled.invoke(outer));
+    }
+
+    private double rejections(String budget) {
+        return meterRegistry.get("elasticsearch.limiter.rejected").tag("budget", budget).counter().count();
+    }
+
+    private static double limit(SimpleMeterRegistry registry, String budget) {
+        return registry.get("elasticsearch.limiter.limit").tag("budget", budget).gauge().value();
+    }
+
+    private static Method read() throws NoSuchMethodException {
+        return RestaurantRepository.class.getMethod("findById", Object.class);
+    }
+
+    private static Method write() throws NoSuchMethodException {
+        return RestaurantRepository.class.getMethod("save", Object.class);
+    }
+
+    private static MethodInvocation invocation(Method method, Call call) throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(method);
+        when(invocation.proceed()).thenAnswer(i -> call.proceed());
+        return invocation;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        Object proceed() throws Throwable;
+    }
+}
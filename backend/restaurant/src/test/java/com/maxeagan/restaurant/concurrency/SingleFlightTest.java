@@ -0,0 +1,143 @@
+package com.maxeagan.restaurant.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 4;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> flight = new SingleFlight<>("test", meterRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = startLeaderAndFollowers("key", () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "value";
+        });
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+        assertEquals(FOLLOWERS / (double) (FOLLOWERS + 1),
+                meterRegistry.get("singleflight.coalescing.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void exceptionReachesEveryWaiter() throws Exception {
+        IllegalStateException failure = new IllegalStateException("backend down");
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = startLeaderAndFollowers("key", () -> {
+            await(release);
+            throw failure;
+        });
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    void keyIsRemovedOnceTheCallCompletes() {
+        AtomicInteger executions = new AtomicInteger();
+
+        assertEquals("1", flight.execute("key", () -> String.valueOf(executions.incrementAndGet())));
+        assertEquals("2", flight.execute("key", () -> String.valueOf(executions.incrementAndGet())));
+
+        // A failed call does not leave the key behind either.
+        assertThrows(IllegalStateException.class, () -> flight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("3", flight.execute("key", () -> String.valueOf(executions.incrementAndGet())));
+    }
+
+    @Test
+    void differentKeysRunIndependently() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        Future<String> a = executor.submit(() -> flight.execute("a", () -> {
+            bothRunning.countDown();
+            await(bothRunning);
+            return "a";
+        }));
+        Future<String> b = executor.submit(() -> flight.execute("b", () -> {
+            bothRunning.countDown();
+            await(bothRunning);
+            return "b";
+        }));
+
+        assertEquals("a", a.get(5, TimeUnit.SECONDS));
+        assertEquals("b", b.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Starts a leader that blocks inside {@code call}, then followers for the same key, and
+     * returns once every follower has joined the flight in progress.
+     */
+    private List<Future<String>> startLeaderAndFollowers(String key, Supplier<String> call)
+            throws InterruptedException {
+        CountDownLatch leaderRunning = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> flight.execute(key, () -> {
+            leaderRunning.countDown();
+            return call.get();
+        })));
+        assertTrue(leaderRunning.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < FOLLOWERS; i++) {
+            results.add(executor.submit(() -> flight.execute(key, () -> "not coalesced")));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (followerCount() < FOLLOWERS) {
+            assertTrue(System.nanoTime() < deadline, "followers did not join the flight");
+            Thread.onSpinWait();
+        }
+        return results;
+    }
+
+    private double followerCount() {
+        return meterRegistry.get("singleflight.calls").tag("role", "follower").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.maxeagan.restaurant.controllers;
+
+import com.maxeagan.restaurant.cache.ContentHashCache;
+import com.maxeagan.restaurant.mappers.PhotoMapperImpl;
+import com.maxeagan.restaurant.services.PhotoDerivativeService;
+import com.maxeagan.restaurant.services.PhotoMetadataService;
+import com.maxeagan.restaurant.services.PhotoService;
+import com.maxeagan.restaurant.services.impl.FileSystemStorageService;
+import com.maxeagan.restaurant.services.impl.PhotoServiceImpl;
+import com.maxeagan.restaurant.web.FieldSelectionAdvice;
+import com.maxeagan.restaurant.web.PhotoResponseWriter;
+import com.maxeagan.restaurant.web.PhotoServingMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PhotoControllerBatchUploadTest {
+
+    private static final int MAX_FILE_SIZE = 5 * 1024 * 1024;
+
+    @TempDir
+    Path storage;
+
+    private PhotoServiceImpl photoService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FileSystemStorageService storageService = new FileSystemStorageService(meterRegistry);
+        ReflectionTestUtils.setField(storageService, "storageLocation", storage.toString());
+        storageService.init();
+
+        photoService = new PhotoServiceImpl(storageService, mock(PhotoDerivativeService.class),
+                mock(PhotoMetadataService.class), meterRegistry);
+        ReflectionTestUtils.setField(photoService, "contentAddressed", true);
+        ReflectionTestUtils.setField(photoService, "maxBatchFiles", 10);
+        ReflectionTestUtils.setField(photoService, "batchWorkerThreads", 2);
+        ReflectionTestUtils.setField(photoService, "batchQueueCapacity", 4);
+        photoService.init();
+
+        mockMvc = mockMvc(photoService, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        photoService.shutdown();
+    }
+
+    @Test
+    void reportsAnOversizedFileWithoutFailingTheBatch() throws Exception {
+        mockMvc.perform(multipart("/api/photos/batch")
+                        .file(jpeg("small.jpg", 100))
+                        .file(jpeg("huge.jpg", MAX_FILE_SIZE + 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].fileName").value("small.jpg"))
+                .andExpect(jsonPath("$[0].photo.url").exists())
+                .andExpect(jsonPath("$[0].error").value(nullValue()))
+                .andExpect(jsonPath("$[1].fileName").value("huge.jpg"))
+                .andExpect(jsonPath("$[1].photo").value(nullValue()))
+                .andExpect(jsonPath("$[1].error").value("File too large. Max size is 5MB"));
+    }
+
+    @Test
+    void answersOversizedRequestsWithPayloadTooLarge() throws Exception {
+        PhotoService rejecting = mock(PhotoService.class);
+        when(rejecting.uploadPhotos(anyList())).thenThrow(new MaxUploadSizeExceededException(60L * 1024 * 1024));
+
+        mockMvc(rejecting, new SimpleMeterRegistry())
+                .perform(multipart("/api/photos/batch").file(jpeg("a.jpg", 100)))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.status").value(413));
+    }
+
+    @Test
+    void containerLeavesTheFileSizeCheckToTheStorageService() throws Exception {
+        Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+
+        assertEquals("-1", properties.getProperty("spring.servlet.multipart.max-file-size"));
+    }
+
+    private static MockMvc mockMvc(PhotoService photoService, SimpleMeterRegistry meterRegistry) {
+        PhotoResponseWriter writer = new PhotoResponseWriter(
+                meterRegistry, PhotoServingMode.STREAM, 0, "X-Accel-Redirect", "/internal/photos/", "");
+        return MockMvcBuilders.standaloneSetup(new PhotoController(
+                        photoService, new PhotoMapperImpl(), new ContentHashCache(meterRegistry), writer))
+                .setControllerAdvice(new ErrorController(), new FieldSelectionAdvice())
+                .build();
+    }
+
+    private static MockMultipartFile jpeg(String name, int size) {
+        byte[] content = new byte[size];
+        content[0] = (byte) 0xFF;
+        content[1] = (byte) 0xD8;
+        content[2] = (byte) 0xFF;
+        return new MockMultipartFile("files", name, "image/jpeg", content);
+    }
+}
@@ -0,0 +1,114 @@
+package com.maxeagan.restaurant.controllers;
+
+import com.maxeagan.restaurant.cache.ContentHashCache;
+import com.maxeagan.restaurant.domain.PhotoVariant;
+import com.maxeagan.restaurant.mappers.PhotoMapper;
+import com.maxeagan.restaurant.services.PhotoService;
+import com.maxeagan.restaurant.web.PhotoResponseWriter;
+import com.maxeagan.restaurant.web.PhotoServingMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PhotoControllerCachingTest {
+
+    @TempDir
+    Path storage;
+
+    private Path file;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.write(storage.resolve("photo.png"), "0123456789".getBytes());
+        mockMvc = mockMvc(PhotoServingMode.STREAM);
+    }
+
+    @Test
+    void servesPhotoWithValidatorsAndImmutableCaching() throws Exception {
+        mockMvc.perform(get("/api/photos/photo.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void doesNotCacheTheOriginalServedForAFailedDerivative() throws Exception {
+        mockMvc.perform(get("/api/photos/photo.png").param("w", "160"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    void returnsNotModifiedForMatchingETag() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/photos/photo.png")).andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/photos/photo.png").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        mockMvc.perform(get("/api/photos/photo.png").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void handsFullResponsesToSendfileWhenTheConnectorSupportsIt() throws Exception {
+        mockMvc(PhotoServingMode.SENDFILE)
+                .perform(get("/api/photos/photo.png").requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", file.toFile().getAbsolutePath()))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void delegatesToFrontProxyInOffloadMode() throws Exception {
+        mockMvc(PhotoServingMode.OFFLOAD)
+                .perform(get("/api/photos/photo.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Accel-Redirect", "/internal/photos/photo.png"))
+                .andExpect(content().string(""));
+    }
+
+    private MockMvc mockMvc(PhotoServingMode mode) {
+        PhotoService photoService = mock(PhotoService.class);
+        when(photoService.getPhotoAsResource("photo.png")).thenReturn(Optional.of(new FileSystemResource(file)));
+        when(photoService.getPhotoVariant("photo.png", 160))
+                .thenReturn(Optional.of(new PhotoVariant(new FileSystemResource(file), true)));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PhotoResponseWriter writer = new PhotoResponseWriter(
+                meterRegistry, mode, 0, "X-Accel-Redirect", "/internal/photos/", storage.toString());
+
+        return MockMvcBuilders.standaloneSetup(new PhotoController(
+                photoService, mock(PhotoMapper.class), new ContentHashCache(meterRegistry), writer)).build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.maxeagan.restaurant.controllers;
+
+import com.maxeagan.restaurant.domain.FieldSelection;
+import com.maxeagan.restaurant.domain.RestaurantDetail;
+import com.maxeagan.restaurant.domain.dtos.RestaurantDto;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.mappers.RestaurantMapper;
+import com.maxeagan.restaurant.services.RestaurantService;
+import com.maxeagan.restaurant.web.FieldSelectionAdvice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RestaurantControllerCachingTest {
+
+    private static final SeqNoPrimaryTerm VERSION = new SeqNoPrimaryTerm(42, 1);
+
+    private final RestaurantService restaurantService = mock(RestaurantService.class);
+    private final RestaurantMapper restaurantMapper = mock(RestaurantMapper.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        Restaurant restaurant = Restaurant.builder().id("r1").name("Joe's").seqNoPrimaryTerm(VERSION).build();
+        when(restaurantService.getRestaurantDetail("r1", FieldSelection.ALL)).thenReturn(Optional.of(detail(restaurant)));
+        when(restaurantService.getRestaurantVersion("r1")).thenReturn(Optional.of(VERSION));
+        when(restaurantMapper.toRestaurantDto(any(RestaurantDetail.class))).thenReturn(RestaurantDto.builder().id("r1").name("Joe's").build());
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new RestaurantController(restaurantService, restaurantMapper))
+                .setControllerAdvice(new FieldSelectionAdvice())
+                .build();
+    }
+
+    @Test
+    void servesRestaurantWithVersionETag() throws Exception {
+        mockMvc.perform(get("/api/restaurants/r1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1-42\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.name").value("Joe's"));
+
+        verify(restaurantService, never()).getRestaurantVersion(any());
+    }
+
+    @Test
+    void answersMatchingETagWithoutLoadingTheRestaurant() throws Exception {
+        mockMvc.perform(get("/api/restaurants/r1").header(HttpHeaders.IF_NONE_MATCH, "\"0-7\", W/\"1-42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1-42\""))
+                .andExpect(content().string(""));
+
+        verify(restaurantService, never()).getRestaurantDetail(any(), any());
+        verify(restaurantMapper, never()).toRestaurantDto(any(RestaurantDetail.class));
+    }
+
+    @Test
+    void trimsResponseToRequestedFields() throws Exception {
+        Restaurant partial = Restaurant.builder().id("r1").name("Joe's").seqNoPrimaryTerm(VERSION).build();
+        when(restaurantService.getRestaurantDetail("r1", FieldSelection.parse("name")))
+                .thenReturn(Optional.of(detail(partial)));
+
+        mockMvc.perform(get("/api/restaurants/r1").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"name\":\"Joe's\"}", true));
+    }
+
+    @Test
+    void servesChangedRestaurantForStaleETag() throws Exception {
+        mockMvc.perform(get("/api/restaurants/r1").header(HttpHeaders.IF_NONE_MATCH, "W/\"1-41\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1-42\""));
+    }
+
+    private static RestaurantDetail detail(Restaurant restaurant) {
+        return RestaurantDetail.builder()
+                .restaurant(restaurant)
+                .latestReviews(List.of())
+                .ratingCounts(Map.of())
+                .build();
+    }
+}
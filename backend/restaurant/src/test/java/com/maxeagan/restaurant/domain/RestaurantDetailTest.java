@@ -0,0 +1,40 @@
+package com.maxeagan.restaurant.domain;
+
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.domain.entities.Review;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestaurantDetailTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    @Test
+    void keepsNewestReviewsAndAggregatesAll() {
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            reviews.add(Review.builder()
+                    .id("rev" + i)
+                    .rating(i % 2 == 0 ? 5 : 3)
+                    .datePosted(NOW.minusDays(i))
+                    .build());
+        }
+        Restaurant restaurant = Restaurant.builder().id("r1").name("Joe's").reviews(reviews).build();
+
+        RestaurantDetail detail = RestaurantDetail.of(restaurant, 2);
+
+        assertEquals(List.of("rev0", "rev1"), detail.getLatestReviews().stream().map(Review::getId).toList());
+        assertEquals(6, detail.getReviewCount());
+        assertEquals(Map.of(3, 3L, 5, 3L), detail.getRatingCounts());
+        assertEquals("Joe's", detail.getRestaurant().getName());
+        assertTrue(detail.getRestaurant().getReviews().isEmpty());
+        assertEquals(6, restaurant.getReviews().size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.maxeagan.restaurant.maintenance;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.maxeagan.restaurant.services.impl.CachingStorageService;
+import com.maxeagan.restaurant.services.impl.FileSystemStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class OrphanedPhotoCollectorTest {
+
+    private static final Instant OLD = Instant.now().minus(Duration.ofDays(10));
+
+    @TempDir
+    Path root;
+
+    private FileSystemStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileSystemStorageService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(storage, "storageLocation", root.toString());
+        storage.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void deletesOnlyUnreferencedFilesPastTheGracePeriod() throws Exception {
+        Path kept = store("aaaa1111.jpg", OLD);
+        Path keptDerivative = store("aaaa1111_w160.jpg", OLD);
+        Path orphan = store("bbbb2222.jpg", OLD);
+        Path orphanDerivative = store("bbbb2222_w160.jpg", OLD);
+        Path attachedMeanwhile = store("cccc3333.png", OLD);
+        Path recent = store("dddd4444.jpg", Instant.now());
+
+        OrphanedPhotoCollector.Report report = collector(false).sweep(storage, Set.of("aaaa1111.jpg"),
+                Instant.now().minus(Duration.ofDays(2)), "cccc3333.png"::equals);
+
+        assertEquals(6, report.scanned());
+        assertEquals(2, report.deleted());
+        assertTrue(Files.exists(kept));
+        assertTrue(Files.exists(keptDerivative));
+        assertFalse(Files.exists(orphan));
+        assertFalse(Files.exists(orphanDerivative));
+        assertTrue(Files.exists(attachedMeanwhile));
+        assertTrue(Files.exists(recent));
+    }
+
+    @Test
+    void dryRunOnlyReports() throws Exception {
+        Path orphan = store("bbbb2222.jpg", OLD);
+
+        OrphanedPhotoCollector.Report report = collector(true).sweep(storage, Set.of(),
+                Instant.now().minus(Duration.ofDays(2)), fileName -> false);
+
+        assertEquals(1, report.orphaned());
+        assertEquals(0, report.deleted());
+        assertTrue(Files.exists(orphan));
+    }
+
+    private Path store(String fileName, Instant lastModified) throws Exception {
+        storage.store(fileName.getBytes(), fileName);
+        Path file = storage.resolve(fileName);
+        Files.setLastModifiedTime(file, FileTime.from(lastModified));
+        return file;
+    }
+
+    @SuppressWarnings("unchecked")
+    private OrphanedPhotoCollector collector(boolean dryRun) {
+        return new OrphanedPhotoCollector(
+                mock(ElasticsearchClient.class),
+                mock(ElasticsearchOperations.class),
+                mock(ObjectProvider.class),
+                mock(ObjectProvider.class),
+                new SimpleMeterRegistry(),
+                Duration.ofDays(2), dryRun, 1, 1000);
+    }
+}
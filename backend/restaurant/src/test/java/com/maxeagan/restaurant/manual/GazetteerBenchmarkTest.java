@@ -0,0 +1,122 @@
+package com.maxeagan.restaurant.manual;
+
+import com.maxeagan.restaurant.domain.entities.Address;
+import com.maxeagan.restaurant.services.impl.GazetteerGeoLocationService;
+import com.maxeagan.restaurant.util.Gazetteer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Manual throughput benchmark of offline geocoding.
+ * <p>
+ * Builds a synthetic gazetteer of {@value #POSTAL_CODES} postal codes with
+ * {@value #STREETS_PER_POSTAL_CODE} streets of {@value #NUMBERS_PER_STREET} addresses each, then
+ * has a fixed number of threads look up random addresses for a fixed time, once straight
+ * against the memory-mapped file and once through the service's cache with a skewed
+ * (mostly repeated) set of addresses, and prints lookups per second. Needs no Elasticsearch,
+ * so it is skipped unless run with <code>-Dbenchmarks=true</code>.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class GazetteerBenchmarkTest {
+
+    private static final int POSTAL_CODES = 200;
+    private static final int STREETS_PER_POSTAL_CODE = 100;
+    private static final int NUMBERS_PER_STREET = 50;
+    private static final int THREADS = 8;
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURE_MILLIS = 10_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void measureLookupsPerSecond() throws Exception {
+        Path source = directory.resolve("addresses.csv");
+        try (BufferedWriter out = Files.newBufferedWriter(source)) {
+            out.write("LON,LAT,NUMBER,STREET,POSTCODE\n");
+            for (int postalCode = 0; postalCode < POSTAL_CODES; postalCode++) {
+                for (int street = 0; street < STREETS_PER_POSTAL_CODE; street++) {
+                    for (int number = 1; number <= NUMBERS_PER_STREET; number++) {
+                        out.write(String.format("%.6f,%.6f,%d,%s,%d%n",
+                                -94.6 + street * 1e-3, 39.0 + postalCode * 1e-3 + number * 1e-5,
+                                number, streetName(street), 64000 + postalCode));
+                    }
+                }
+            }
+        }
+        Path file = directory.resolve("gazetteer.bin");
+
+        GazetteerGeoLocationService service = new GazetteerGeoLocationService(
+                new SimpleMeterRegistry(), file.toString(), source.toString(), 50_000);
+        long buildStart = System.nanoTime();
+        service.init();
+        System.out.printf("build: %d ms, file %d MB%n",
+                (System.nanoTime() - buildStart) / 1_000_000, Files.size(file) / (1024 * 1024));
+
+        try (Gazetteer gazetteer = Gazetteer.open(file)) {
+            IntConsumer uncached = i -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                gazetteer.locate(Gazetteer.Query.of(
+                        String.valueOf(64000 + random.nextInt(POSTAL_CODES)),
+                        String.valueOf(1 + random.nextInt(NUMBERS_PER_STREET * 2)),
+                        streetName(random.nextInt(STREETS_PER_POSTAL_CODE))));
+            };
+            run(uncached, WARMUP_MILLIS);
+            System.out.printf("%-8s threads=%d lookups/s=%.0f%n", "mmap", THREADS,
+                    run(uncached, MEASURE_MILLIS) * 1000.0 / MEASURE_MILLIS);
+        }
+
+        IntConsumer cached = i -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            // Most lookups repeat a small set of addresses, as re-saved restaurants do.
+            int postalCode = random.nextInt(10) < 9 ? random.nextInt(5) : random.nextInt(POSTAL_CODES);
+            service.geoLocate(Address.builder()
+                    .postalCode(String.valueOf(64000 + postalCode))
+                    .streetNumber(String.valueOf(1 + random.nextInt(NUMBERS_PER_STREET)))
+                    .streetName(streetName(random.nextInt(STREETS_PER_POSTAL_CODE)))
+                    .build());
+        };
+        run(cached, WARMUP_MILLIS);
+        System.out.printf("%-8s threads=%d lookups/s=%.0f%n", "cached", THREADS,
+                run(cached, MEASURE_MILLIS) * 1000.0 / MEASURE_MILLIS);
+        service.close();
+    }
+
+    private static String streetName(int street) {
+        return "Street " + street + " Avenue";
+    }
+
+    /**
+     * @return completed lookups
+     */
+    private static long run(IntConsumer lookup, long durationMillis) {
+        AtomicLong lookups = new AtomicLong();
+        long deadline = System.currentTimeMillis() + durationMillis;
+        try (ExecutorService threads = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                threads.execute(() -> {
+                    long done = 0;
+                    while (System.currentTimeMillis() < deadline) {
+                        for (int i = 0; i < 1_000; i++) {
+                            lookup.accept(i);
+                        }
+                        done += 1_000;
+                    }
+                    lookups.addAndGet(done);
+                });
+            }
+        }
+        return lookups.get();
+    }
+}
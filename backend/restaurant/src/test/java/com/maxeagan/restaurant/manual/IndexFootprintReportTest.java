@@ -0,0 +1,94 @@
+package com.maxeagan.restaurant.manual;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.indices.stats.IndicesStats;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manual report of the on-disk size of the restaurant index under different settings
+ * and mappings.
+ * <p>
+ * Indexes the same generated dataset into each configuration, force-merges it to a single
+ * segment and prints store size per restaurant and per review. Requires a running
+ * Elasticsearch.
+ */
+@SpringBootTest
+public class IndexFootprintReportTest {
+
+    private static final int RESTAURANTS = 2_000;
+    private static final int MAX_REVIEWS = 60;
+
+    private static final Map<String, Object> BEST_COMPRESSION =
+            Map.of("index", Map.of("codec", "best_compression"));
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private ElasticsearchClient elasticsearchClient;
+
+    @Test
+    public void reportBytesPerDocument() throws IOException {
+        List<Restaurant> dataset = new RestaurantDatasetGenerator(42).generate(RESTAURANTS, MAX_REVIEWS);
+        long reviews = dataset.stream().mapToLong(restaurant -> restaurant.getReviews().size()).sum();
+
+        Document v2Mapping = Document.parse(new ClassPathResource("mappings/restaurants-object-v2.json")
+                .getContentAsString(StandardCharsets.UTF_8));
+        IndexOperations currentIndexOps = elasticsearchOperations.indexOps(Restaurant.class);
+
+        report("v2 mapping, default codec", "bench_footprint_v2",
+                Map.of(), v2Mapping, dataset, reviews);
+        report("v2 mapping, best_compression", "bench_footprint_v2_compressed",
+                BEST_COMPRESSION, v2Mapping, dataset, reviews);
+        report("current mapping, default codec", "bench_footprint_current_default",
+                Map.of(), currentIndexOps.createMapping(), dataset, reviews);
+        report("current mapping and settings", "bench_footprint_current",
+                currentIndexOps.createSettings(), currentIndexOps.createMapping(), dataset, reviews);
+    }
+
+    private void report(
+            String label,
+            String indexName,
+            Map<String, Object> settings,
+            Document mapping,
+            List<Restaurant> dataset,
+            long reviews) throws IOException {
+        IndexCoordinates index = IndexCoordinates.of(indexName);
+        IndexOperations indexOps = elasticsearchOperations.indexOps(index);
+        indexOps.delete();
+        indexOps.create(settings, mapping);
+
+        for (int from = 0; from < dataset.size(); from += 500) {
+            elasticsearchOperations.save(dataset.subList(from, Math.min(from + 500, dataset.size())), index);
+        }
+        indexOps.refresh();
+        elasticsearchClient.indices().forcemerge(f -> f.index(indexName).maxNumSegments(1L));
+
+        IndicesStats stats = elasticsearchClient.indices()
+                .stats(s -> s.index(indexName))
+                .indices()
+                .get(indexName);
+        long storeBytes = stats.primaries().store().sizeInBytes();
+
+        System.out.printf("%-32s store=%.1f MB bytes/restaurant=%d bytes/review=%d%n",
+                label,
+                storeBytes / (1024.0 * 1024.0),
+                storeBytes / dataset.size(),
+                reviews == 0 ? 0 : storeBytes / reviews);
+
+        indexOps.delete();
+    }
+}
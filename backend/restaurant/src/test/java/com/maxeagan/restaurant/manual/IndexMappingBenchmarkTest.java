@@ -0,0 +1,109 @@
+package com.maxeagan.restaurant.manual;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.indices.stats.IndicesStats;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.StringQuery;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Manual benchmark comparing the legacy all-nested restaurant mapping with the current
+ * mapping, where only reviews are nested.
+ * <p>
+ * Indexes the same generated dataset into both mappings, force-merges them and prints
+ * Lucene document count, store size and search latency. Requires a running Elasticsearch.
+ */
+@SpringBootTest
+public class IndexMappingBenchmarkTest {
+
+    private static final int RESTAURANTS = 2_000;
+    private static final int MAX_REVIEWS = 60;
+    private static final int WARMUP_QUERIES = 100;
+    private static final int MEASURED_QUERIES = 500;
+
+    private static final String SEARCH_QUERY = "{" +
+            " \"bool\": {" +
+            " \"must\": [ {\"range\": {\"averageRating\": {\"gte\": 2}}} ]," +
+            " \"should\": [" +
+            " {\"fuzzy\": {\"name\": {\"value\": \"itallian\", \"fuzziness\": \"AUTO\"}}}," +
+            " {\"fuzzy\": {\"cuisineType\": {\"value\": \"itallian\", \"fuzziness\": \"AUTO\"}}}" +
+            " ]," +
+            " \"minimum_should_match\": 1" +
+            " }" +
+            "}";
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private ElasticsearchClient elasticsearchClient;
+
+    @Test
+    public void compareNestedAndObjectMappings() throws IOException {
+        List<Restaurant> dataset = new RestaurantDatasetGenerator(42).generate(RESTAURANTS, MAX_REVIEWS);
+
+        String legacyMapping = new ClassPathResource("mappings/restaurants-nested-v1.json")
+                .getContentAsString(StandardCharsets.UTF_8);
+        Document currentMapping = elasticsearchOperations.indexOps(Restaurant.class).createMapping();
+
+        report("nested (v1)", load("bench_restaurants_nested", Document.parse(legacyMapping), dataset));
+        report("object (current)", load("bench_restaurants_object", currentMapping, dataset));
+    }
+
+    private IndexCoordinates load(String indexName, Document mapping, List<Restaurant> dataset) throws IOException {
+        IndexCoordinates index = IndexCoordinates.of(indexName);
+        IndexOperations indexOps = elasticsearchOperations.indexOps(index);
+        indexOps.delete();
+        indexOps.create();
+        indexOps.putMapping(mapping);
+
+        for (int from = 0; from < dataset.size(); from += 500) {
+            elasticsearchOperations.save(dataset.subList(from, Math.min(from + 500, dataset.size())), index);
+        }
+        indexOps.refresh();
+        elasticsearchClient.indices().forcemerge(f -> f.index(indexName).maxNumSegments(1L));
+        return index;
+    }
+
+    private void report(String label, IndexCoordinates index) throws IOException {
+        String indexName = index.getIndexName();
+        IndicesStats stats = elasticsearchClient.indices()
+                .stats(s -> s.index(indexName))
+                .indices()
+                .get(indexName);
+
+        long luceneDocs = stats.primaries().docs().count();
+        long storeBytes = stats.primaries().store().sizeInBytes();
+
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            elasticsearchOperations.search(new StringQuery(SEARCH_QUERY), Restaurant.class, index);
+        }
+        long[] latencies = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            long start = System.nanoTime();
+            elasticsearchOperations.search(new StringQuery(SEARCH_QUERY), Restaurant.class, index);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%-12s restaurants=%d luceneDocs=%d store=%.1f MB mean=%.2f ms p95=%.2f ms%n",
+                label,
+                RESTAURANTS,
+                luceneDocs,
+                storeBytes / (1024.0 * 1024.0),
+                Arrays.stream(latencies).average().orElse(0) / 1_000_000.0,
+                latencies[(int) (MEASURED_QUERIES * 0.95)] / 1_000_000.0);
+    }
+}
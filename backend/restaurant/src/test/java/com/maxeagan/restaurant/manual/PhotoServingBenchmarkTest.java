@@ -0,0 +1,107 @@
+package com.maxeagan.restaurant.manual;
+
+import com.maxeagan.restaurant.RestaurantApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Manual throughput benchmark of concurrent photo downloads in each
+ * <code>app.photos.serving-mode</code>.
+ * <p>
+ * Starts the application once per mode against the same storage directory and has a fixed
+ * number of clients download random photos for a fixed time, then prints requests and
+ * megabytes per second. Requires the same environment as the application (Elasticsearch).
+ */
+public class PhotoServingBenchmarkTest {
+
+    private static final int PHOTOS = 200;
+    private static final int PHOTO_BYTES = 512 * 1024;
+    private static final int CLIENTS = 32;
+    private static final long WARMUP_MILLIS = 5_000;
+    private static final long MEASURE_MILLIS = 20_000;
+
+    @TempDir
+    Path storage;
+
+    @Test
+    public void compareServingModes() throws Exception {
+        List<String> photos = new ArrayList<>(PHOTOS);
+        byte[] content = new byte[PHOTO_BYTES];
+        for (int i = 0; i < PHOTOS; i++) {
+            ThreadLocalRandom.current().nextBytes(content);
+            String name = UUID.randomUUID() + ".jpg";
+            Files.write(storage.resolve(name), content);
+            photos.add(name);
+        }
+
+        for (String mode : List.of("stream", "sendfile")) {
+            try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                    new SpringApplicationBuilder(RestaurantApplication.class)
+                            .properties(
+                                    "server.port=0",
+                                    "app.storage.location=" + storage,
+                                    "app.photos.serving-mode=" + mode,
+                                    "app.elasticsearch.migration.enabled=false")
+                            .run()) {
+                String baseUrl = "http://localhost:" + context.getWebServer().getPort() + "/api/photos/";
+                run(baseUrl, photos, WARMUP_MILLIS);
+                long[] result = run(baseUrl, photos, MEASURE_MILLIS);
+
+                System.out.printf("%-8s clients=%d requests/s=%.0f MB/s=%.1f%n",
+                        mode,
+                        CLIENTS,
+                        result[0] * 1000.0 / MEASURE_MILLIS,
+                        result[1] * 1000.0 / MEASURE_MILLIS / (1024 * 1024));
+            }
+        }
+    }
+
+    /**
+     * @return completed requests and bytes received
+     */
+    private static long[] run(String baseUrl, List<String> photos, long durationMillis) {
+        AtomicLong requests = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        long deadline = System.currentTimeMillis() + durationMillis;
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.execute(() -> {
+                    while (System.currentTimeMillis() < deadline) {
+                        String photo = photos.get(ThreadLocalRandom.current().nextInt(photos.size()));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + photo)).build();
+                        try {
+                            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                            requests.incrementAndGet();
+                            bytes.addAndGet(response.body().length);
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Download of " + photo + " failed", e);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        }
+        return new long[]{requests.get(), bytes.get()};
+    }
+}
@@ -0,0 +1,123 @@
+package com.maxeagan.restaurant.manual;
+
+import com.maxeagan.restaurant.domain.entities.Address;
+import com.maxeagan.restaurant.domain.entities.OperatingHours;
+import com.maxeagan.restaurant.domain.entities.Photo;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.domain.entities.Review;
+import com.maxeagan.restaurant.domain.entities.TimeRange;
+import com.maxeagan.restaurant.domain.entities.User;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates a reproducible dataset of restaurants with reviews for the manual index benchmarks.
+ */
+class RestaurantDatasetGenerator {
+
+    private static final String[] CUISINES = {
+            "Chinese", "French", "Indian", "Japanese", "Italian", "Spanish", "Greek", "Korean", "Thai", "American"
+    };
+
+    private static final String[] WORDS = {
+            "great", "food", "service", "friendly", "slow", "tasty", "portion", "price", "atmosphere", "cozy",
+            "noisy", "fresh", "spicy", "sweet", "dessert", "wine", "staff", "table", "booking", "parking"
+    };
+
+    private final Random random;
+
+    RestaurantDatasetGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param count      number of restaurants
+     * @param maxReviews upper bound of reviews per restaurant (uniformly distributed)
+     * @return the generated restaurants, with IDs assigned
+     */
+    List<Restaurant> generate(int count, int maxReviews) {
+        List<Restaurant> restaurants = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String cuisine = CUISINES[random.nextInt(CUISINES.length)];
+            List<Review> reviews = new ArrayList<>();
+            int reviewCount = random.nextInt(maxReviews + 1);
+            for (int r = 0; r < reviewCount; r++) {
+                reviews.add(review());
+            }
+
+            restaurants.add(Restaurant.builder()
+                    .id(UUID.nameUUIDFromBytes(("restaurant-" + i).getBytes()).toString())
+                    .name(cuisine + " Place " + i)
+                    .cuisineType(cuisine)
+                    .contactInformation("+1 816-555-" + (1000 + random.nextInt(9000)))
+                    .averageRating((float) reviews.stream().mapToInt(Review::getRating).average().orElse(0))
+                    .geoLocation(new GeoPoint(39 + random.nextDouble() * 0.75, -94.75 + random.nextDouble() * 0.3))
+                    .address(Address.builder()
+                            .streetNumber(String.valueOf(1 + random.nextInt(999)))
+                            .streetName("Main Street")
+                            .city("Kansas City")
+                            .state("MO")
+                            .postalCode("641" + (10 + random.nextInt(89)))
+                            .country("USA")
+                            .build())
+                    .operatingHours(hours())
+                    .photos(photos(1 + random.nextInt(3)))
+                    .reviews(reviews)
+                    .createdBy(user())
+                    .build());
+        }
+        return restaurants;
+    }
+
+    private Review review() {
+        LocalDateTime posted = LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(random.nextInt(500_000));
+        StringBuilder content = new StringBuilder();
+        int words = 20 + random.nextInt(120);
+        for (int w = 0; w < words; w++) {
+            content.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return Review.builder()
+                .id(UUID.randomUUID().toString())
+                .content(content.toString().trim())
+                .rating(1 + random.nextInt(5))
+                .datePosted(posted)
+                .lastEdited(posted)
+                .photos(photos(random.nextInt(3)))
+                .writtenBy(user())
+                .build();
+    }
+
+    private List<Photo> photos(int count) {
+        List<Photo> photos = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            photos.add(Photo.builder()
+                    .url(UUID.randomUUID() + ".jpg")
+                    .uploadDate(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(random.nextInt(500_000)))
+                    .build());
+        }
+        return photos;
+    }
+
+    private User user() {
+        int n = random.nextInt(100_000);
+        return User.builder()
+                .id(UUID.nameUUIDFromBytes(("user-" + n).getBytes()).toString())
+                .username("user" + n)
+                .givenName("Given" + n)
+                .familyName("Family" + n)
+                .build();
+    }
+
+    private static OperatingHours hours() {
+        TimeRange range = TimeRange.builder().openTime("11:00").closeTime("22:00").build();
+        return OperatingHours.builder()
+                .monday(range).tuesday(range).wednesday(range).thursday(range)
+                .friday(range).saturday(range).sunday(range)
+                .build();
+    }
+}
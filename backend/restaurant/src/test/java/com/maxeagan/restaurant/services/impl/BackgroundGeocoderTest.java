@@ -0,0 +1,131 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.cache.RestaurantCache;
+import com.maxeagan.restaurant.domain.GeoLocation;
+import com.maxeagan.restaurant.domain.GeoStatus;
+import com.maxeagan.restaurant.domain.entities.Address;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.repositories.RestaurantRepository;
+import com.maxeagan.restaurant.repositories.RestaurantRepositoryCustom.GeoLocationUpdate;
+import com.maxeagan.restaurant.services.GeoLocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BackgroundGeocoderTest {
+
+    private final GeoLocationService geoLocationService = mock(GeoLocationService.class);
+    private final RestaurantRepository repository = mock(RestaurantRepository.class);
+    private final RestaurantCache restaurantCache = mock(RestaurantCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<GeoLocationUpdate> written = new ArrayList<>();
+    private BackgroundGeocoder geocoder;
+
+    @AfterEach
+    void tearDown() {
+        geocoder.stop();
+    }
+
+    @Test
+    void writesResultsOfABatchWithOneBulkUpdate() {
+        when(geoLocationService.geoLocate(any())).thenAnswer(invocation -> {
+            Address address = invocation.getArgument(0);
+            return "00000".equals(address.getPostalCode())
+                    ? Optional.empty()
+                    : Optional.of(new GeoLocation(39.1, -94.6));
+        });
+        recordWrites();
+        geocoder = newGeocoder(3);
+
+        geocoder.enqueue(restaurant("a", "64105"));
+        geocoder.enqueue(restaurant("b", "00000"));
+        geocoder.start();
+
+        verify(repository, timeout(2_000)).updateGeoLocations(anyList());
+        verify(restaurantCache, timeout(2_000)).invalidate("b");
+        List<GeoLocationUpdate> updates = sorted();
+        assertEquals(GeoStatus.RESOLVED, updates.get(0).status());
+        assertEquals(39.1, updates.get(0).location().getLat());
+        assertEquals(GeoStatus.NOT_FOUND, updates.get(1).status());
+        assertNull(updates.get(1).location());
+        assertEquals(0.0, meterRegistry.get("geocoding.async.queue.depth").gauge().value());
+    }
+
+    @Test
+    void retriesFailuresBeforeGivingUp() {
+        when(geoLocationService.geoLocate(any())).thenThrow(new IllegalStateException("geocoder down"));
+        recordWrites();
+        geocoder = newGeocoder(3);
+
+        geocoder.enqueue(restaurant("a", "64105"));
+        geocoder.start();
+
+        verify(restaurantCache, timeout(2_000)).invalidate("a");
+        verify(geoLocationService, times(3)).geoLocate(any());
+        assertEquals(GeoStatus.FAILED, sorted().getFirst().status());
+        assertEquals(2.0, meterRegistry.get("geocoding.async.results").tag("result", "retried").counter().count());
+    }
+
+    @Test
+    void geocodesOnlyTheLatestAddressOfARestaurant() {
+        when(geoLocationService.geoLocate(any())).thenReturn(Optional.of(new GeoLocation(39.1, -94.6)));
+        recordWrites();
+        geocoder = newGeocoder(3);
+
+        geocoder.enqueue(restaurant("a", "64105"));
+        geocoder.enqueue(restaurant("a", "64106"));
+        geocoder.start();
+
+        verify(restaurantCache, timeout(2_000)).invalidate("a");
+        verify(geoLocationService, times(1)).geoLocate(any());
+        verify(repository, atLeastOnce()).updateGeoLocations(anyList());
+        assertEquals("64106", sorted().getFirst().address().getPostalCode());
+    }
+
+    private BackgroundGeocoder newGeocoder(int maxAttempts) {
+        return new BackgroundGeocoder(geoLocationService, repository, restaurantCache, meterRegistry,
+                10, 1_000, maxAttempts, Duration.ofMillis(1), 100);
+    }
+
+    private void recordWrites() {
+        doAnswer(invocation -> {
+            synchronized (written) {
+                written.addAll(invocation.getArgument(0));
+            }
+            return null;
+        }).when(repository).updateGeoLocations(anyList());
+    }
+
+    private List<GeoLocationUpdate> sorted() {
+        synchronized (written) {
+            return written.stream().sorted(Comparator.comparing(GeoLocationUpdate::restaurantId)).toList();
+        }
+    }
+
+    private static Restaurant restaurant(String id, String postalCode) {
+        return Restaurant.builder()
+                .id(id)
+                .address(Address.builder().streetNumber("1").streetName("Main St").postalCode(postalCode).build())
+                .geoStatus(GeoStatus.PENDING)
+                .build();
+    }
+}
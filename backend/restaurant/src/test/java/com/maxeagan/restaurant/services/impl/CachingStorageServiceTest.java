@@ -0,0 +1,99 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.services.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class CachingStorageServiceTest {
+
+    private final CountingStorageService backend = new CountingStorageService();
+    private final CachingStorageService storage =
+            new CachingStorageService(backend, new SimpleMeterRegistry(), 1024 * 1024, 1024, 2);
+
+    @Test
+    void admitsFileOnceItIsReadRepeatedly() throws IOException {
+        backend.files.put("hot.jpg", new byte[]{1, 2, 3});
+
+        storage.loadAsResource("hot.jpg");
+        Resource admitted = storage.loadAsResource("hot.jpg").orElseThrow();
+        Resource cached = storage.loadAsResource("hot.jpg").orElseThrow();
+
+        assertInstanceOf(ByteBufferResource.class, cached);
+        assertArrayEquals(new byte[]{1, 2, 3}, cached.getContentAsByteArray());
+        assertArrayEquals(new byte[]{1, 2, 3}, admitted.getContentAsByteArray());
+        assertEquals(2, backend.reads.get());
+    }
+
+    @Test
+    void neverCachesFilesAboveThePerFileLimit() {
+        backend.files.put("large.jpg", new byte[2048]);
+
+        for (int i = 0; i < 5; i++) {
+            storage.loadAsResource("large.jpg");
+        }
+
+        assertEquals(5, backend.reads.get());
+    }
+
+    @Test
+    void writesEvictTheCachedCopy() throws IOException {
+        backend.files.put("photo_w160.jpg", new byte[]{1});
+        storage.loadAsResource("photo_w160.jpg");
+        storage.loadAsResource("photo_w160.jpg");
+
+        storage.store(new byte[]{2}, "photo_w160.jpg");
+
+        assertArrayEquals(new byte[]{2}, storage.loadAsResource("photo_w160.jpg").orElseThrow().getContentAsByteArray());
+    }
+
+    private static class CountingStorageService implements StorageService {
+
+        private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+        private final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public String store(MultipartFile file, String fileName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void store(byte[] content, String fileName) {
+            files.put(fileName, content);
+        }
+
+        @Override
+        public String storeContentAddressed(MultipartFile file) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String store(InputStream content, String originalFilename, String fileName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String storeContentAddressed(InputStream content, String originalFilename) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<Resource> loadAsResource(String id) {
+            reads.incrementAndGet();
+            return Optional.ofNullable(files.get(id)).map(ByteArrayResource::new);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.exceptions.StorageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileSystemStorageServiceTest {
+
+    @TempDir
+    Path root;
+
+    private FileSystemStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileSystemStorageService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(storage, "storageLocation", root.toString());
+        storage.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void storesIdenticalUploadsOnce() throws Exception {
+        String first = storage.storeContentAddressed(upload("menu.jpeg", "same bytes"));
+        String second = storage.storeContentAddressed(upload("copy.jpg", "same bytes"));
+        String other = storage.storeContentAddressed(upload("other.jpg", "other bytes"));
+
+        assertEquals(first, second);
+        assertTrue(first.endsWith(".jpg"));
+        assertEquals(64 + ".jpg".length(), first.length());
+        assertNotEquals(first, other);
+        assertEquals(root.resolve(first.substring(0, 2)).resolve(first.substring(2, 4)).resolve(first),
+                storage.resolve(first));
+        try (var files = Files.walk(root)) {
+            assertEquals(2, files.filter(file -> file.toString().endsWith(".jpg")).count());
+        }
+    }
+
+    @Test
+    void readsFlatFilesUntilTheyAreMovedIntoTheirShard() throws Exception {
+        Files.writeString(root.resolve("legacy.png"), "legacy");
+
+        assertTrue(storage.loadAsResource("legacy.png").isPresent());
+
+        List<String> flatFiles = new ArrayList<>();
+        storage.forEachFlatFile(flatFiles::add);
+        for (String fileName : flatFiles) {
+            storage.moveToShardedLayout(fileName);
+        }
+
+        assertEquals(List.of("legacy.png"), flatFiles);
+        assertFalse(Files.exists(root.resolve("legacy.png")));
+        assertEquals("legacy", storage.loadAsResource("legacy.png").orElseThrow().getContentAsString(UTF_8));
+    }
+
+    @Test
+    void streamsUploadsIntoPlaceInOnePass() throws Exception {
+        byte[] png = png(100_000);
+
+        String name = storage.storeContentAddressed(new ByteArrayInputStream(png), "menu.png");
+
+        assertEquals(storage.storeContentAddressed(new ByteArrayInputStream(png), "copy.png"), name);
+        assertArrayEquals(png, Files.readAllBytes(storage.resolve(name)));
+        try (var files = Files.list(root)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith(".upload-")));
+        }
+    }
+
+    @Test
+    void rejectsStreamedUploadsWithTheWrongSignatureOrSize() throws Exception {
+        assertThrows(StorageException.class, () ->
+                storage.storeContentAddressed(new ByteArrayInputStream(png(100)), "menu.jpg"));
+        assertThrows(StorageException.class, () ->
+                storage.store(new ByteArrayInputStream(png(6 * 1024 * 1024)), "menu.png", "big"));
+
+        try (var files = Files.walk(root)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    private static byte[] png(int size) {
+        byte[] content = new byte[size];
+        byte[] signature = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        System.arraycopy(signature, 0, content, 0, signature.length);
+        for (int i = signature.length; i < size; i++) {
+            content[i] = (byte) i;
+        }
+        return content;
+    }
+
+    private static MockMultipartFile upload(String name, String content) {
+        return new MockMultipartFile("file", name, "image/jpeg", content.getBytes());
+    }
+}
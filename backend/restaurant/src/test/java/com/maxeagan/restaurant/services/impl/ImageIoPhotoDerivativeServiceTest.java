@@ -0,0 +1,127 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.domain.PhotoVariant;
+import com.maxeagan.restaurant.exceptions.StorageException;
+import com.maxeagan.restaurant.services.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageIoPhotoDerivativeServiceTest {
+
+    private final InMemoryStorageService storage = new InMemoryStorageService();
+    private final ImageIoPhotoDerivativeService service = new ImageIoPhotoDerivativeService(
+            storage, new SimpleMeterRegistry(), List.of(160, 480, 1080), 1, 10, 40_000_000L);
+
+    @Test
+    void servesSmallestDerivativeAtLeastAsWideAsRequested() throws IOException {
+        storage.put("photo.jpg", image(2000, 1000, "jpg"));
+
+        Resource derivative = service.loadDerivative("photo.jpg", 400).orElseThrow().getResource();
+
+        BufferedImage image = ImageIO.read(derivative.getInputStream());
+        assertEquals(480, image.getWidth());
+        assertEquals(240, image.getHeight());
+        assertTrue(storage.files.containsKey("photo_w480.jpg"));
+    }
+
+    @Test
+    void servesOriginalWhenItIsNarrowerThanRequested() throws IOException {
+        byte[] original = image(300, 200, "png");
+        storage.put("small.png", original);
+
+        Resource resource = service.loadDerivative("small.png", 480).orElseThrow().getResource();
+
+        assertEquals(original.length, resource.contentLength());
+        assertEquals(List.of(160), service.derivativeWidths("small.png"));
+    }
+
+    @Test
+    void failedGenerationServesTheOriginalWithoutRememberingIt() throws IOException {
+        byte[] original = image(2000, 1000, "jpg");
+        storage.put("photo.jpg", original);
+        storage.failStores = true;
+
+        PhotoVariant fallback = service.loadDerivative("photo.jpg", 400).orElseThrow();
+
+        assertTrue(fallback.isFallback());
+        assertEquals(original.length, fallback.getResource().contentLength());
+
+        storage.failStores = false;
+        PhotoVariant retried = service.loadDerivative("photo.jpg", 400).orElseThrow();
+
+        assertFalse(retried.isFallback());
+        assertEquals(480, ImageIO.read(retried.getResource().getInputStream()).getWidth());
+    }
+
+    @Test
+    void returnsEmptyForMissingPhoto() {
+        assertTrue(service.loadDerivative("missing.jpg", 160).isEmpty());
+        assertTrue(service.derivativeWidths("missing.jpg").isEmpty());
+    }
+
+    private static byte[] image(int width, int height, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+
+    private static class InMemoryStorageService implements StorageService {
+
+        private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+        private volatile boolean failStores;
+
+        void put(String fileName, byte[] content) {
+            files.put(fileName, content);
+        }
+
+        @Override
+        public String store(MultipartFile file, String fileName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void store(byte[] content, String fileName) {
+            if (failStores) {
+                throw new StorageException("Disk full");
+            }
+            files.put(fileName, content);
+        }
+
+        @Override
+        public String storeContentAddressed(MultipartFile file) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String store(InputStream content, String originalFilename, String fileName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String storeContentAddressed(InputStream content, String originalFilename) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<Resource> loadAsResource(String id) {
+            return Optional.ofNullable(files.get(id)).map(ByteArrayResource::new);
+        }
+    }
+}
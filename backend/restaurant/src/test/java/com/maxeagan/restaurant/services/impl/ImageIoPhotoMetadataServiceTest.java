@@ -0,0 +1,70 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.domain.PhotoMetadata;
+import com.maxeagan.restaurant.services.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageIoPhotoMetadataServiceTest {
+
+    private final StorageService storage = mock(StorageService.class);
+    private final ImageIoPhotoMetadataService metadataService =
+            new ImageIoPhotoMetadataService(storage, new SimpleMeterRegistry(), 40_000_000);
+
+    @Test
+    void extractsDimensionsColorAndPlaceholderOnce() throws Exception {
+        byte[] png = png(1200, 800);
+        when(storage.loadAsResource("photo.png")).thenReturn(Optional.of(new ByteArrayResource(png)));
+
+        PhotoMetadata metadata = metadataService.extract("photo.png").orElseThrow();
+        metadataService.extract("photo.png");
+
+        assertEquals(1200, metadata.getWidth());
+        assertEquals(800, metadata.getHeight());
+        assertEquals(png.length, metadata.getSizeBytes());
+        assertEquals("#c81e1e", metadata.getDominantColor());
+        // 4x3 components: 6 characters for size, maximum and DC, plus 2 per AC component.
+        assertEquals(6 + 2 * 11, metadata.getBlurHash().length());
+        verify(storage, times(1)).loadAsResource("photo.png");
+    }
+
+    @Test
+    void reportsNothingForMissingPhotos() {
+        when(storage.loadAsResource("missing.jpg")).thenReturn(Optional.empty());
+
+        assertTrue(metadataService.extract("missing.jpg").isEmpty());
+    }
+
+    /**
+     * A mostly red image with a blue stripe along the left edge.
+     */
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(200, 30, 30));
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 0, width / 4, height);
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
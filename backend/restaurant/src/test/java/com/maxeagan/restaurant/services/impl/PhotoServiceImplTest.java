@@ -0,0 +1,79 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.domain.PhotoUploadResult;
+import com.maxeagan.restaurant.exceptions.BatchSizeExceededException;
+import com.maxeagan.restaurant.exceptions.StorageException;
+import com.maxeagan.restaurant.services.PhotoDerivativeService;
+import com.maxeagan.restaurant.services.PhotoMetadataService;
+import com.maxeagan.restaurant.services.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PhotoServiceImplTest {
+
+    private final StorageService storage = mock(StorageService.class);
+    private PhotoServiceImpl photoService;
+
+    @BeforeEach
+    void setUp() {
+        photoService = new PhotoServiceImpl(storage, mock(PhotoDerivativeService.class),
+                mock(PhotoMetadataService.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(photoService, "contentAddressed", true);
+        ReflectionTestUtils.setField(photoService, "maxBatchFiles", 3);
+        ReflectionTestUtils.setField(photoService, "batchWorkerThreads", 2);
+        ReflectionTestUtils.setField(photoService, "batchQueueCapacity", 1);
+        photoService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        photoService.shutdown();
+    }
+
+    @Test
+    void reportsEachFileInRequestOrder() {
+        when(storage.storeContentAddressed(any(MultipartFile.class))).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            if (file.getOriginalFilename().endsWith(".txt")) {
+                throw new StorageException("Unsupported file type: txt");
+            }
+            return "stored-" + file.getOriginalFilename();
+        });
+
+        List<PhotoUploadResult> results = photoService.uploadPhotos(List.of(
+                upload("a.jpg"), upload("notes.txt"), upload("c.png")));
+
+        assertEquals(List.of("a.jpg", "notes.txt", "c.png"),
+                results.stream().map(PhotoUploadResult::getFileName).toList());
+        assertEquals("stored-a.jpg", results.get(0).getPhoto().getUrl());
+        assertNull(results.get(1).getPhoto());
+        assertEquals("Unsupported file type: txt", results.get(1).getError());
+        assertEquals("stored-c.png", results.get(2).getPhoto().getUrl());
+    }
+
+    @Test
+    void rejectsBatchesAboveTheLimit() {
+        List<MultipartFile> files = Collections.nCopies(4, upload("a.jpg"));
+
+        assertThrows(BatchSizeExceededException.class, () -> photoService.uploadPhotos(files));
+    }
+
+    private static MultipartFile upload(String name) {
+        return new MockMultipartFile("files", name, "image/jpeg", new byte[]{1, 2, 3});
+    }
+}
@@ -0,0 +1,179 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.cache.LoopbackCacheInvalidationBus;
+import com.maxeagan.restaurant.cache.RestaurantCache;
+import com.maxeagan.restaurant.domain.RestaurantBatchResult;
+import com.maxeagan.restaurant.domain.RestaurantDetail;
+import com.maxeagan.restaurant.domain.RestaurantPage;
+import com.maxeagan.restaurant.domain.entities.Restaurant;
+import com.maxeagan.restaurant.domain.entities.Review;
+import com.maxeagan.restaurant.domain.entities.User;
+import com.maxeagan.restaurant.exceptions.BatchSizeExceededException;
+import com.maxeagan.restaurant.repositories.RestaurantRepository;
+import com.maxeagan.restaurant.repositories.RestaurantRepositoryCustom.PageSections;
+import com.maxeagan.restaurant.services.GeoLocationService;
+import com.maxeagan.restaurant.services.PhotoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RestaurantServiceImplTest {
+
+    private static final GeoPoint LOCATION = new GeoPoint(39.1, -94.58);
+
+    private final RestaurantRepository repository = mock(RestaurantRepository.class);
+    private RestaurantCache cache;
+    private RestaurantServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        cache = new RestaurantCache(new LoopbackCacheInvalidationBus(), new SimpleMeterRegistry(),
+                1 << 20, 1 << 20, Duration.ofMinutes(5));
+        service = new RestaurantServiceImpl(repository, mock(GeoLocationService.class), mock(PhotoService.class),
+                cache, new SimpleMeterRegistry(), mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(service, "latestReviews", 2);
+        ReflectionTestUtils.setField(service, "nearbyCount", 3);
+        ReflectionTestUtils.setField(service, "nearbyDistance", "5km");
+        ReflectionTestUtils.setField(service, "debugTimings", true);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 3);
+        service.init();
+    }
+
+    @Test
+    void cachedRestaurantAnswersTheViewerReviewWithoutSearchingForIt() {
+        Restaurant restaurant = restaurant(
+                review("r1", "viewer", 1), review("r2", "other", 2), review("r3", "viewer", 3));
+        cache.get("a", id -> Optional.of(restaurant));
+        Restaurant nearby = Restaurant.builder().id("b").name("Next door").build();
+        when(repository.findPageSections(eq("a"), isNull(), eq(LOCATION), eq("5km"), eq(3)))
+                .thenReturn(new PageSections(Optional.empty(), List.of(nearby), Map.of()));
+
+        RestaurantPage page = service.getRestaurantPage("a", "viewer", false).orElseThrow();
+
+        assertEquals("r3", page.getViewerReview().getId());
+        assertEquals(List.of("r3", "r2"), page.getReviews().getContent().stream().map(Review::getId).toList());
+        assertEquals(3, page.getReviews().getTotalElements());
+        // Clients page on with this size, so it must match the detail view's newest reviews.
+        assertEquals(2, page.getReviews().getSize());
+        assertEquals(List.of(nearby), page.getNearby());
+        assertNull(page.getTimings());
+        verify(repository, never()).findDetailById(anyString(), anyList(), anyInt());
+    }
+
+    @Test
+    void uncachedRestaurantSearchesTheViewerReviewAlongWithNearbyRestaurants() {
+        Review own = review("r1", "viewer", 1);
+        when(repository.findDetailById("a", List.of(), 2)).thenReturn(Optional.of(RestaurantDetail.builder()
+                .restaurant(restaurant())
+                .latestReviews(List.of(review("r9", "other", 9)))
+                .reviewCount(5)
+                .ratingCounts(Map.of())
+                .build()));
+        when(repository.findPageSections(eq("a"), eq("viewer"), eq(LOCATION), eq("5km"), eq(3)))
+                .thenReturn(new PageSections(Optional.of(own), List.of(),
+                        Map.of("viewerReview", Duration.ofMillis(3))));
+
+        RestaurantPage page = service.getRestaurantPage("a", "viewer", true).orElseThrow();
+
+        assertEquals(own, page.getViewerReview());
+        assertEquals(5, page.getReviews().getTotalElements());
+        assertEquals(Duration.ofMillis(3), page.getTimings().get("viewerReview.took"));
+        assertTrue(page.getTimings().keySet().containsAll(List.of("detail", "sections", "total")));
+    }
+
+    @Test
+    void missingRestaurantHasNoPage() {
+        when(repository.findDetailById("missing", List.of(), 2)).thenReturn(Optional.empty());
+
+        assertTrue(service.getRestaurantPage("missing", "viewer", false).isEmpty());
+        verify(repository, never()).findPageSections(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void batchKeepsRequestOrderAndReportsMissingIds() {
+        Restaurant a = Restaurant.builder().id("a").build();
+        Restaurant c = Restaurant.builder().id("c").build();
+        when(repository.findSummariesByIds(List.of("c", "b", "a")))
+                .thenReturn(List.of(Optional.of(c), Optional.empty(), Optional.of(a)));
+
+        RestaurantBatchResult result = service.getRestaurants(List.of("c", "b", "a"));
+
+        assertEquals(List.of(c, a), result.getRestaurants());
+        assertEquals(List.of("b"), result.getMissingIds());
+    }
+
+    @Test
+    void batchFetchesDuplicateIdsOnce() {
+        Restaurant a = Restaurant.builder().id("a").build();
+        when(repository.findSummariesByIds(List.of("a", "b")))
+                .thenReturn(List.of(Optional.of(a), Optional.empty()));
+
+        RestaurantBatchResult result = service.getRestaurants(List.of("a", "b", "a", "b"));
+
+        assertEquals(List.of(a), result.getRestaurants());
+        assertEquals(List.of("b"), result.getMissingIds());
+    }
+
+    @Test
+    void batchRejectsMoreDistinctIdsThanTheLimit() {
+        // Duplicates do not count towards the limit.
+        when(repository.findSummariesByIds(List.of("a", "b", "c")))
+                .thenReturn(List.of(Optional.empty(), Optional.empty(), Optional.empty()));
+        assertEquals(3, service.getRestaurants(List.of("a", "b", "c", "a")).getMissingIds().size());
+
+        assertThrows(BatchSizeExceededException.class, () -> service.getRestaurants(List.of("a", "b", "c", "d")));
+    }
+
+    @Test
+    void emptyBatchIsAnsweredWithoutARequest() {
+        RestaurantBatchResult result = service.getRestaurants(List.of(" ", ""));
+
+        assertTrue(result.getRestaurants().isEmpty());
+        assertTrue(result.getMissingIds().isEmpty());
+        verifyNoInteractions(repository);
+    }
+
+    private static Restaurant restaurant(Review... reviews) {
+        return Restaurant.builder()
+                .id("a")
+                .name("Bistro")
+                .geoLocation(LOCATION)
+                .reviews(List.of(reviews))
+                .build();
+    }
+
+    private static Review review(String id, String userId, int day) {
+        return Review.builder()
+                .id(id)
+                .rating(4)
+                .datePosted(LocalDateTime.of(2024, 1, day, 12, 0))
+                .writtenBy(User.builder().id(userId).build())
+                .build();
+    }
+}
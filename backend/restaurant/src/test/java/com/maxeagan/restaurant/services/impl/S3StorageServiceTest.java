@@ -0,0 +1,219 @@
+package com.maxeagan.restaurant.services.impl;
+
+import com.maxeagan.restaurant.exceptions.StorageException;
+import com.maxeagan.restaurant.web.RedirectableResource;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3StorageServiceTest {
+
+    private static final String BUCKET = "photos";
+
+    private StandInS3 server;
+    private S3Client s3Client;
+    private S3Presigner presigner;
+    private S3StorageService storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StandInS3();
+        URI endpoint = URI.create("http://localhost:" + server.port());
+        var credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test"));
+        var configuration = S3Configuration.builder()
+                .pathStyleAccessEnabled(true)
+                .chunkedEncodingEnabled(false)
+                .build();
+        s3Client = S3Client.builder()
+                .endpointOverride(endpoint)
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration)
+                .httpClientBuilder(ApacheHttpClient.builder().maxConnections(8))
+                .build();
+        presigner = S3Presigner.builder()
+                .endpointOverride(endpoint)
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration)
+                .build();
+        storage = new S3StorageService(s3Client, presigner, new SimpleMeterRegistry(),
+                BUCKET, "", true, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        presigner.close();
+        s3Client.close();
+        server.stop();
+    }
+
+    @Test
+    void storesFilesAndReadsThemBack() throws IOException {
+        byte[] content = jpeg((int) PhotoUploadValidator.MAX_FILE_SIZE);
+        String name = storage.store(new ByteArrayInputStream(content), "large.jpg", "large");
+
+        assertEquals("large.jpg", name);
+        Resource resource = storage.loadAsResource(name).orElseThrow();
+        assertEquals(content.length, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertEquals(1, server.objectPuts.get());
+    }
+
+    @Test
+    void rejectsUploadsOverTheSizeLimitBeforeWriting() {
+        byte[] content = jpeg((int) PhotoUploadValidator.MAX_FILE_SIZE + 1);
+
+        assertThrows(StorageException.class,
+                () -> storage.store(new ByteArrayInputStream(content), "huge.jpg", "huge"));
+        assertTrue(server.objects.isEmpty());
+    }
+
+    @Test
+    void storesIdenticalUploadsOnce() {
+        byte[] content = jpeg(100);
+        String first = storage.storeContentAddressed(new ByteArrayInputStream(content), "menu.jpeg");
+        String second = storage.storeContentAddressed(new ByteArrayInputStream(content), "copy.jpg");
+
+        assertEquals(first, second);
+        assertEquals(64 + ".jpg".length(), first.length());
+        assertEquals(1, server.objectPuts.get());
+    }
+
+    @Test
+    void redirectsToPresignedUrlAndReportsMissingObjects() {
+        storage.store(jpeg(10), "photo.jpg");
+
+        Resource resource = storage.loadAsResource("photo.jpg").orElseThrow();
+        URI location = ((RedirectableResource) resource).redirectUri().orElseThrow();
+        assertEquals("/" + BUCKET + "/photo.jpg", location.getPath());
+        assertTrue(location.getQuery().contains("X-Amz-Signature="));
+        assertTrue(location.getQuery().contains("X-Amz-Expires=600"));
+
+        assertEquals(Optional.empty(), storage.loadAsResource("missing.jpg"));
+        assertEquals(Optional.empty(), storage.loadAsResource("../photo.jpg"));
+    }
+
+    private static byte[] jpeg(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        content[0] = (byte) 0xFF;
+        content[1] = (byte) 0xD8;
+        content[2] = (byte) 0xFF;
+        return content;
+    }
+
+    /**
+     * Minimal path-style S3 endpoint: object HEAD/GET/PUT.
+     */
+    private static class StandInS3 {
+
+        private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final AtomicInteger objectPuts = new AtomicInteger();
+
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        StandInS3() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", this::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                String key = exchange.getRequestURI().getPath().substring(BUCKET.length() + 2);
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                String method = exchange.getRequestMethod();
+
+                if (method.equals("PUT")) {
+                    objects.put(key, body);
+                    objectPuts.incrementAndGet();
+                    exchange.getResponseHeaders().set("ETag", eTag(body));
+                    exchange.sendResponseHeaders(200, -1);
+                } else if (method.equals("HEAD") || method.equals("GET")) {
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("ETag", eTag(object));
+                    exchange.getResponseHeaders().set("Last-Modified",
+                            HTTP_DATE.format(ZonedDateTime.now(ZoneOffset.UTC)));
+                    exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+                    if (method.equals("HEAD")) {
+                        exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                        exchange.sendResponseHeaders(200, -1);
+                    } else {
+                        exchange.sendResponseHeaders(200, object.length);
+                        exchange.getResponseBody().write(object);
+                    }
+                } else {
+                    exchange.sendResponseHeaders(405, -1);
+                }
+            }
+        }
+
+        /**
+         * The SDK checks uploads against the MD5 the store reports as ETag.
+         */
+        private static String eTag(byte[] content) {
+            try {
+                return '"' + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)) + '"';
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
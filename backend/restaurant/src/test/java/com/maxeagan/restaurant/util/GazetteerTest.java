@@ -0,0 +1,81 @@
+package com.maxeagan.restaurant.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GazetteerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fallsBackFromAddressToStreetToPostalCode() throws Exception {
+        Path source = directory.resolve("addresses.csv");
+        Files.writeString(source, """
+                LON,LAT,NUMBER,STREET,UNIT,CITY,POSTCODE
+                -94.5800,39.1000,100,Main Street,,Kansas City,64105
+                -94.5900,39.1200,300,Main Street,,Kansas City,64105
+                -94.6000,39.1400,12,"Grand Boulevard, North",,Kansas City,64106-1234
+                -94.6000,39.1400,12,No Postcode St,,Kansas City,
+                """);
+        Path file = directory.resolve("gazetteer.bin");
+
+        assertEquals(7, GazetteerBuilder.build(source, file));
+
+        try (Gazetteer gazetteer = Gazetteer.open(file)) {
+            Gazetteer.Match exact = gazetteer.locate(Gazetteer.Query.of("64105", "100", "MAIN ST.")).orElseThrow();
+            assertEquals(Gazetteer.Precision.ADDRESS, exact.precision());
+            assertEquals(39.1, exact.latitude(), 1e-5);
+            assertEquals(-94.58, exact.longitude(), 1e-5);
+
+            Gazetteer.Match street = gazetteer.locate(Gazetteer.Query.of("64105", "200", "Main Street")).orElseThrow();
+            assertEquals(Gazetteer.Precision.STREET, street.precision());
+            assertEquals(39.11, street.latitude(), 1e-5);
+
+            Gazetteer.Match area = gazetteer.locate(Gazetteer.Query.of("64105", "1", "Unknown Ave")).orElseThrow();
+            assertEquals(Gazetteer.Precision.POSTAL_CODE, area.precision());
+
+            assertEquals(Gazetteer.Precision.ADDRESS,
+                    gazetteer.locate(Gazetteer.Query.of("64106", "12", "grand blvd n")).orElseThrow().precision());
+            assertTrue(gazetteer.locate(Gazetteer.Query.of("99999", "100", "Main Street")).isEmpty());
+            assertTrue(gazetteer.locate(Gazetteer.Query.of(null, "12", "No Postcode St")).isEmpty());
+        }
+    }
+
+    @Test
+    void doesNotConfuseLongStreetNamesSharingAPrefix() throws Exception {
+        String prefix = "Martin Luther King Junior Memorial Scenic Historic Parkway";
+        Path source = directory.resolve("addresses.csv");
+        Files.writeString(source, "LON,LAT,NUMBER,STREET,POSTCODE\n"
+                + "-94.5800,39.1000,100," + prefix + " East,64105\n"
+                + "-94.5900,39.2000,100," + prefix + " West,64105\n");
+        Path file = directory.resolve("gazetteer.bin");
+        GazetteerBuilder.build(source, file);
+
+        try (Gazetteer gazetteer = Gazetteer.open(file)) {
+            assertEquals(39.1, gazetteer.locate(Gazetteer.Query.of("64105", "100", prefix + " East"))
+                    .orElseThrow().latitude(), 1e-5);
+            assertEquals(39.2, gazetteer.locate(Gazetteer.Query.of("64105", "100", prefix + " West"))
+                    .orElseThrow().latitude(), 1e-5);
+
+            Gazetteer.Match unknown = gazetteer.locate(Gazetteer.Query.of("64105", "100", prefix + " North Extension"))
+                    .orElseThrow();
+            assertEquals(Gazetteer.Precision.POSTAL_CODE, unknown.precision());
+        }
+    }
+
+    @Test
+    void normalizesSpellingVariantsToOneQuery() {
+        assertEquals(Gazetteer.Query.of("64105", "100", "North Main Street"),
+                Gazetteer.Query.of(" 64105-0001 ", "100", "n. main st"));
+        assertEquals("sw1a1aa", Gazetteer.Query.of("SW1A 1AA", null, null).postalCode());
+        assertEquals(List.of("a", "b,c", "d\"e", ""), GazetteerBuilder.parseCsvLine("a,\"b,c\",\"d\"\"e\","));
+    }
+}
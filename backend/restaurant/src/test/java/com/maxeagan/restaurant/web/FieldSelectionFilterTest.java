@@ -0,0 +1,73 @@
+package com.maxeagan.restaurant.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.maxeagan.restaurant.domain.FieldSelection;
+import com.maxeagan.restaurant.domain.dtos.AddressDto;
+import com.maxeagan.restaurant.domain.dtos.PhotoDto;
+import com.maxeagan.restaurant.domain.dtos.RestaurantSummaryDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FieldSelectionFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final RestaurantSummaryDto summary = RestaurantSummaryDto.builder()
+            .id("r1")
+            .name("Joe's")
+            .cuisineType("BBQ")
+            .averageRating(4.5f)
+            .totalReviews(12)
+            .address(AddressDto.builder().streetNumber("1").streetName("Main St").city("Kansas City").build())
+            .photos(List.of(
+                    PhotoDto.builder().url("a.jpg").width(800).blurHash("L").build(),
+                    PhotoDto.builder().url("b.jpg").width(640).blurHash("M").build()))
+            .build();
+
+    @Test
+    void writesOnlySelectedTopLevelFields() throws Exception {
+        assertEquals("{\"id\":\"r1\",\"name\":\"Joe's\",\"averageRating\":4.5}",
+                write(summary, "id,name,averageRating"));
+    }
+
+    @Test
+    void keepsParentsOfSelectedNestedFields() throws Exception {
+        assertEquals("{\"name\":\"Joe's\",\"address\":{\"city\":\"Kansas City\"},"
+                        + "\"photos\":[{\"url\":\"a.jpg\"},{\"url\":\"b.jpg\"}]}",
+                write(summary, "name,address.city,photos.url"));
+    }
+
+    @Test
+    void resolvesPathsRelativeToEachPageItem() throws Exception {
+        Map<String, Object> page = Map.of("content", List.of(summary), "totalElements", 1);
+
+        assertEquals("{\"content\":[{\"id\":\"r1\",\"photos\":[{\"url\":\"a.jpg\",\"width\":800},"
+                        + "{\"url\":\"b.jpg\",\"width\":640}]}],\"totalElements\":1}",
+                objectMapper.writer(provider("id,photos.url,photos.width"))
+                        .writeValueAsString(new TreeMap<>(page)));
+    }
+
+    @Test
+    void parsesAndTranslatesSelectionToSourceIncludes() {
+        FieldSelection selection = FieldSelection.parse(" name, ,totalReviews,photos.url ");
+
+        assertEquals(List.of("name", "reviews.id", "photos.url"),
+                selection.sourceIncludes("", Map.of("totalReviews", "reviews.id")));
+        assertEquals(FieldSelection.ALL, FieldSelection.parse(" , "));
+    }
+
+    private String write(Object value, String fields) throws Exception {
+        return objectMapper.writer(provider(fields)).writeValueAsString(value);
+    }
+
+    private static SimpleFilterProvider provider(String fields) {
+        return new SimpleFilterProvider()
+                .addFilter(FieldSelection.FILTER_ID, new FieldSelectionFilter(FieldSelection.parse(fields)));
+    }
+}